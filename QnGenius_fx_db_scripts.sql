@@ -1,3 +1,6 @@
+-- Baseline schema for a new database. Later changes are versioned migrations in
+-- src/main/resources/db/migration, which the application applies on startup.
+
 --
 -- Table structure for users
 --
@@ -139,10 +142,56 @@ CREATE TABLE user_group_members (
 );
 
 -- Table to log user login events for auditing
+-- Partitioned by month; the application creates upcoming partitions and drops expired ones
 CREATE TABLE login_logs (
-    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
     user_id UUID REFERENCES users(id) ON DELETE SET NULL,
-    login_time TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    login_time TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
     ip_address VARCHAR(45),
-    success BOOLEAN NOT NULL
-);
\ No newline at end of file
+    success BOOLEAN NOT NULL,
+    PRIMARY KEY (id, login_time)
+) PARTITION BY RANGE (login_time);
+
+-- Catches rows outside the monthly partitions
+CREATE TABLE login_logs_default PARTITION OF login_logs DEFAULT;
+
+CREATE INDEX idx_login_logs_user_time ON login_logs (user_id, login_time);
+
+-- Daily per-user login counts, maintained with each audit batch and kept after raw partitions are dropped.
+-- Attempts for unknown usernames are counted under the nil UUID.
+CREATE TABLE login_daily_stats (
+    day DATE NOT NULL,
+    user_id UUID NOT NULL,
+    successes INTEGER NOT NULL DEFAULT 0,
+    failures INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, user_id)
+);
+
+CREATE INDEX idx_login_daily_stats_user ON login_daily_stats (user_id, day);
+
+-- Advanced by the login audit writer together with each batch of login_logs rows
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login TIMESTAMP WITH TIME ZONE;
+
+-- Table to track bulk imports so that a failed import can resume from its last committed chunk
+CREATE TABLE import_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    file_name VARCHAR(255) NOT NULL,
+    file_hash VARCHAR(64) NOT NULL,
+    subject_id UUID REFERENCES subjects(id),
+    unit_id UUID REFERENCES units(id),
+    created_by UUID REFERENCES users(id) ON DELETE SET NULL,
+    total_rows INTEGER NOT NULL,
+    committed_rows INTEGER NOT NULL DEFAULT 0,
+    last_committed_row INTEGER NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    started_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_import_jobs_resume ON import_jobs (file_hash, subject_id, unit_id);
+
+-- Imported questions carry (import id, source row number) as an idempotency key
+ALTER TABLE questions ADD COLUMN import_id UUID REFERENCES import_jobs(id) ON DELETE SET NULL;
+ALTER TABLE questions ADD COLUMN import_row INTEGER;
+CREATE UNIQUE INDEX uq_questions_import_row ON questions (import_id, import_row);
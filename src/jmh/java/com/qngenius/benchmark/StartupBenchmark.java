@@ -0,0 +1,101 @@
+package com.qngenius.benchmark;
+
+import com.qngenius.util.StartupTimer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Cold start to the login screen's first frame, in fresh JVMs. JMH measures inside one JVM, so
+ * this launches the GUI repeatedly with {@code -Dqngenius.startup.exitAfterFirstFrame=true}
+ * and reads the time it reports, first as is and then with an AppCDS archive trained by one
+ * extra run on the same class path. Needs a display. Options:
+ * <pre>
+ *   --runs N            launches per variant (default 10)
+ *   --jvm-args "..."    extra options for the launched JVMs
+ * </pre>
+ */
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int runs = 10;
+        List<String> jvmArgs = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if ("--runs".equals(args[i])) {
+                runs = Integer.parseInt(args[i + 1]);
+            } else if ("--jvm-args".equals(args[i])) {
+                Collections.addAll(jvmArgs, args[i + 1].trim().split("\\s+"));
+            }
+        }
+
+        File archive = File.createTempFile("qngenius-startup", ".jsa");
+        archive.delete();
+        try {
+            report("default", measure(runs, jvmArgs));
+
+            List<String> training = new ArrayList<>(jvmArgs);
+            training.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+            launch(training);
+            if (!archive.isFile()) {
+                throw new IllegalStateException("The training run did not write " + archive);
+            }
+            List<String> shared = new ArrayList<>(jvmArgs);
+            shared.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            report("appcds", measure(runs, shared));
+        } finally {
+            archive.delete();
+        }
+    }
+
+    private static List<Long> measure(int runs, List<String> jvmArgs) throws IOException, InterruptedException {
+        // The first launch pays for a cold page cache, which the others do not
+        launch(jvmArgs);
+        List<Long> times = new ArrayList<>(runs);
+        for (int i = 0; i < runs; i++) {
+            times.add(launch(jvmArgs));
+        }
+        return times;
+    }
+
+    /**
+     * @return the time to first frame the launched GUI reported
+     */
+    private static long launch(List<String> jvmArgs) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.addAll(jvmArgs);
+        command.add("-D" + StartupTimer.EXIT_AFTER_FIRST_FRAME_PROPERTY + "=true");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("com.qngenius.Launcher");
+
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.DISCARD).start();
+        long firstFrame = -1;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = out.readLine()) != null) {
+                if (line.startsWith(StartupTimer.FIRST_FRAME_PREFIX)) {
+                    firstFrame = Long.parseLong(line.substring(StartupTimer.FIRST_FRAME_PREFIX.length()).trim());
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (firstFrame < 0) {
+            throw new IllegalStateException("The GUI exited with " + exitCode + " without reaching its first frame");
+        }
+        return firstFrame;
+    }
+
+    private static void report(String variant, List<Long> times) {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        System.out.printf("%-8s time to first frame over %d runs: min %d ms, median %d ms, max %d ms%n", variant,
+                sorted.size(), sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+    }
+}
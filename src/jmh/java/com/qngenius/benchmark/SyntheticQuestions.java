@@ -0,0 +1,123 @@
+package com.qngenius.benchmark;
+
+import com.qngenius.model.Question;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Reproducible question data for the benchmarks and the load test. Texts mix common words
+ * with a few thousand generated technical terms, drawn with a skew towards the first ones,
+ * so questions share words the way a real subject's questions do without every text sharing
+ * every trigram. The same seed always gives the same bank.
+ */
+public final class SyntheticQuestions {
+
+    public static final String[] QUESTION_TYPES = {
+        "Short Answer", "Long Answer", "Multiple Choice", "Case Study", "Essay", "Numerical" };
+    public static final String[] DIFFICULTY_LEVELS = { "Easy", "Medium", "Hard" };
+    public static final String[] BLOOM_LEVELS = {
+        "Remember", "Understand", "Apply", "Analyze", "Evaluate", "Create" };
+    // Column order of the bulk import template
+    public static final String[] IMPORT_HEADER = {
+        "Question Text", "Type", "Marks", "Difficulty", "Bloom Level", "Keywords" };
+    private static final String[] OPENINGS = {
+        "Explain", "Describe", "Compare", "Derive", "Discuss", "Evaluate", "Illustrate", "Define", "Analyze", "Outline" };
+    private static final String[] WORDS = {
+        "the", "process", "of", "thermal", "equilibrium", "in", "a", "closed", "system", "with", "respect", "to",
+        "energy", "transfer", "algorithm", "complexity", "data", "structure", "network", "protocol", "layer",
+        "circuit", "voltage", "current", "resistance", "signal", "frequency", "response", "control", "feedback",
+        "matrix", "eigenvalue", "transform", "integral", "boundary", "condition", "stress", "strain", "material",
+        "design", "database", "normalization", "transaction", "concurrency", "memory", "allocation", "compiler",
+        "optimization", "and", "its", "applications", "for", "given", "example", "using", "suitable", "diagram" };
+    private static final String[] SYLLABLES = {
+        "ther", "mo", "dy", "na", "mic", "al", "go", "rith", "en", "tro", "py", "flux", "vec", "tor", "ion",
+        "cat", "ly", "sis", "poly", "mer", "quan", "tum", "mod", "ul", "ation", "kin", "et", "ics", "spec", "tral" };
+    private static final String[] TERMS = terms(4000);
+    private static final int[] MARKS = { 1, 2, 5, 10, 16 };
+
+    private SyntheticQuestions() {
+    }
+
+    /**
+     * @param length average question text length in characters
+     */
+    public static List<Question> bank(int size, int length, long seed) {
+        Random random = new Random(seed);
+        List<Question> questions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            questions.add(new Question(new UUID(seed, i), text(random, length),
+                    QUESTION_TYPES[random.nextInt(QUESTION_TYPES.length)],
+                    MARKS[random.nextInt(MARKS.length)],
+                    DIFFICULTY_LEVELS[random.nextInt(DIFFICULTY_LEVELS.length)],
+                    BLOOM_LEVELS[random.nextInt(BLOOM_LEVELS.length)]));
+        }
+        return questions;
+    }
+
+    /**
+     * @param length average text length; individual texts vary from half to one and a half times it
+     */
+    public static String text(Random random, int length) {
+        int target = length / 2 + random.nextInt(length + 1);
+        StringBuilder text = new StringBuilder(target + 16);
+        text.append(OPENINGS[random.nextInt(OPENINGS.length)]);
+        while (text.length() < target) {
+            if (random.nextInt(5) < 2) {
+                text.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+            } else {
+                double skew = random.nextDouble();
+                text.append(' ').append(TERMS[(int) (skew * skew * TERMS.length)]);
+            }
+        }
+        return text.append('.').toString();
+    }
+
+    /**
+     * A copy of {@code text} with one word replaced, close enough to count as a duplicate
+     */
+    public static String nearDuplicate(String text) {
+        int space = text.indexOf(' ', text.length() / 2);
+        if (space < 0) {
+            return text + " again";
+        }
+        int end = text.indexOf(' ', space + 1);
+        return text.substring(0, space + 1) + "revised" + (end < 0 ? "." : text.substring(end));
+    }
+
+    /**
+     * Writes the questions as a bulk import CSV file
+     */
+    public static void writeCsv(List<Question> questions, File file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            out.write(String.join(",", IMPORT_HEADER));
+            out.newLine();
+            for (Question question : questions) {
+                out.write('"' + question.getQuestionText().replace("\"", "\"\"") + '"');
+                out.write("," + question.getQuestionType() + "," + question.getMarks() + ","
+                        + question.getDifficultyLevel() + "," + question.getBloomTaxonomyLevel() + ",benchmark");
+                out.newLine();
+            }
+        }
+    }
+
+    private static String[] terms(int count) {
+        Random random = new Random(1);
+        String[] terms = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder term = new StringBuilder();
+            for (int syllables = 2 + random.nextInt(3); syllables > 0; syllables--) {
+                term.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            terms[i] = term.toString();
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,102 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.server.ApiServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Throughput of the HTTP service mode: the same generated bank as {@link LoadTest}, served by an
+ * in-process {@link ApiServer} and driven by 1000 concurrent clients by default, each sending its
+ * next request as soon as the last one is answered. Takes the {@link LoadTest} options, with
+ * {@code --mix generate=2,search=5,statistics=3} and {@code --threads} as the number of clients,
+ * plus:
+ * <pre>
+ *   --pool-size N           pooled connections, and so request threads (default 20)
+ *   --max-queued N          requests queued before the server answers 503 (default 1024)
+ *   --cache-seconds N       server cache lifetime, 0 to disable (default 30)
+ * </pre>
+ * Rejected requests count as errors in the report.
+ */
+public class HttpLoadTest extends LoadTest {
+
+    private static final String[] KEYWORDS = { "process", "system", "energy", "network", "design", "memory" };
+    private static final String[] DIFFICULTY_LEVELS = { "Easy", "Medium", "Hard" };
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .build();
+    private ApiServer server;
+    private String baseUrl;
+
+    HttpLoadTest(Map<String, String> options) {
+        super(options, "generate=2,search=5,statistics=3", 1000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new HttpLoadTest(parseOptions(args)).run();
+        System.exit(0);
+    }
+
+    @Override
+    void configure(Properties config) {
+        // The clients are not database sessions; the server's pool is what is being sized
+        config.setProperty("db.pool.maxSize", option("pool-size", "20"));
+        config.setProperty("app.server.threads", "0");
+        config.setProperty("app.server.maxQueuedRequests", option("max-queued", "1024"));
+        config.setProperty("app.server.cacheSeconds", option("cache-seconds", "30"));
+    }
+
+    @Override
+    void started() throws Exception {
+        server = new ApiServer(0);
+        server.start();
+        baseUrl = "http://localhost:" + server.getPort();
+    }
+
+    @Override
+    void stopping() {
+        server.stop(0);
+    }
+
+    @Override
+    void execute(String operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int subject = random.nextInt(bank.subjects.length);
+        HttpRequest request;
+        switch (operation) {
+            case "generate":
+                UUID blueprint = bank.blueprints[subject][random.nextInt(bank.blueprints[subject].length)];
+                request = HttpRequest.newBuilder(uri("/api/papers/generate?subject=" + bank.subjects[subject]
+                        + "&blueprint=" + blueprint)).POST(HttpRequest.BodyPublishers.noBody()).build();
+                break;
+            case "search":
+                request = HttpRequest.newBuilder(uri("/api/questions/search?subject=" + bank.subjects[subject]
+                        + "&keywords=" + KEYWORDS[random.nextInt(KEYWORDS.length)]
+                        + "&difficulty=" + DIFFICULTY_LEVELS[random.nextInt(DIFFICULTY_LEVELS.length)]
+                        + "&limit=50")).build();
+                break;
+            case "statistics":
+                request = HttpRequest.newBuilder(uri("/api/questions/statistics?subject=" + bank.subjects[subject])).build();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " from " + operation + ": " + response.body());
+        }
+    }
+
+    private URI uri(String pathAndQuery) {
+        return URI.create(baseUrl + pathAndQuery);
+    }
+}
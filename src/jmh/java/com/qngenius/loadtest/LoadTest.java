@@ -0,0 +1,329 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+import com.qngenius.model.Course;
+import com.qngenius.service.PaperGenerationService;
+import com.qngenius.service.QuestionService;
+import com.qngenius.service.importer.ImportDuplicateIndex;
+import com.qngenius.service.importer.StreamingCsvReader;
+import com.qngenius.service.importer.QuestionImportValidator;
+import com.qngenius.service.importer.ResumableImport;
+import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.Histogram;
+import com.qngenius.util.MetricsRegistry;
+import com.qngenius.util.SchemaMigrator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Headless load test: generates a synthetic question bank, then runs CoE paper generations,
+ * bulk imports and dashboard loads from concurrent workers through the application's own
+ * services, and reports throughput and latency percentiles per operation.
+ *
+ * By default the database is an embedded PostgreSQL started for the run; {@code --jdbc-url}
+ * points it at a running server instead, which must hold an empty database. Options:
+ * <pre>
+ *   --jdbc-url URL --user NAME --password SECRET   use a running server
+ *   --schema FILE                                 schema script (QnGenius_fx_db_scripts.sql)
+ *   --courses N --subjects-per-course N --units-per-subject N --questions-per-unit N
+ *   --question-length CHARS --seed N              the generated bank
+ *   --threads N --warmup SECONDS --duration SECONDS
+ *   --mix generate=6,import=1,dashboard=3         relative weights of the operations
+ *   --import-rows N                               rows per imported file
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final Logger LOGGER = Logger.getLogger(LoadTest.class.getName());
+
+    private final Map<String, String> options;
+    private final int defaultThreads;
+    private final Map<String, OperationResult> results = new LinkedHashMap<>();
+    private final List<String> schedule = new ArrayList<>();
+    private final QuestionImportValidator validator = new QuestionImportValidator();
+    private final AtomicLong importCounter = new AtomicLong();
+    QuestionBankGenerator.GeneratedBank bank;
+    private volatile boolean measuring;
+
+    LoadTest(Map<String, String> options) {
+        this(options, "generate=6,import=1,dashboard=3", 16);
+    }
+
+    LoadTest(Map<String, String> options, String defaultMix, int defaultThreads) {
+        this.options = options;
+        this.defaultThreads = defaultThreads;
+        for (String entry : option("mix", defaultMix).split(",")) {
+            String[] weight = entry.split("=");
+            results.put(weight[0].trim(), new OperationResult());
+            for (int i = 0; i < Integer.parseInt(weight[1].trim()); i++) {
+                schedule.add(weight[0].trim());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parseOptions(args)).run();
+        System.exit(0);
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        return options;
+    }
+
+    void run() throws Exception {
+        EmbeddedPostgres embedded = null;
+        String url = options.get("jdbc-url");
+        String user = option("user", "postgres");
+        String password = option("password", "");
+        if (url == null) {
+            embedded = EmbeddedPostgres.builder().start();
+            url = embedded.getJdbcUrl("postgres", "postgres");
+            LOGGER.info("Started embedded PostgreSQL on port " + embedded.getPort());
+        }
+
+        try {
+            createSchema(url, user, password);
+            try (Connection conn = DriverManager.getConnection(url, user, password)) {
+                bank = new QuestionBankGenerator()
+                        .courses(intOption("courses", 20))
+                        .subjectsPerCourse(intOption("subjects-per-course", 50))
+                        .unitsPerSubject(intOption("units-per-subject", 5))
+                        .questionsPerUnit(intOption("questions-per-unit", 200))
+                        .questionLength(intOption("question-length", 160))
+                        .seed(intOption("seed", 42))
+                        .generate(conn);
+            }
+            // Must happen before the first use of the application's database classes
+            configureApplication(url, user, password);
+            started();
+            try {
+                measure();
+            } finally {
+                stopping();
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+    }
+
+    private void createSchema(String url, String user, String password) throws IOException, SQLException {
+        String script = Files.readString(Path.of(option("schema", "QnGenius_fx_db_scripts.sql")));
+        try (Connection conn = DriverManager.getConnection(url, user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(script);
+        }
+        // Before the bank is generated, as it writes questions.subject_id
+        new SchemaMigrator(() -> DriverManager.getConnection(url, user, password)).migrate();
+    }
+
+    private void configureApplication(String url, String user, String password) throws IOException {
+        Properties config = new Properties();
+        config.setProperty("db.url", url);
+        config.setProperty("db.user", user);
+        config.setProperty("db.password", password);
+        config.setProperty("db.pool.maxSize", String.valueOf(threads() + 4));
+        // The report below replaces the periodic summary
+        config.setProperty("app.metrics.summaryIntervalSeconds", "0");
+        configure(config);
+        File file = File.createTempFile("qngenius-loadtest", ".properties");
+        file.deleteOnExit();
+        try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            config.store(out, "Load test");
+        }
+        System.setProperty("qngenius.config", file.getAbsolutePath());
+    }
+
+    /**
+     * Adjusts the application configuration before it is written
+     */
+    void configure(Properties config) {
+    }
+
+    /**
+     * Called once the bank is generated and the application configured, before the workers start
+     */
+    void started() throws Exception {
+    }
+
+    /**
+     * Called after the workers have finished
+     */
+    void stopping() {
+    }
+
+    /**
+     * Runs the workers and reports their results. Overridden to measure more than once, with
+     * {@link #resetResults()} between the runs.
+     */
+    void measure() throws Exception {
+        drive();
+        report();
+    }
+
+    void resetResults() {
+        results.replaceAll((operation, result) -> new OperationResult());
+    }
+
+    private void drive() throws InterruptedException {
+        int threads = threads();
+        long warmupMillis = TimeUnit.SECONDS.toMillis(intOption("warmup", 10));
+        long durationMillis = TimeUnit.SECONDS.toMillis(intOption("duration", 60));
+        long start = System.currentTimeMillis();
+        long measureFrom = start + warmupMillis;
+        long end = measureFrom + durationMillis;
+        LOGGER.info(String.format("Running %s with %d threads: %ds warmup, %ds measured",
+                results.keySet(), threads, warmupMillis / 1000, durationMillis / 1000));
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                while (System.currentTimeMillis() < end) {
+                    String operation = schedule.get(ThreadLocalRandom.current().nextInt(schedule.size()));
+                    OperationResult result = results.get(operation);
+                    boolean measured = measuring;
+                    long opStart = System.nanoTime();
+                    try {
+                        execute(operation);
+                        if (measured) {
+                            result.latency.record(System.nanoTime() - opStart);
+                        }
+                    } catch (Exception e) {
+                        if (measured) {
+                            result.errors.increment();
+                        }
+                        LOGGER.log(Level.FINE, operation + " failed", e);
+                        result.lastError = e.toString();
+                    }
+                }
+            });
+        }
+        Thread.sleep(Math.max(0, measureFrom - System.currentTimeMillis()));
+        measuring = true;
+        workers.shutdown();
+        workers.awaitTermination(durationMillis + TimeUnit.MINUTES.toMillis(5), TimeUnit.MILLISECONDS);
+        measuring = false;
+    }
+
+    void execute(String operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int subject = random.nextInt(bank.subjects.length);
+        switch (operation) {
+            case "generate":
+                generatePaper(subject, random.nextInt(bank.blueprints[subject].length));
+                break;
+            case "import":
+                importQuestions(subject, random.nextInt(bank.units[subject].length));
+                break;
+            case "dashboard":
+                loadDashboard(subject);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    // What the CoE screen does on "Generate"
+    private void generatePaper(int subject, int blueprint) throws SQLException {
+        PaperGenerationService.getInstance().generatePaperContent(bank.subjects[subject], bank.blueprints[subject][blueprint]);
+    }
+
+    // The bulk import of a CSV file into one unit, with duplicate checks against the subject
+    private void importQuestions(int subject, int unit) throws Exception {
+        int rows = intOption("import-rows", 200);
+        File file = File.createTempFile("loadtest-import", ".csv");
+        try {
+            SyntheticQuestions.writeCsv(SyntheticQuestions.bank(rows, intOption("question-length", 160),
+                    importCounter.incrementAndGet() * 1_000_003L), file);
+            ResumableImport importer = new ResumableImport(file, bank.subjects[subject], bank.units[subject][unit], bank.userId);
+            importer.prepare(rows);
+            importer.run(handler -> new StreamingCsvReader().read(file, handler), validator,
+                    ImportDuplicateIndex.load(bank.subjects[subject]),
+                    row -> "valid".equalsIgnoreCase(row.getStatus()), null);
+        } finally {
+            file.delete();
+        }
+    }
+
+    // The dashboard's subject count, plus the statistics of one subject
+    private void loadDashboard(int subject) throws Exception {
+        int subjects = 0;
+        for (Course course : DatabaseUtil.getAllCourses()) {
+            subjects += DatabaseUtil.getSubjectsByCourse(course.getId()).size();
+        }
+        if (subjects == 0) {
+            throw new IllegalStateException("No subjects found");
+        }
+        QuestionService.getInstance().getQuestionStatistics(bank.subjects[subject]);
+    }
+
+    private void report() {
+        double seconds = intOption("duration", 60);
+        StringBuilder table = new StringBuilder(String.format("%n%-10s %9s %9s %9s %9s %9s %9s %7s%n",
+                "operation", "count", "ops/s", "p50 ms", "p95 ms", "p99 ms", "max ms", "errors"));
+        for (Map.Entry<String, OperationResult> entry : results.entrySet()) {
+            Histogram.Snapshot latency = entry.getValue().latency.snapshot();
+            table.append(String.format("%-10s %9d %9.1f %9.1f %9.1f %9.1f %9.1f %7d%n", entry.getKey(),
+                    latency.getCount(), latency.getCount() / seconds, millis(latency.getPercentile(50)),
+                    millis(latency.getPercentile(95)), millis(latency.getPercentile(99)),
+                    millis(latency.getPercentile(100)), entry.getValue().errors.sum()));
+            if (entry.getValue().lastError != null) {
+                table.append("           last error: ").append(entry.getValue().lastError).append('\n');
+            }
+        }
+        System.out.println(table);
+        // Per DAO method, for where the time went
+        MetricsRegistry.getInstance().logSummary();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    int threads() {
+        return intOption("threads", defaultThreads);
+    }
+
+    String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+
+    private static class OperationResult {
+        final Histogram latency = new Histogram();
+        final LongAdder errors = new LongAdder();
+        volatile String lastError;
+    }
+}
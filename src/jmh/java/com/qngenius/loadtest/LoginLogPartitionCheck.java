@@ -0,0 +1,134 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.util.LoginLogPartitionManager;
+import com.qngenius.util.SchemaMigrator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Map;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Checks that login log partition maintenance copes with rows already in the default
+ * partition, as an upgraded database or logins before the first maintenance run leave them.
+ * In an embedded PostgreSQL it first replaces {@code login_logs} with the plain table of earlier
+ * releases and checks that the schema migration moves its rows into monthly partitions. It
+ * then writes logins for the current month, for an earlier month within retention and for an
+ * expired month, none of which has a partition yet, plus an expired partition, and runs
+ * {@link LoginLogPartitionManager#maintain()} twice. Prints each check and exits with 1 if any
+ * fails. Takes {@code --schema} as {@link QueryPlanCheck} does.
+ */
+public class LoginLogPartitionCheck {
+
+    private static final int RETENTION_MONTHS = 6;
+    private static final int MONTHS_AHEAD = 2;
+
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parseOptions(args);
+        try (EmbeddedPostgres embedded = EmbeddedPostgres.builder().start()) {
+            String url = embedded.getJdbcUrl("postgres", "postgres");
+            try (Connection conn = DriverManager.getConnection(url, "postgres", "");
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute(Files.readString(Path.of(options.getOrDefault("schema", "QnGenius_fx_db_scripts.sql"))));
+                stmt.execute("DROP TABLE login_logs");
+                stmt.execute("CREATE TABLE login_logs (id UUID PRIMARY KEY DEFAULT gen_random_uuid(), "
+                        + "user_id UUID REFERENCES users(id) ON DELETE SET NULL, "
+                        + "login_time TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP, "
+                        + "ip_address VARCHAR(45), success BOOLEAN NOT NULL)");
+            }
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            YearMonth upgradedFirst = current.minusMonths(4);
+            YearMonth upgradedLast = current.minusMonths(3);
+            try (Connection conn = DriverManager.getConnection(url, "postgres", "")) {
+                insertLogins(conn, upgradedFirst, 2);
+                insertLogins(conn, upgradedLast, 1);
+            }
+            new SchemaMigrator(() -> DriverManager.getConnection(url, "postgres", "")).migrate();
+            LoginLogPartitionManager manager = new LoginLogPartitionManager(
+                    () -> DriverManager.getConnection(url, "postgres", ""), RETENTION_MONTHS, MONTHS_AHEAD);
+
+            YearMonth kept = current.minusMonths(2);
+            YearMonth expired = current.minusMonths(RETENTION_MONTHS + 2);
+            YearMonth expiredPartition = current.minusMonths(RETENTION_MONTHS);
+            try (Connection conn = DriverManager.getConnection(url, "postgres", "")) {
+                check("upgraded rows moved into monthly partitions", count(conn, "login_logs_default") == 0
+                        && count(conn, name(upgradedFirst)) == 2 && count(conn, name(upgradedLast)) == 1);
+
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(String.format("CREATE TABLE %s PARTITION OF login_logs FOR VALUES FROM ('%s') TO ('%s')",
+                            name(expiredPartition), expiredPartition.atDay(1), expiredPartition.plusMonths(1).atDay(1)));
+                }
+                insertLogins(conn, current, 3);
+                insertLogins(conn, kept, 2);
+                insertLogins(conn, expired, 2);
+                insertLogins(conn, expiredPartition, 1);
+                check("rows start in the default partition", count(conn, "login_logs_default") == 7);
+
+                manager.maintain();
+                check("default partition emptied", count(conn, "login_logs_default") == 0);
+                check("current month moved into its partition", count(conn, name(current)) == 3);
+                check("earlier month within retention moved into its partition", count(conn, name(kept)) == 2);
+                check("upcoming partitions created", exists(conn, name(current.plusMonths(MONTHS_AHEAD))));
+                check("expired partition dropped", !exists(conn, name(expiredPartition)));
+                check("expired default rows deleted, not partitioned", !exists(conn, name(expired)));
+                check("only rows within retention kept", count(conn, "login_logs") == 5 + 3);
+
+                insertLogins(conn, current, 1);
+                manager.maintain();
+                check("new logins land in their partition", count(conn, name(current)) == 4
+                        && count(conn, "login_logs_default") == 0);
+            }
+        }
+        System.out.println(failures == 0 ? "Login log partition maintenance passed"
+                : failures + " login log partition check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void insertLogins(Connection conn, YearMonth month, int count) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO login_logs (login_time, success) VALUES (?::timestamptz, true)")) {
+            for (int i = 0; i < count; i++) {
+                pstmt.setString(1, month.atDay(1 + i) + " 12:00:00+00");
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private static long count(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static boolean exists(Connection conn, String table) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT to_regclass('" + table + "') IS NOT NULL")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private static String name(YearMonth month) {
+        return String.format("login_logs_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static void check(String name, boolean passed) {
+        System.out.println((passed ? "OK    " : "FAIL  ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.util.SchemaMigrator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Checks that an index serves each of the application's hot queries once the schema
+ * migrations have run. Builds a generated bank in an embedded PostgreSQL, or uses
+ * {@code --jdbc-url}, {@code --user} and {@code --password} as given, then plans each query
+ * with sequential scans disabled, so that a Seq Scan in the plan means no index fits it
+ * whatever the table size. Browsing pages must also come in index order, with no Sort, for a
+ * page deep into the bank to cost what the first does. Prints the plans and exits with 1 if
+ * any query is not served.
+ * Takes the bank size options of {@link LoadTest}, with smaller defaults.
+ */
+public class QueryPlanCheck {
+
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+    private static final Pattern SORT = Pattern.compile("^\\s*(?:->\\s*)?(?:Incremental )?Sort\\b");
+    private static final String BROWSE_COLUMNS = "question_id, question_text, question_type, marks, difficulty_level, "
+            + "bloom_taxonomy_level, created_at";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTest.parseOptions(args);
+        EmbeddedPostgres embedded = null;
+        String url = options.get("jdbc-url");
+        String user = options.getOrDefault("user", "postgres");
+        String password = options.getOrDefault("password", "");
+        if (url == null) {
+            embedded = EmbeddedPostgres.builder().start();
+            url = embedded.getJdbcUrl("postgres", "postgres");
+        }
+
+        int failures;
+        try {
+            String jdbcUrl = url;
+            try (Connection conn = DriverManager.getConnection(url, user, password);
+                 Statement stmt = conn.createStatement()) {
+                stmt.execute(Files.readString(Path.of(options.getOrDefault("schema", "QnGenius_fx_db_scripts.sql"))));
+            }
+            new SchemaMigrator(() -> DriverManager.getConnection(jdbcUrl, user, password)).migrate();
+            try (Connection conn = DriverManager.getConnection(url, user, password)) {
+                new QuestionBankGenerator()
+                        .courses(Integer.parseInt(options.getOrDefault("courses", "5")))
+                        .subjectsPerCourse(Integer.parseInt(options.getOrDefault("subjects-per-course", "20")))
+                        .unitsPerSubject(Integer.parseInt(options.getOrDefault("units-per-subject", "5")))
+                        .questionsPerUnit(Integer.parseInt(options.getOrDefault("questions-per-unit", "100")))
+                        .seed(Long.parseLong(options.getOrDefault("seed", "42")))
+                        .generate(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ANALYZE");
+                    stmt.execute("SET enable_seqscan = off");
+                }
+                failures = checkAll(conn);
+            }
+        } finally {
+            if (embedded != null) {
+                embedded.close();
+            }
+        }
+        System.out.println(failures == 0 ? "All hot queries are served by an index"
+                : failures + " hot query(ies) scan a whole table");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static int checkAll(Connection conn) throws SQLException {
+        Object courseId = value(conn, "SELECT id FROM courses LIMIT 1");
+        Object subjectId = value(conn, "SELECT id FROM subjects LIMIT 1");
+        Object unitId = value(conn, "SELECT id FROM units LIMIT 1");
+        Object examTypeId = value(conn, "SELECT exam_type_id FROM blueprints LIMIT 1");
+        Object blueprintId = value(conn, "SELECT id FROM blueprints LIMIT 1");
+        Object createdAt = value(conn, "SELECT created_at FROM questions WHERE subject_id = '" + subjectId + "' "
+                + "ORDER BY created_at, question_id OFFSET 50 LIMIT 1");
+        Object questionId = value(conn, "SELECT question_id FROM questions WHERE subject_id = '" + subjectId + "' "
+                + "ORDER BY created_at, question_id OFFSET 50 LIMIT 1");
+
+        int failures = 0;
+        failures += check(conn, "subjects of a course",
+                "SELECT id, course_id, subject_code, subject_name FROM subjects WHERE course_id = ?", courseId);
+        failures += check(conn, "units of a subject",
+                "SELECT id, subject_id, unit_name FROM units WHERE subject_id = ?", subjectId);
+        failures += check(conn, "blueprints of a subject",
+                "SELECT id, subject_id, exam_type_id, title, total_marks, duration_minutes, is_custom FROM blueprints "
+                        + "WHERE subject_id = ?", subjectId);
+        failures += check(conn, "blueprints of a subject and exam type",
+                "SELECT id, subject_id, exam_type_id, title, total_marks, duration_minutes, is_custom FROM blueprints "
+                        + "WHERE subject_id = ? AND exam_type_id = ?", subjectId, examTypeId);
+        failures += check(conn, "criteria of a blueprint",
+                "SELECT bc.id, bc.blueprint_section_id, bc.question_type, bc.number_of_questions, bc.marks_per_question, "
+                        + "bc.difficulty_level, bc.bloom_taxonomy_level FROM blueprint_criteria bc "
+                        + "JOIN blueprint_sections bs ON bc.blueprint_section_id = bs.id WHERE bs.blueprint_id = ?",
+                blueprintId);
+        failures += check(conn, "questions of a subject",
+                "SELECT question_id, question_text, question_type, marks, difficulty_level, bloom_taxonomy_level "
+                        + "FROM questions WHERE subject_id = ?", subjectId);
+        failures += check(conn, "questions matching a blueprint criterion",
+                "SELECT * FROM questions WHERE subject_id = ? AND marks = ? AND difficulty_level = ? "
+                        + "AND bloom_taxonomy_level = ? ORDER BY RANDOM() LIMIT ?", subjectId, 2, "Easy", "Remember", 5);
+        failures += check(conn, "questions of a unit",
+                "SELECT question_id FROM questions WHERE unit_id = ?", unitId);
+        failures += checkPage(conn, "next page of the bank",
+                "SELECT " + BROWSE_COLUMNS + " FROM questions WHERE (created_at, question_id) > (?, ?) "
+                        + "ORDER BY created_at ASC, question_id ASC LIMIT ?", createdAt, questionId, 101);
+        failures += checkPage(conn, "previous page of the bank",
+                "SELECT " + BROWSE_COLUMNS + " FROM questions WHERE (created_at, question_id) < (?, ?) "
+                        + "ORDER BY created_at DESC, question_id DESC LIMIT ?", createdAt, questionId, 101);
+        failures += checkPage(conn, "next page of a subject",
+                "SELECT " + BROWSE_COLUMNS + " FROM questions WHERE subject_id = ? AND (created_at, question_id) > (?, ?) "
+                        + "ORDER BY created_at ASC, question_id ASC LIMIT ?", subjectId, createdAt, questionId, 101);
+        return failures;
+    }
+
+    /**
+     * @return 1 if the plan scans a whole table, 0 otherwise
+     */
+    private static int check(Connection conn, String name, String sql, Object... parameters) throws SQLException {
+        return check(conn, name, false, sql, parameters);
+    }
+
+    /**
+     * @return 1 if the plan scans a whole table or sorts, 0 otherwise
+     */
+    private static int checkPage(Connection conn, String name, String sql, Object... parameters) throws SQLException {
+        return check(conn, name, true, sql, parameters);
+    }
+
+    private static int check(Connection conn, String name, boolean ordered, String sql, Object... parameters)
+            throws SQLException {
+        List<String> plan = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.add(rs.getString(1));
+                }
+            }
+        }
+        List<String> problems = new ArrayList<>();
+        for (String line : plan) {
+            Matcher matcher = SEQ_SCAN.matcher(line);
+            if (matcher.find()) {
+                problems.add("scans " + matcher.group(1));
+            } else if (ordered && SORT.matcher(line).find()) {
+                problems.add("sorts");
+            }
+        }
+        System.out.println((problems.isEmpty() ? "OK    " : "FAIL  ") + name
+                + (problems.isEmpty() ? "" : " (" + String.join(", ", problems) + ")"));
+        for (String line : plan) {
+            System.out.println("      " + line);
+        }
+        return problems.isEmpty() ? 0 : 1;
+    }
+
+    private static Object value(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (!rs.next()) {
+                throw new IllegalStateException("No rows for " + sql);
+            }
+            return rs.getObject(1);
+        }
+    }
+}
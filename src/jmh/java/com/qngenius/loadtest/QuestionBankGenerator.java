@@ -0,0 +1,275 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+/**
+ * Fills an empty database created from {@code QnGenius_fx_db_scripts.sql} with a synthetic
+ * question bank: courses, subjects, units, course outcomes, one blueprint per subject and exam
+ * type, and the questions. Rows are streamed with COPY, so millions of questions load in
+ * minutes. The same seed always produces the same bank.
+ */
+public class QuestionBankGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(QuestionBankGenerator.class.getName());
+    private static final int COPY_BUFFER_CHARS = 1 << 20;
+    private static final int OUTCOMES_PER_SUBJECT = 5;
+    static final int[] MARKS = { 2, 5, 10, 16 };
+
+    private int courses = 20;
+    private int subjectsPerCourse = 50;
+    private int unitsPerSubject = 5;
+    private int questionsPerUnit = 200;
+    private int questionLength = 160;
+    private long seed = 42;
+
+    public QuestionBankGenerator courses(int courses) { this.courses = courses; return this; }
+    public QuestionBankGenerator subjectsPerCourse(int subjectsPerCourse) { this.subjectsPerCourse = subjectsPerCourse; return this; }
+    public QuestionBankGenerator unitsPerSubject(int unitsPerSubject) { this.unitsPerSubject = unitsPerSubject; return this; }
+    public QuestionBankGenerator questionsPerUnit(int questionsPerUnit) { this.questionsPerUnit = questionsPerUnit; return this; }
+    public QuestionBankGenerator questionLength(int questionLength) { this.questionLength = questionLength; return this; }
+    public QuestionBankGenerator seed(long seed) { this.seed = seed; return this; }
+
+    /**
+     * @param conn a plain PostgreSQL connection, not one wrapped by the application
+     */
+    public GeneratedBank generate(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        Random random = new Random(seed);
+        CopyManager copy = conn.unwrap(PGConnection.class).getCopyAPI();
+        UUID userId = createUser(conn);
+        List<UUID> examTypes = examTypes(conn);
+
+        int subjectCount = courses * subjectsPerCourse;
+        GeneratedBank bank = new GeneratedBank(userId, subjectCount);
+        UUID[] courseIds = new UUID[courses];
+        for (int c = 0; c < courses; c++) {
+            courseIds[c] = uuid(random);
+        }
+        for (int subject = 0; subject < subjectCount; subject++) {
+            bank.subjects[subject] = uuid(random);
+            bank.units[subject] = uuids(random, unitsPerSubject);
+            bank.outcomes[subject] = uuids(random, OUTCOMES_PER_SUBJECT);
+        }
+
+        // A connection runs one COPY at a time, so each table is written in its own pass
+        Rows courseRows = new Rows(copy, "courses (id, course_code, course_name)");
+        for (int c = 0; c < courses; c++) {
+            courseRows.add(courseIds[c], String.format("C%04d", c), "Course " + c);
+        }
+        courseRows.finish();
+        Rows subjectRows = new Rows(copy, "subjects (id, course_id, subject_code, subject_name)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            subjectRows.add(bank.subjects[subject], courseIds[subject / subjectsPerCourse],
+                    String.format("S%06d", subject), "Subject " + subject);
+        }
+        subjectRows.finish();
+        Rows unitRows = new Rows(copy, "units (id, subject_id, unit_name)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            for (int u = 0; u < unitsPerSubject; u++) {
+                unitRows.add(bank.units[subject][u], bank.subjects[subject], "Unit " + (u + 1));
+            }
+        }
+        unitRows.finish();
+        Rows outcomeRows = new Rows(copy, "course_outcomes (id, subject_id, co_code, co_description)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            for (int o = 0; o < OUTCOMES_PER_SUBJECT; o++) {
+                outcomeRows.add(bank.outcomes[subject][o], bank.subjects[subject], "CO" + (o + 1), "Course outcome " + (o + 1));
+            }
+        }
+        outcomeRows.finish();
+
+        generateBlueprints(copy, bank, examTypes, random);
+        long questions = generateQuestions(copy, bank, random);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE");
+        }
+        LOGGER.info(String.format("Generated %,d questions in %,d subjects in %,d ms",
+                questions, subjectCount, System.currentTimeMillis() - start));
+        return bank;
+    }
+
+    // Two sections per blueprint, short answers worth 20 marks and long answers worth 80
+    private void generateBlueprints(CopyManager copy, GeneratedBank bank, List<UUID> examTypes, Random random)
+            throws SQLException {
+        int subjectCount = bank.subjects.length;
+        UUID[][] partA = new UUID[subjectCount][];
+        UUID[][] partB = new UUID[subjectCount][];
+        for (int subject = 0; subject < subjectCount; subject++) {
+            bank.blueprints[subject] = uuids(random, examTypes.size());
+            partA[subject] = uuids(random, examTypes.size());
+            partB[subject] = uuids(random, examTypes.size());
+        }
+
+        Rows blueprintRows = new Rows(copy,
+                "blueprints (id, subject_id, exam_type_id, title, total_marks, duration_minutes)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            for (int e = 0; e < examTypes.size(); e++) {
+                blueprintRows.add(bank.blueprints[subject][e], bank.subjects[subject], examTypes.get(e),
+                        "Blueprint " + (e + 1), 100, 180);
+            }
+        }
+        blueprintRows.finish();
+        Rows sectionRows = new Rows(copy, "blueprint_sections (id, blueprint_id, section_name, section_marks)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            for (int e = 0; e < examTypes.size(); e++) {
+                sectionRows.add(partA[subject][e], bank.blueprints[subject][e], "Part A", 20);
+                sectionRows.add(partB[subject][e], bank.blueprints[subject][e], "Part B", 80);
+            }
+        }
+        sectionRows.finish();
+        Rows criteriaRows = new Rows(copy, "blueprint_criteria (id, blueprint_section_id, question_type, "
+                + "number_of_questions, marks_per_question, difficulty_level, bloom_taxonomy_level)");
+        for (int subject = 0; subject < subjectCount; subject++) {
+            for (int e = 0; e < examTypes.size(); e++) {
+                criteriaRows.add(uuid(random), partA[subject][e], "Short Answer", 5, 2, "Easy", "Remember");
+                criteriaRows.add(uuid(random), partA[subject][e], "Short Answer", 5, 2, "Medium", "Understand");
+                criteriaRows.add(uuid(random), partB[subject][e], "Long Answer", 3, 16, "Medium", "Apply");
+                criteriaRows.add(uuid(random), partB[subject][e], "Long Answer", 2, 16, "Hard", "Analyze");
+            }
+        }
+        criteriaRows.finish();
+    }
+
+    /**
+     * Questions carry {@code subject_id} as well as {@code unit_id}, since paper generation
+     * selects candidates by subject.
+     */
+    private long generateQuestions(CopyManager copy, GeneratedBank bank, Random random)
+            throws SQLException {
+        Rows questionRows = new Rows(copy, "questions (question_id, unit_id, subject_id, co_id, question_text, "
+                + "question_type, marks, difficulty_level, bloom_taxonomy_level, keywords, created_by)");
+        long count = 0;
+        for (int subject = 0; subject < bank.subjects.length; subject++) {
+            for (UUID unitId : bank.units[subject]) {
+                for (int q = 0; q < questionsPerUnit; q++) {
+                    questionRows.add(uuid(random), unitId, bank.subjects[subject],
+                            bank.outcomes[subject][random.nextInt(OUTCOMES_PER_SUBJECT)],
+                            SyntheticQuestions.text(random, questionLength),
+                            SyntheticQuestions.QUESTION_TYPES[random.nextInt(SyntheticQuestions.QUESTION_TYPES.length)],
+                            MARKS[random.nextInt(MARKS.length)],
+                            SyntheticQuestions.DIFFICULTY_LEVELS[random.nextInt(SyntheticQuestions.DIFFICULTY_LEVELS.length)],
+                            SyntheticQuestions.BLOOM_LEVELS[random.nextInt(SyntheticQuestions.BLOOM_LEVELS.length)],
+                            "generated", bank.userId);
+                    count++;
+                }
+            }
+            if ((subject + 1) % 100 == 0) {
+                LOGGER.info(String.format("Generated questions for %,d of %,d subjects", subject + 1, bank.subjects.length));
+            }
+        }
+        questionRows.finish();
+        return count;
+    }
+
+    private static UUID createUser(Connection conn) throws SQLException {
+        String sql = "INSERT INTO users (username, password_hash, role) VALUES ('loadtest', 'not-a-hash', 'coe') "
+                + "ON CONFLICT (username) DO UPDATE SET role = EXCLUDED.role RETURNING id";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            rs.next();
+            return rs.getObject(1, UUID.class);
+        }
+    }
+
+    private static List<UUID> examTypes(Connection conn) throws SQLException {
+        List<UUID> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM exam_types ORDER BY type_name");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getObject(1, UUID.class));
+            }
+        }
+        return ids;
+    }
+
+    private static UUID uuid(Random random) {
+        return new UUID(random.nextLong(), random.nextLong());
+    }
+
+    private static UUID[] uuids(Random random, int count) {
+        UUID[] ids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = uuid(random);
+        }
+        return ids;
+    }
+
+    /**
+     * One COPY into a table in CSV format, flushed to the server in large chunks
+     */
+    private static class Rows {
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 4096);
+
+        Rows(CopyManager copy, String tableAndColumns) throws SQLException {
+            copyIn = copy.copyIn("COPY " + tableAndColumns + " FROM STDIN WITH (FORMAT csv)");
+        }
+
+        void add(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append(',');
+                }
+                if (values[i] instanceof String) {
+                    buffer.append('"').append(((String) values[i]).replace("\"", "\"\"")).append('"');
+                } else if (values[i] != null) {
+                    buffer.append(values[i]);
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= COPY_BUFFER_CHARS) {
+                flush();
+            }
+        }
+
+        void finish() throws SQLException {
+            flush();
+            copyIn.endCopy();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Ids of the generated rows, indexed by subject, for the load test to pick from
+     */
+    public static class GeneratedBank {
+        final UUID userId;
+        final UUID[] subjects;
+        final UUID[][] units;
+        final UUID[][] outcomes;
+        final UUID[][] blueprints;
+
+        GeneratedBank(UUID userId, int subjectCount) {
+            this.userId = userId;
+            this.subjects = new UUID[subjectCount];
+            this.units = new UUID[subjectCount][];
+            this.outcomes = new UUID[subjectCount][];
+            this.blueprints = new UUID[subjectCount][];
+        }
+
+        public int getSubjectCount() {
+            return subjects.length;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.qngenius.loadtest;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+import com.qngenius.model.BlueprintCriteria;
+import com.qngenius.service.QuestionService;
+import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.EnhancedDatabaseUtil;
+import com.qngenius.util.QuestionPartitioner;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per-subject latency on a consortium-sized bank, before and after {@code questions} is
+ * partitioned by subject. Generates 10,000,000 questions in 5,000 subjects by default, measures
+ * candidate selection (one blueprint criterion, as paper generation runs it) and subject
+ * statistics, partitions the table in place and measures again. Takes the {@link LoadTest}
+ * options, with {@code --mix select=1,statistics=1} and 8 threads, plus:
+ * <pre>
+ *   --partitions N          hash partitions on subject_id (default 32)
+ * </pre>
+ * Expect the generation and the conversion to take several minutes each at the default size.
+ */
+public class QuestionPartitionBenchmark extends LoadTest {
+
+    QuestionPartitionBenchmark(Map<String, String> options) {
+        super(options, "select=1,statistics=1", 8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        options.putIfAbsent("courses", "100");
+        options.putIfAbsent("subjects-per-course", "50");
+        options.putIfAbsent("units-per-subject", "5");
+        options.putIfAbsent("questions-per-unit", "400");
+        new QuestionPartitionBenchmark(options).run();
+        System.exit(0);
+    }
+
+    @Override
+    void started() throws Exception {
+        analyze();
+    }
+
+    @Override
+    void measure() throws Exception {
+        System.out.println("Unpartitioned:");
+        super.measure();
+
+        int partitions = intOption("partitions", 32);
+        new QuestionPartitioner(EnhancedDatabaseUtil::getConnection).partitionBySubject(partitions);
+        resetResults();
+        System.out.println("Partitioned by subject into " + partitions + " partitions:");
+        super.measure();
+    }
+
+    @Override
+    void execute(String operation) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int subject = random.nextInt(bank.subjects.length);
+        switch (operation) {
+            case "select":
+                BlueprintCriteria criteria = new BlueprintCriteria(null, null, null, 5,
+                        QuestionBankGenerator.MARKS[random.nextInt(QuestionBankGenerator.MARKS.length)],
+                        SyntheticQuestions.DIFFICULTY_LEVELS[random.nextInt(SyntheticQuestions.DIFFICULTY_LEVELS.length)],
+                        SyntheticQuestions.BLOOM_LEVELS[random.nextInt(SyntheticQuestions.BLOOM_LEVELS.length)]);
+                DatabaseUtil.getQuestionsByCriteria(bank.subjects[subject], criteria);
+                break;
+            case "statistics":
+                QuestionService.getInstance().getQuestionStatistics(bank.subjects[subject]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown operation " + operation);
+        }
+    }
+
+    // So the first run does not plan against a freshly loaded table with no statistics
+    private static void analyze() throws Exception {
+        try (Connection conn = EnhancedDatabaseUtil.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("ANALYZE questions");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.qngenius.service;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+import com.qngenius.model.Question;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Paper generation after the candidates have been fetched: laying the selected questions
+ * out per criteria and rendering the result to PDF. The random choice per criteria is made
+ * by the database query, so it is not part of this benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaperGenerationBenchmark {
+
+    private static final int QUESTIONS_PER_CRITERIA = 5;
+
+    // Questions on the paper; a paper is drawn from the bank, not the whole of it
+    @Param({ "20", "100", "500" })
+    public int paperSize;
+
+    @Param({ "60", "240" })
+    public int questionLength;
+
+    private List<List<Question>> selected;
+    private String paperContent;
+    private File pdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Question> questions = SyntheticQuestions.bank(paperSize, questionLength, 42);
+        selected = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i += QUESTIONS_PER_CRITERIA) {
+            selected.add(questions.subList(i, Math.min(i + QUESTIONS_PER_CRITERIA, questions.size())));
+        }
+        paperContent = PaperGenerationService.assemblePaper(selected);
+        pdf = File.createTempFile("paper-benchmark", ".pdf");
+    }
+
+    @TearDown
+    public void tearDown() {
+        pdf.delete();
+    }
+
+    @Benchmark
+    public String assemble() {
+        return PaperGenerationService.assemblePaper(selected);
+    }
+
+    @Benchmark
+    public long renderPdf() throws IOException {
+        PaperGenerationService.getInstance().exportToPdf(paperContent, pdf);
+        return pdf.length();
+    }
+}
@@ -0,0 +1,101 @@
+package com.qngenius.service;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+import com.qngenius.model.Question;
+
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The in-memory work behind {@link QuestionService}: duplicate detection, search filtering
+ * and subject statistics, on a bank that has already been loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuestionServiceBenchmark {
+
+    @Param({ "1000", "10000", "50000" })
+    public int bankSize;
+
+    @Param({ "60", "240" })
+    public int questionLength;
+
+    private List<Question> bank;
+    private QuestionSimilarityIndex<UUID> index;
+    private String duplicateText;
+    private String newText;
+    private QuestionService.QuestionSearchCriteria typeAndMarks;
+    private QuestionService.QuestionSearchCriteria keywords;
+
+    @Setup
+    public void setUp() {
+        bank = SyntheticQuestions.bank(bankSize, questionLength, 42);
+        index = new QuestionSimilarityIndex<>();
+        for (Question question : bank) {
+            index.add(question.getQuestionId(), question.getQuestionText());
+        }
+        Random random = new Random(7);
+        duplicateText = SyntheticQuestions.nearDuplicate(bank.get(bankSize / 2).getQuestionText());
+        newText = SyntheticQuestions.text(random, questionLength);
+
+        typeAndMarks = new QuestionService.QuestionSearchCriteria();
+        typeAndMarks.setQuestionType("Long Answer");
+        typeAndMarks.setMinMarks(5);
+        keywords = new QuestionService.QuestionSearchCriteria();
+        keywords.setKeywords("thermal equilibrium");
+    }
+
+    // What isDuplicateQuestion does: compare against every question of the subject
+    @Benchmark
+    public boolean duplicateScan() {
+        for (Question question : bank) {
+            if (QuestionSimilarityIndex.isSimilar(question.getQuestionText(), newText)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // What imports do: trigram candidates from the index, then bounded edit distance
+    @Benchmark
+    public UUID duplicateIndexMiss() {
+        return index.findDuplicate(newText);
+    }
+
+    @Benchmark
+    public UUID duplicateIndexHit() {
+        return index.findDuplicate(duplicateText);
+    }
+
+    @Benchmark
+    public List<Question> searchByTypeAndMarks() {
+        return QuestionService.filterQuestions(bank, typeAndMarks);
+    }
+
+    @Benchmark
+    public List<Question> searchByKeywords() {
+        return QuestionService.filterQuestions(bank, keywords);
+    }
+
+    @Benchmark
+    public QuestionService.QuestionStatistics statistics() {
+        return QuestionService.calculateStatistics(bank);
+    }
+}
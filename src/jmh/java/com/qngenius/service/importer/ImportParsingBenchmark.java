@@ -0,0 +1,113 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.benchmark.SyntheticQuestions;
+import com.qngenius.model.Question;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading and validating an import file of {@code bankSize} rows, as the bulk import does
+ * before duplicate checks and writes. The same rows are written as .xlsx and as .csv, so
+ * the two readers can be compared directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ImportParsingBenchmark {
+
+    @Param({ "1000", "10000", "50000" })
+    public int bankSize;
+
+    @Param({ "60", "240" })
+    public int questionLength;
+
+    private final QuestionImportValidator validator = new QuestionImportValidator();
+    private File xlsx;
+    private File csv;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Question> questions = SyntheticQuestions.bank(bankSize, questionLength, 42);
+        xlsx = File.createTempFile("import-benchmark", ".xlsx");
+        csv = File.createTempFile("import-benchmark", ".csv");
+        writeXlsx(questions, xlsx);
+        SyntheticQuestions.writeCsv(questions, csv);
+    }
+
+    @TearDown
+    public void tearDown() {
+        xlsx.delete();
+        csv.delete();
+    }
+
+    @Benchmark
+    public int readExcel(Blackhole blackhole) throws IOException {
+        return new StreamingExcelReader(Long.MAX_VALUE).read(xlsx, (rowNumber, cells) -> blackhole.consume(cells));
+    }
+
+    @Benchmark
+    public int readAndValidateExcel(Blackhole blackhole) throws IOException {
+        return new StreamingExcelReader(Long.MAX_VALUE).read(xlsx,
+                (rowNumber, cells) -> blackhole.consume(validator.parseRow(rowNumber, cells)));
+    }
+
+    @Benchmark
+    public int readCsv(Blackhole blackhole) throws IOException {
+        return new StreamingCsvReader(Long.MAX_VALUE).read(csv, (rowNumber, cells) -> blackhole.consume(cells));
+    }
+
+    @Benchmark
+    public int readAndValidateCsv(Blackhole blackhole) throws IOException {
+        return new StreamingCsvReader(Long.MAX_VALUE).read(csv,
+                (rowNumber, cells) -> blackhole.consume(validator.parseRow(rowNumber, cells)));
+    }
+
+    private static void writeXlsx(List<Question> questions, File file) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try (OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Questions");
+            Row header = sheet.createRow(0);
+            for (int i = 0; i < SyntheticQuestions.IMPORT_HEADER.length; i++) {
+                header.createCell(i).setCellValue(SyntheticQuestions.IMPORT_HEADER[i]);
+            }
+            int rowNumber = 1;
+            for (Question question : questions) {
+                Row row = sheet.createRow(rowNumber++);
+                row.createCell(0).setCellValue(question.getQuestionText());
+                row.createCell(1).setCellValue(question.getQuestionType());
+                row.createCell(2).setCellValue(question.getMarks());
+                row.createCell(3).setCellValue(question.getDifficultyLevel());
+                row.createCell(4).setCellValue(question.getBloomTaxonomyLevel());
+                row.createCell(5).setCellValue("benchmark");
+            }
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+}
@@ -1,7 +1,28 @@
 package com.qngenius;
 
+import com.qngenius.cli.PaperCli;
+import com.qngenius.cli.PartitionCli;
+import com.qngenius.server.ApiServer;
+
+import java.util.Arrays;
+
 public class Launcher {
     public static void main(String[] args) {
+        // "generate ...", "partition-questions ..." and "serve ..." run headless;
+        // MainApp (and with it the JavaFX toolkit) is never loaded
+        if (args.length > 0 && PaperCli.COMMAND.equals(args[0])) {
+            System.exit(PaperCli.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && PartitionCli.COMMAND.equals(args[0])) {
+            System.exit(PartitionCli.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args.length > 0 && ApiServer.COMMAND.equals(args[0])) {
+            int status = ApiServer.run(Arrays.copyOfRange(args, 1, args.length));
+            if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
         MainApp.main(args);
     }
-}
\ No newline at end of file
+}
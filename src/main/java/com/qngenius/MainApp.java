@@ -1,10 +1,16 @@
 package com.qngenius;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.qngenius.service.AuthenticationService;
+import com.qngenius.util.ConfigManager;
+import com.qngenius.util.EnhancedDatabaseUtil;
+import com.qngenius.util.StartupTimer;
+import com.qngenius.util.jfr.JfrRecording;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -12,25 +18,30 @@ import javafx.stage.Stage;
 
 public class MainApp extends Application {
 
+    private static final Logger LOGGER = Logger.getLogger(MainApp.class.getName());
+
     @Override
     public void start(Stage primaryStage) throws Exception {
-        Properties properties = new Properties();
-        try (InputStream inputStream = getClass().getResourceAsStream("/config/app.properties")) {
-            if (inputStream != null) {
-                properties.load(inputStream);
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        StartupTimer.mark("toolkit");
+        // Only with -Dqngenius.jfr.file=...
+        JfrRecording.startIfRequested();
 
-        String appName = properties.getProperty("app.name", "QnGenius - Question Bank generator"); // Default value if
-                                                                                                   // not found
-        primaryStage.setTitle(appName);
+        primaryStage.setTitle(ConfigManager.getInstance().getAppName());
 
         // Load the login page FXML from resources
         Parent root = FXMLLoader.load(getClass().getResource("/com/qngenius/view/login.fxml")); // Path is correct here
         Scene scene = new Scene(root);
         scene.getStylesheets().add(getClass().getResource("/css/style.css").toExternalForm());
+        StartupTimer.mark("scene");
+
+        // Everything the login screen does not need waits until it has been laid out once
+        scene.addPostLayoutPulseListener(new Runnable() {
+            @Override
+            public void run() {
+                scene.removePostLayoutPulseListener(this);
+                Platform.runLater(MainApp.this::firstFrameShown);
+            }
+        });
 
         // Set the scene
         primaryStage.setScene(scene);
@@ -38,7 +49,42 @@ public class MainApp extends Application {
         primaryStage.show();
     }
 
+    private void firstFrameShown() {
+        long firstFrame = StartupTimer.mark("first frame");
+        LOGGER.info("Startup: " + StartupTimer.summary());
+        if (StartupTimer.isExitAfterFirstFrame()) {
+            System.out.println(StartupTimer.FIRST_FRAME_PREFIX + firstFrame);
+            Platform.exit();
+            return;
+        }
+
+        // Lets pool sizes and other settings change without a restart
+        ConfigManager.getInstance().startWatching();
+        Thread warmUp = new Thread(MainApp::warmUp, "startup-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+    }
+
+    // So the first login neither opens the pool nor loads the BCrypt encoder
+    private static void warmUp() {
+        AuthenticationService.getInstance();
+        try {
+            EnhancedDatabaseUtil.initialize();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Could not open the connection pool yet; the first query will retry", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        ConfigManager.getInstance().stopWatching();
+        // Flushes queued login audit events before the pool goes away
+        EnhancedDatabaseUtil.closePool();
+        JfrRecording.stop();
+    }
+
     public static void main(String[] args) {
+        StartupTimer.mark("main");
         launch(args);
     }
-}
\ No newline at end of file
+}
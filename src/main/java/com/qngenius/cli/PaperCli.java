@@ -0,0 +1,179 @@
+package com.qngenius.cli;
+
+import com.qngenius.model.Blueprint;
+import com.qngenius.model.ExamType;
+import com.qngenius.model.GeneratedPaper;
+import com.qngenius.model.Subject;
+import com.qngenius.service.PaperGenerationService;
+import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.JsonWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Generates question paper sets without the GUI, for schedulers and servers:
+ * <pre>
+ *   qngenius generate --subject CS301 --exam-type "Semester Exam" --blueprint "Model Paper"
+ *                     [--sets 3] [--format pdf|json] [--out papers]
+ * </pre>
+ * Subject, exam type and blueprint are given by code, name and title, or by id. Each set is a
+ * new random selection through {@link PaperGenerationService}, the same as in the CoE screen.
+ * Only the service and database classes are loaded, never the JavaFX toolkit.
+ */
+public final class PaperCli {
+
+    public static final String COMMAND = "generate";
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final String USAGE = "Usage: generate --subject CODE|ID --exam-type NAME|ID --blueprint TITLE|ID"
+            + " [--sets N] [--format pdf|json] [--out DIRECTORY]";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    PaperCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * @param args the arguments after {@link #COMMAND}
+     * @return the process exit code
+     */
+    public static int run(String[] args) {
+        return new PaperCli(System.out, System.err).execute(args);
+    }
+
+    int execute(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                err.println("Unexpected argument: " + args[i]);
+                err.println(USAGE);
+                return EXIT_USAGE;
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+
+        String subjectArg = options.get("subject");
+        String examTypeArg = options.get("exam-type");
+        String blueprintArg = options.get("blueprint");
+        String format = options.getOrDefault("format", "pdf").toLowerCase();
+        int sets;
+        try {
+            sets = Integer.parseInt(options.getOrDefault("sets", "1"));
+        } catch (NumberFormatException e) {
+            sets = 0;
+        }
+        if (subjectArg == null || examTypeArg == null || blueprintArg == null || sets < 1
+                || !(format.equals("pdf") || format.equals("json"))) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        File outputDirectory = new File(options.getOrDefault("out", "."));
+
+        try {
+            Subject subject = findSubject(subjectArg);
+            if (subject == null) {
+                err.println("No subject " + subjectArg);
+                return EXIT_FAILED;
+            }
+            ExamType examType = findExamType(examTypeArg);
+            if (examType == null) {
+                err.println("No exam type " + examTypeArg);
+                return EXIT_FAILED;
+            }
+            Blueprint blueprint = findBlueprint(subject, examType, blueprintArg);
+            if (blueprint == null) {
+                err.println("No blueprint " + blueprintArg + " for " + subject.getSubjectCode()
+                        + " and " + examType.getTypeName());
+                return EXIT_FAILED;
+            }
+
+            Files.createDirectories(outputDirectory.toPath());
+            PaperGenerationService paperService = PaperGenerationService.getInstance();
+            for (int set = 1; set <= sets; set++) {
+                GeneratedPaper paper = paperService.generatePaper(subject.getId(), blueprint.getId());
+                if (paper.getQuestions().isEmpty()) {
+                    err.println("No questions match the criteria of " + blueprint.getTitle());
+                    return EXIT_FAILED;
+                }
+                File file = new File(outputDirectory, fileName(subject, blueprint, set, format));
+                if (format.equals("pdf")) {
+                    paperService.exportToPdf(paper.getContent(), file);
+                } else {
+                    writeJson(paper, subject, examType, blueprint, set, file);
+                }
+                out.println(file.getPath());
+            }
+            return EXIT_OK;
+        } catch (SQLException | IOException e) {
+            err.println("Paper generation failed: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+    }
+
+    private static Subject findSubject(String codeOrId) throws SQLException {
+        UUID id = parseId(codeOrId);
+        return id != null ? DatabaseUtil.getSubjectById(id) : DatabaseUtil.getSubjectByCode(codeOrId);
+    }
+
+    private static ExamType findExamType(String nameOrId) throws SQLException {
+        UUID id = parseId(nameOrId);
+        for (ExamType examType : DatabaseUtil.getExamTypes()) {
+            if (examType.getId().equals(id) || examType.getTypeName().equalsIgnoreCase(nameOrId)) {
+                return examType;
+            }
+        }
+        return null;
+    }
+
+    private static Blueprint findBlueprint(Subject subject, ExamType examType, String titleOrId) throws SQLException {
+        UUID id = parseId(titleOrId);
+        List<Blueprint> blueprints = DatabaseUtil.getBlueprintsBySubjectAndExamType(subject.getId(), examType.getId());
+        for (Blueprint blueprint : blueprints) {
+            if (blueprint.getId().equals(id) || blueprint.getTitle().equalsIgnoreCase(titleOrId)) {
+                return blueprint;
+            }
+        }
+        return null;
+    }
+
+    private static UUID parseId(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    static String fileName(Subject subject, Blueprint blueprint, int set, String extension) {
+        String name = subject.getSubjectCode() + "_" + blueprint.getTitle() + "_set" + set;
+        return name.replaceAll("[^A-Za-z0-9._-]+", "_") + "." + extension;
+    }
+
+    private static void writeJson(GeneratedPaper paper, Subject subject, ExamType examType, Blueprint blueprint,
+                                  int set, File file) throws IOException {
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("subject", subject.getSubjectCode())
+                .field("examType", examType.getTypeName())
+                .field("blueprint", blueprint.getTitle())
+                .field("set", set)
+                .field("generatedAt", Instant.now().toString())
+                .field("durationMinutes", blueprint.getDurationMinutes());
+        PaperGenerationService.getInstance().writeJson(paper, json);
+        Files.writeString(file.toPath(), json.endObject().toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.qngenius.cli;
+
+import com.qngenius.util.EnhancedDatabaseUtil;
+import com.qngenius.util.QuestionPartitioner;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+
+/**
+ * Partitions the question table by subject, for consortium-sized banks:
+ * <pre>
+ *   qngenius partition-questions [--partitions 32]
+ * </pre>
+ * Applies pending schema migrations first. Takes an exclusive lock on {@code questions} for
+ * as long as it takes to copy every row, so run it with the application stopped. Does
+ * nothing if the table is partitioned already. See {@link QuestionPartitioner}.
+ */
+public final class PartitionCli {
+
+    public static final String COMMAND = "partition-questions";
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_FAILED = 1;
+    private static final int EXIT_USAGE = 2;
+    private static final int DEFAULT_PARTITIONS = 32;
+    private static final String USAGE = "Usage: partition-questions [--partitions N]";
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    PartitionCli(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * @param args the arguments after {@link #COMMAND}
+     * @return the process exit code
+     */
+    public static int run(String[] args) {
+        return new PartitionCli(System.out, System.err).execute(args);
+    }
+
+    int execute(String[] args) {
+        int partitions = DEFAULT_PARTITIONS;
+        if (args.length == 2 && "--partitions".equals(args[0])) {
+            try {
+                partitions = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                partitions = 0;
+            }
+        } else if (args.length != 0) {
+            partitions = 0;
+        }
+        if (partitions < 2) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        try {
+            EnhancedDatabaseUtil.initialize();
+            QuestionPartitioner partitioner = new QuestionPartitioner(EnhancedDatabaseUtil::getConnection);
+            if (partitioner.partitionBySubject(partitions)) {
+                out.println("Partitioned questions by subject into " + partitions + " partitions");
+            } else {
+                out.println("Questions are already partitioned, into " + partitioner.getPartitionCount() + " partitions");
+            }
+            return EXIT_OK;
+        } catch (SQLException | RuntimeException e) {
+            err.println("Partitioning failed: " + e.getMessage());
+            return EXIT_FAILED;
+        } finally {
+            EnhancedDatabaseUtil.closePool();
+        }
+    }
+}
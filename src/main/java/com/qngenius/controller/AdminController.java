@@ -5,18 +5,22 @@ import com.qngenius.model.Course;
 import com.qngenius.model.ExamType;
 import com.qngenius.model.Subject;
 import com.qngenius.model.Unit;
+import com.qngenius.service.UserProvisioningService;
 import com.qngenius.util.DatabaseUtil;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.List;
@@ -54,6 +58,11 @@ public class AdminController {
     @FXML private TableColumn<Blueprint, String> blueprintTotalMarksColumn;
     @FXML private TableColumn<Blueprint, String> blueprintDurationColumn;
 
+    // User Management FXML Fields
+    @FXML private Button importUsersButton;
+    @FXML private ProgressBar userImportProgressBar;
+    @FXML private Label userImportStatusLabel;
+
     // Data lists
     private ObservableList<Course> allCourses = FXCollections.observableArrayList();
     private ObservableList<Subject> allSubjects = FXCollections.observableArrayList();
@@ -295,6 +304,64 @@ public class AdminController {
         }
     }
 
+    // --- User Management ---
+    @FXML
+    private void handleImportUsers() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select User CSV File");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = fileChooser.showOpenDialog(importUsersButton.getScene().getWindow());
+        if (file == null) return;
+
+        Task<UserProvisioningService.ProvisioningResult> task = new Task<>() {
+            @Override
+            protected UserProvisioningService.ProvisioningResult call() throws Exception {
+                updateMessage("Hashing passwords and creating users...");
+                return UserProvisioningService.getInstance().provision(file, (done, total) -> {
+                    updateProgress(done, total);
+                    updateMessage(String.format("Created %d of %d users...", done, total));
+                });
+            }
+        };
+
+        userImportProgressBar.progressProperty().bind(task.progressProperty());
+        userImportStatusLabel.textProperty().bind(task.messageProperty());
+        userImportProgressBar.setVisible(true);
+        importUsersButton.setDisable(true);
+
+        task.setOnSucceeded(event -> {
+            finishUserImport();
+            UserProvisioningService.ProvisioningResult result = task.getValue();
+            userImportStatusLabel.setText(result.getSummary());
+
+            StringBuilder details = new StringBuilder(result.getSummary());
+            if (!result.getErrors().isEmpty()) {
+                details.append("\n\nInvalid rows:");
+                result.getErrors().stream().limit(20).forEach(error -> details.append("\n").append(error));
+                if (result.getErrors().size() > 20) {
+                    details.append("\n... and ").append(result.getErrors().size() - 20).append(" more");
+                }
+            }
+            showAlert(Alert.AlertType.INFORMATION, "User Import Complete", details.toString());
+        });
+        task.setOnFailed(event -> {
+            finishUserImport();
+            userImportStatusLabel.setText("User import failed.");
+            task.getException().printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "User Import Failed", task.getException().getMessage());
+        });
+
+        Thread thread = new Thread(task, "user-provisioning");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    private void finishUserImport() {
+        userImportProgressBar.progressProperty().unbind();
+        userImportStatusLabel.textProperty().unbind();
+        userImportProgressBar.setVisible(false);
+        importUsersButton.setDisable(false);
+    }
+
     private void showAlert(Alert.AlertType type, String title, String message) {
         Alert alert = new Alert(type);
         alert.setTitle(title);
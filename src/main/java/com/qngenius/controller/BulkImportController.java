@@ -1,23 +1,32 @@
 package com.qngenius.controller;
 
-import com.qngenius.model.Question;
+import com.qngenius.model.ImportJob;
 import com.qngenius.model.Subject;
 import com.qngenius.model.Unit;
 import com.qngenius.service.QuestionService;
+import com.qngenius.service.importer.ImportDuplicateIndex;
+import com.qngenius.service.importer.ImportFileReader;
+import com.qngenius.service.importer.ImportPipeline;
+import com.qngenius.service.importer.ImportRowStore;
+import com.qngenius.service.importer.QuestionImportRow;
+import com.qngenius.service.importer.QuestionImportValidator;
+import com.qngenius.service.importer.ResumableImport;
 import com.qngenius.util.DatabaseUtil;
-import javafx.application.Platform;
+import com.qngenius.util.FxUpdateCoalescer;
+import com.qngenius.util.jfr.BulkImportEvent;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.ReadOnlyObjectWrapper;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableListBase;
 import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.FileChooser;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import javafx.util.Duration;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -27,21 +36,26 @@ import java.util.logging.Level;
 public class BulkImportController {
     
     private static final Logger LOGGER = Logger.getLogger(BulkImportController.class.getName());
+    private static final int MAX_LOGGED_DUPLICATES = 20;
+    private static final int LOG_CAPACITY = 1000;
+    private static final Duration PREVIEW_REFRESH_INTERVAL = Duration.millis(250);
+    private static final String ALL_ROWS = "All";
     
     @FXML private ComboBox<String> subjectComboBox;
     @FXML private ComboBox<String> unitComboBox;
     @FXML private Button selectFileButton;
     @FXML private Label selectedFileLabel;
-    @FXML private TableView<QuestionImportRow> previewTable;
-    @FXML private TableColumn<QuestionImportRow, String> questionTextColumn;
-    @FXML private TableColumn<QuestionImportRow, String> questionTypeColumn;
-    @FXML private TableColumn<QuestionImportRow, Integer> marksColumn;
-    @FXML private TableColumn<QuestionImportRow, String> difficultyColumn;
-    @FXML private TableColumn<QuestionImportRow, String> statusColumn;
+    @FXML private TableView<Integer> previewTable;
+    @FXML private TableColumn<Integer, String> questionTextColumn;
+    @FXML private TableColumn<Integer, String> questionTypeColumn;
+    @FXML private TableColumn<Integer, Integer> marksColumn;
+    @FXML private TableColumn<Integer, String> difficultyColumn;
+    @FXML private TableColumn<Integer, String> statusColumn;
+    @FXML private ComboBox<String> statusFilterComboBox;
     @FXML private Button importButton;
     @FXML private ProgressBar progressBar;
     @FXML private Label statusLabel;
-    @FXML private TextArea logTextArea;
+    @FXML private ListView<String> logView;
     @FXML private CheckBox validateDuplicatesCheckbox;
     @FXML private CheckBox skipInvalidCheckbox;
     
@@ -49,8 +63,11 @@ public class BulkImportController {
     private UUID currentUserId;
     private UUID selectedSubjectId;
     private UUID selectedUnitId;
-    private List<QuestionImportRow> importRows = new ArrayList<>();
+    private ImportRowStore previewStore = new ImportRowStore();
+    private PreviewItems previewItems;
     private QuestionService questionService = QuestionService.getInstance();
+    private final QuestionImportValidator validator = new QuestionImportValidator();
+    private FxUpdateCoalescer ui;
     
     public void setCurrentUser(UUID userId) {
         this.currentUserId = userId;
@@ -58,7 +75,9 @@ public class BulkImportController {
     
     @FXML
     public void initialize() {
+        ui = new FxUpdateCoalescer(progressBar, statusLabel, logView, LOG_CAPACITY);
         initializeTableColumns();
+        initializeStatusFilter();
         loadSubjects();
         setupEventHandlers();
         
@@ -73,14 +92,15 @@ public class BulkImportController {
     }
     
     private void initializeTableColumns() {
-        questionTextColumn.setCellValueFactory(data -> data.getValue().questionTextProperty());
-        questionTypeColumn.setCellValueFactory(data -> data.getValue().questionTypeProperty());
-        marksColumn.setCellValueFactory(data -> data.getValue().marksProperty().asObject());
-        difficultyColumn.setCellValueFactory(data -> data.getValue().difficultyProperty());
-        statusColumn.setCellValueFactory(data -> data.getValue().statusProperty());
+        // Table items are row indexes into the preview store; cells read only the rows on screen
+        questionTextColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(previewStore.getQuestionText(data.getValue())));
+        questionTypeColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(previewStore.getQuestionType(data.getValue())));
+        marksColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(previewStore.getMarks(data.getValue())));
+        difficultyColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(previewStore.getDifficulty(data.getValue())));
+        statusColumn.setCellValueFactory(data -> new ReadOnlyObjectWrapper<>(previewStore.getStatus(data.getValue())));
         
         // Add custom cell factory for status column to show colors
-        statusColumn.setCellFactory(column -> new TableCell<QuestionImportRow, String>() {
+        statusColumn.setCellFactory(column -> new TableCell<Integer, String>() {
             @Override
             protected void updateItem(String item, boolean empty) {
                 super.updateItem(item, empty);
@@ -89,7 +109,7 @@ public class BulkImportController {
                     setStyle("");
                 } else {
                     setText(item);
-                    switch (item.toLowerCase()) {
+                    switch (item.split(":", 2)[0].toLowerCase()) {
                         case "valid":
                             setStyle("-fx-background-color: lightgreen;");
                             break;
@@ -108,6 +128,23 @@ public class BulkImportController {
         });
     }
     
+    private void initializeStatusFilter() {
+        statusFilterComboBox.setItems(FXCollections.observableArrayList(ALL_ROWS, "Valid", "Invalid", "Duplicate"));
+        statusFilterComboBox.setValue(ALL_ROWS);
+        statusFilterComboBox.setOnAction(e -> showPreview(previewStore));
+    }
+    
+    private ImportRowStore.Category selectedStatusFilter() {
+        String value = statusFilterComboBox.getValue();
+        return value == null || ALL_ROWS.equals(value) ? null : ImportRowStore.Category.valueOf(value.toUpperCase());
+    }
+    
+    private void showPreview(ImportRowStore store) {
+        previewStore = store;
+        previewItems = new PreviewItems(store, selectedStatusFilter());
+        previewTable.setItems(previewItems);
+    }
+    
     private void setupEventHandlers() {
         subjectComboBox.setOnAction(e -> {
             String selectedSubjectCode = subjectComboBox.getValue();
@@ -180,9 +217,11 @@ public class BulkImportController {
     @FXML
     private void selectFile() {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Select Excel File with Questions");
+        fileChooser.setTitle("Select Excel or CSV File with Questions");
         fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Question Files", "*.xlsx", "*.xls", "*.csv", "*.tsv"),
             new FileChooser.ExtensionFilter("Excel Files", "*.xlsx", "*.xls"),
+            new FileChooser.ExtensionFilter("CSV/TSV Files", "*.csv", "*.tsv"),
             new FileChooser.ExtensionFilter("All Files", "*.*")
         );
         
@@ -197,256 +236,122 @@ public class BulkImportController {
     }
     
     private void loadFilePreview() {
-        Task<List<QuestionImportRow>> loadTask = new Task<List<QuestionImportRow>>() {
+        // Controls and selections are read here, on the FX thread, not by the loader
+        File file = selectedFile;
+        UUID subjectId = selectedSubjectId;
+        boolean checkDuplicates = validateDuplicatesCheckbox.isSelected();
+        ImportRowStore store = new ImportRowStore();
+        showPreview(store);
+        validateImportReadiness();
+        
+        // Show the first rows while the rest of the file is still being parsed
+        Timeline refresh = new Timeline(new KeyFrame(PREVIEW_REFRESH_INTERVAL, e -> previewItems.refresh()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        
+        BulkImportEvent event = new BulkImportEvent();
+        Task<Void> loadTask = new Task<Void>() {
             @Override
-            protected List<QuestionImportRow> call() throws Exception {
-                updateMessage("Loading file preview...");
-                return parseExcelFile(selectedFile);
+            protected Void call() throws Exception {
+                ui.updateStatus("Loading file preview...");
+                event.begin();
+                boolean succeeded = false;
+                try {
+                    parseImportFile(file, subjectId, checkDuplicates, store);
+                    succeeded = true;
+                } finally {
+                    commitEvent(event, BulkImportEvent.PREVIEW, file, store.size(null), succeeded);
+                }
+                return null;
             }
             
             @Override
             protected void succeeded() {
-                importRows = getValue();
-                previewTable.setItems(FXCollections.observableArrayList(importRows));
-                statusLabel.setText("Loaded " + importRows.size() + " questions from file");
+                refresh.stop();
+                // The store is now in file order
+                showPreview(store);
+                int total = store.size(null);
+                ui.updateStatus("Loaded " + total + " questions from file");
                 validateImportReadiness();
                 
                 // Show validation summary
-                long validCount = importRows.stream().mapToLong(row -> "valid".equals(row.getStatus()) ? 1 : 0).sum();
-                long invalidCount = importRows.size() - validCount;
-                
-                appendLog(String.format("File loaded: %d total questions, %d valid, %d invalid/warnings", 
-                         importRows.size(), validCount, invalidCount));
+                appendLog(String.format("File loaded: %d total questions, %d valid, %d invalid/warnings, %d duplicates",
+                         total, store.size(ImportRowStore.Category.VALID), store.size(ImportRowStore.Category.INVALID),
+                         store.size(ImportRowStore.Category.DUPLICATE)));
             }
             
             @Override
             protected void failed() {
+                refresh.stop();
+                previewItems.refresh();
                 Throwable exception = getException();
                 LOGGER.log(Level.SEVERE, "Failed to load file preview", exception);
                 showError("Failed to load file: " + exception.getMessage());
-                statusLabel.setText("Failed to load file");
+                ui.updateStatus("Failed to load file");
             }
         };
         
-        statusLabel.textProperty().bind(loadTask.messageProperty());
+        refresh.play();
         new Thread(loadTask).start();
     }
     
-    private List<QuestionImportRow> parseExcelFile(File file) throws IOException {
-        List<QuestionImportRow> rows = new ArrayList<>();
-        
-        try (FileInputStream fis = new FileInputStream(file)) {
-            Workbook workbook;
-            
-            if (file.getName().toLowerCase().endsWith(".xlsx")) {
-                workbook = new XSSFWorkbook(fis);
-            } else {
-                workbook = new HSSFWorkbook(fis);
-            }
-            
-            Sheet sheet = workbook.getSheetAt(0);
-            boolean isFirstRow = true;
-            
-            for (Row row : sheet) {
-                if (isFirstRow) {
-                    isFirstRow = false;
-                    continue; // Skip header row
-                }
-                
-                if (isEmptyRow(row)) {
-                    continue;
-                }
-                
-                try {
-                    QuestionImportRow importRow = parseRowToQuestion(row);
-                    if (validateDuplicatesCheckbox.isSelected()) {
-                        checkForDuplicate(importRow);
-                    }
-                    rows.add(importRow);
-                } catch (Exception e) {
-                    // Create an invalid row to show the error
-                    QuestionImportRow errorRow = new QuestionImportRow();
-                    errorRow.setQuestionText("Error parsing row " + (row.getRowNum() + 1));
-                    errorRow.setStatus("Invalid: " + e.getMessage());
-                    rows.add(errorRow);
-                }
-            }
-            
-            workbook.close();
-        }
-        
-        return rows;
-    }
-    
-    private boolean isEmptyRow(Row row) {
-        for (Cell cell : row) {
-            if (cell != null && cell.getCellType() != CellType.BLANK) {
-                String value = getCellValueAsString(cell);
-                if (value != null && !value.trim().isEmpty()) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-    
-    private QuestionImportRow parseRowToQuestion(Row row) {
-        QuestionImportRow importRow = new QuestionImportRow();
-        
-        // Expected columns: Question Text, Type, Marks, Difficulty, Bloom Level, Keywords
-        String questionText = getCellValueAsString(row.getCell(0));
-        String questionType = getCellValueAsString(row.getCell(1));
-        String marksStr = getCellValueAsString(row.getCell(2));
-        String difficulty = getCellValueAsString(row.getCell(3));
-        String bloomLevel = getCellValueAsString(row.getCell(4));
-        String keywords = getCellValueAsString(row.getCell(5));
-        
-        importRow.setQuestionText(questionText);
-        importRow.setQuestionType(questionType);
-        importRow.setDifficulty(difficulty);
-        importRow.setBloomLevel(bloomLevel);
-        importRow.setKeywords(keywords);
-        
-        // Parse marks
-        try {
-            if (marksStr != null && !marksStr.trim().isEmpty()) {
-                importRow.setMarks(Integer.parseInt(marksStr.trim()));
-            } else {
-                importRow.setMarks(0);
-            }
-        } catch (NumberFormatException e) {
-            importRow.setMarks(0);
-            importRow.setStatus("Warning: Invalid marks value");
-        }
-        
-        // Validate the row
-        validateImportRow(importRow);
-        
-        return importRow;
-    }
-    
-    private String getCellValueAsString(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-        
-        switch (cell.getCellType()) {
-            case STRING:
-                return cell.getStringCellValue().trim();
-            case NUMERIC:
-                if (DateUtil.isCellDateFormatted(cell)) {
-                    return cell.getDateCellValue().toString();
-                } else {
-                    double numericValue = cell.getNumericCellValue();
-                    if (numericValue == (long) numericValue) {
-                        return String.valueOf((long) numericValue);
-                    } else {
-                        return String.valueOf(numericValue);
-                    }
-                }
-            case BOOLEAN:
-                return String.valueOf(cell.getBooleanCellValue());
-            case FORMULA:
-                return cell.getCellFormula();
-            default:
-                return null;
-        }
-    }
-    
-    private void validateImportRow(QuestionImportRow row) {
-        List<String> errors = new ArrayList<>();
-        
-        // Required field validation
-        if (row.getQuestionText() == null || row.getQuestionText().trim().isEmpty()) {
-            errors.add("Question text is required");
-        } else if (row.getQuestionText().length() < 10) {
-            errors.add("Question text too short");
-        }
-        
-        if (row.getQuestionType() == null || row.getQuestionType().trim().isEmpty()) {
-            errors.add("Question type is required");
-        } else if (!isValidQuestionType(row.getQuestionType())) {
-            errors.add("Invalid question type");
+    private void parseImportFile(File file, UUID subjectId, boolean checkDuplicates, ImportRowStore store)
+            throws Exception {
+        // Load the subject's bank once for the whole file instead of once per row
+        ImportDuplicateIndex duplicateIndex = null;
+        if (checkDuplicates) {
+            duplicateIndex = ImportDuplicateIndex.load(subjectId);
+            appendLog("Checking duplicates against " + duplicateIndex.getBankSize() + " existing questions");
         }
         
-        if (row.getMarks() <= 0) {
-            errors.add("Marks must be greater than 0");
-        } else if (row.getMarks() > 100) {
-            errors.add("Marks seem too high (>100)");
-        }
+        // Parse, validate and dedupe overlap on separate threads; the final stage collects the preview
+        ImportPipeline pipeline = new ImportPipeline(
+            handler -> ImportFileReader.forFile(file).read(file, handler),
+            validator,
+            duplicateIndex,
+            store
+        );
+        pipeline.setProgressLog(this::appendLog);
+        pipeline.run();
         
-        if (row.getDifficulty() == null || row.getDifficulty().trim().isEmpty()) {
-            errors.add("Difficulty level is required");
-        } else if (!isValidDifficultyLevel(row.getDifficulty())) {
-            errors.add("Invalid difficulty level");
-        }
+        appendLog("Import pipeline stages:\n" + pipeline.formatMetrics());
         
-        if (row.getBloomLevel() != null && !row.getBloomLevel().trim().isEmpty() 
-            && !isValidBloomLevel(row.getBloomLevel())) {
-            errors.add("Invalid Bloom taxonomy level");
-        }
+        // Parallel stages may reorder rows; show them in file order
+        store.sortByRowNumber();
         
-        // Set status based on validation
-        if (errors.isEmpty()) {
-            row.setStatus("Valid");
-        } else {
-            row.setStatus("Invalid: " + String.join(", ", errors));
-        }
-    }
-    
-    private void checkForDuplicate(QuestionImportRow row) {
-        try {
-            if (questionService.isDuplicateQuestion(row.toQuestion(selectedUnitId, currentUserId), selectedSubjectId)) {
-                row.setStatus("Duplicate");
+        if (duplicateIndex != null) {
+            appendLog(String.format("Duplicates: %d already in the bank, %d repeated within the file",
+                     duplicateIndex.getBankDuplicates(), duplicateIndex.getFileDuplicates()));
+            int logged = Math.min(MAX_LOGGED_DUPLICATES, store.size(ImportRowStore.Category.DUPLICATE));
+            for (int i = 0; i < logged; i++) {
+                int index = store.indexAt(ImportRowStore.Category.DUPLICATE, i);
+                appendLog("Row " + store.getRowNumber(index) + " duplicates " + store.getDuplicateOf(index));
             }
-        } catch (Exception e) {
-            LOGGER.log(Level.WARNING, "Failed to check for duplicate question", e);
-            // Don't fail the import for this
         }
     }
     
-    private boolean isValidQuestionType(String type) {
-        return Arrays.asList("Short Answer", "Long Answer", "Multiple Choice", "Case Study", "Essay", "Numerical").contains(type);
-    }
-    
-    private boolean isValidDifficultyLevel(String level) {
-        return Arrays.asList("Easy", "Medium", "Hard").contains(level);
-    }
-    
-    private boolean isValidBloomLevel(String level) {
-        return Arrays.asList("Remember", "Understand", "Apply", "Analyze", "Evaluate", "Create").contains(level);
-    }
-    
     private void validateImportReadiness() {
         boolean canImport = selectedFile != null 
                          && selectedSubjectId != null 
                          && selectedUnitId != null 
-                         && !importRows.isEmpty();
+                         && previewStore.size(null) > 0;
         
         importButton.setDisable(!canImport);
     }
     
     @FXML
     private void startImport() {
-        if (importRows.isEmpty()) {
+        if (previewStore.size(null) == 0) {
             showWarning("No questions to import");
             return;
         }
         
-        // Filter questions based on settings
-        List<QuestionImportRow> questionsToImport = importRows.stream()
-            .filter(row -> {
-                if ("valid".equalsIgnoreCase(row.getStatus())) {
-                    return true;
-                }
-                if (skipInvalidCheckbox.isSelected()) {
-                    return false;
-                }
-                return !"duplicate".equalsIgnoreCase(row.getStatus());
-            })
-            .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        // Count the questions selected by the current settings
+        int questionsToImport = previewStore.size(ImportRowStore.Category.VALID);
+        if (!skipInvalidCheckbox.isSelected()) {
+            questionsToImport += previewStore.size(ImportRowStore.Category.INVALID);
+        }
         
-        if (questionsToImport.isEmpty()) {
+        if (questionsToImport == 0) {
             showWarning("No valid questions to import after filtering");
             return;
         }
@@ -456,7 +361,7 @@ public class BulkImportController {
         confirmation.setTitle("Confirm Import");
         confirmation.setHeaderText("Ready to import questions");
         confirmation.setContentText(String.format("Import %d questions into %s?", 
-                                   questionsToImport.size(), subjectComboBox.getValue()));
+                                   questionsToImport, subjectComboBox.getValue()));
         
         Optional<ButtonType> result = confirmation.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
@@ -464,76 +369,116 @@ public class BulkImportController {
         }
     }
     
-    private void performImport(List<QuestionImportRow> questionsToImport) {
-        Task<Void> importTask = new Task<Void>() {
+    private static boolean isSelectedForImport(QuestionImportRow row, boolean skipInvalid) {
+        if ("valid".equalsIgnoreCase(row.getStatus())) {
+            return true;
+        }
+        if (skipInvalid) {
+            return false;
+        }
+        return !"duplicate".equalsIgnoreCase(row.getStatus());
+    }
+    
+    private void performImport(int questionsToImport) {
+        boolean skipInvalid = skipInvalidCheckbox.isSelected();
+        boolean checkDuplicates = validateDuplicatesCheckbox.isSelected();
+        
+        Task<Integer> importTask = new Task<Integer>() {
+            // Questions an earlier, interrupted run of the same import job already committed
+            private int resumedRows;
+            
             @Override
-            protected Void call() throws Exception {
-                updateMessage("Importing questions...");
-                updateProgress(0, questionsToImport.size());
+            protected Integer call() throws Exception {
+                ui.updateStatus("Importing questions...");
+                ui.updateProgress(0, questionsToImport);
                 
-                List<Question> questions = new ArrayList<>();
-                int processed = 0;
-                
-                for (QuestionImportRow row : questionsToImport) {
-                    questions.add(row.toQuestion(selectedUnitId, currentUserId));
-                    processed++;
-                    updateProgress(processed, questionsToImport.size());
-                    
-                    // Batch insert every 50 questions
-                    if (questions.size() >= 50) {
-                        questionService.saveQuestions(questions, currentUserId);
-                        questions.clear();
-                        
-                        Platform.runLater(() -> appendLog("Imported batch of 50 questions..."));
-                    }
+                BulkImportEvent event = new BulkImportEvent();
+                event.begin();
+                int inserted = 0;
+                boolean succeeded = false;
+                try {
+                    inserted = runImport(questionsToImport, skipInvalid, checkDuplicates);
+                    succeeded = true;
+                } finally {
+                    commitEvent(event, BulkImportEvent.IMPORT, selectedFile, inserted, succeeded);
                 }
-                
-                // Import remaining questions
-                if (!questions.isEmpty()) {
-                    questionService.saveQuestions(questions, currentUserId);
+                return inserted;
+            }
+            
+            private int runImport(int questionsToImport, boolean skipInvalid, boolean checkDuplicates) throws Exception {
+                ResumableImport importer = new ResumableImport(selectedFile, selectedSubjectId, selectedUnitId, currentUserId);
+                importer.setProgressLog(BulkImportController.this::appendLog);
+                ImportJob job = importer.prepare(questionsToImport);
+                resumedRows = job.getCommittedRows();
+                if (resumedRows > 0) {
+                    appendLog("Resuming import job " + job.getId() + " (" + job.getCommittedRows()
+                            + " questions already imported)");
                 }
                 
-                return null;
+                ImportDuplicateIndex duplicateIndex = checkDuplicates
+                        ? ImportDuplicateIndex.load(selectedSubjectId) : null;
+                
+                // Re-read the file so that parsing and validation overlap with the database writes
+                int inserted = importer.run(
+                    handler -> ImportFileReader.forFile(selectedFile).read(selectedFile, handler),
+                    validator,
+                    duplicateIndex,
+                    row -> isSelectedForImport(row, skipInvalid),
+                    (done, total, lastRow) -> ui.updateProgress(done, total)
+                );
+                appendLog("Import job " + job.getId() + " finished, " + inserted + " questions inserted in this run");
+                appendLog("Import stages:\n" + importer.formatMetrics());
+                
+                return inserted;
             }
             
             @Override
             protected void succeeded() {
-                statusLabel.setText("Import completed successfully!");
+                ui.updateStatus("Import completed successfully!");
                 progressBar.setVisible(false);
-                appendLog("Import completed: " + questionsToImport.size() + " questions imported");
+                int inserted = getValue();
+                String resumed = resumedRows > 0
+                        ? " (plus " + resumedRows + " imported before the import was resumed)" : "";
+                appendLog("Import completed: " + inserted + " questions imported" + resumed);
                 
                 // Reset UI
                 importButton.setDisable(true);
-                previewTable.getItems().clear();
+                showPreview(new ImportRowStore());
                 selectedFileLabel.setText("No file selected");
                 selectedFile = null;
                 
-                showInfo("Successfully imported " + questionsToImport.size() + " questions!");
+                showInfo("Successfully imported " + inserted + " questions" + resumed + "!");
             }
             
             @Override
             protected void failed() {
                 Throwable exception = getException();
                 LOGGER.log(Level.SEVERE, "Import failed", exception);
-                statusLabel.setText("Import failed");
+                ui.updateStatus("Import failed");
                 progressBar.setVisible(false);
                 showError("Import failed: " + exception.getMessage());
             }
         };
         
-        statusLabel.textProperty().bind(importTask.messageProperty());
-        progressBar.progressProperty().bind(importTask.progressProperty());
         progressBar.setVisible(true);
         importButton.setDisable(true);
         
         new Thread(importTask).start();
     }
     
+    private static void commitEvent(BulkImportEvent event, String action, File file, long rows, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.action = action;
+            event.file = file.getName();
+            event.rows = rows;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+    
     private void appendLog(String message) {
-        Platform.runLater(() -> {
-            logTextArea.appendText(new Date() + ": " + message + "\n");
-            logTextArea.setScrollTop(Double.MAX_VALUE);
-        });
+        ui.appendLog(message);
     }
     
     private void showError(String message) {
@@ -560,76 +505,41 @@ public class BulkImportController {
         alert.showAndWait();
     }
     
-    // Inner class for table row representation
-    public static class QuestionImportRow {
-        private String questionText = "";
-        private String questionType = "";
-        private int marks = 0;
-        private String difficulty = "";
-        private String bloomLevel = "";
-        private String keywords = "";
-        private String status = "Valid";
-        
-        public Question toQuestion(UUID unitId, UUID createdBy) {
-            return new Question(
-                null, // ID will be generated
-                unitId,
-                null, // coId
-                questionText,
-                questionType,
-                marks,
-                difficulty,
-                null, // importance level
-                null, // application level
-                bloomLevel,
-                null, // course outcome
-                keywords,
-                createdBy,
-                null // raw content
-            );
-        }
-        
-        // JavaFX Property methods
-        public javafx.beans.property.StringProperty questionTextProperty() {
-            return new javafx.beans.property.SimpleStringProperty(questionText);
+    /**
+     * Live view of one status filter of the preview store. It holds no rows of its own: the
+     * table asks only for the positions it displays, and refresh() announces rows appended
+     * since the last call. A store that has been re-sorted needs a new view.
+     */
+    private static class PreviewItems extends ObservableListBase<Integer> {
+        private final ImportRowStore store;
+        private final ImportRowStore.Category category;
+        private int size;
+        
+        PreviewItems(ImportRowStore store, ImportRowStore.Category category) {
+            this.store = store;
+            this.category = category;
+            this.size = store.size(category);
         }
         
-        public javafx.beans.property.StringProperty questionTypeProperty() {
-            return new javafx.beans.property.SimpleStringProperty(questionType);
+        @Override
+        public Integer get(int position) {
+            return store.indexAt(category, position);
         }
         
-        public javafx.beans.property.IntegerProperty marksProperty() {
-            return new javafx.beans.property.SimpleIntegerProperty(marks);
+        @Override
+        public int size() {
+            return size;
         }
         
-        public javafx.beans.property.StringProperty difficultyProperty() {
-            return new javafx.beans.property.SimpleStringProperty(difficulty);
-        }
-        
-        public javafx.beans.property.StringProperty statusProperty() {
-            return new javafx.beans.property.SimpleStringProperty(status);
+        void refresh() {
+            int newSize = store.size(category);
+            if (newSize == size) {
+                return;
+            }
+            beginChange();
+            nextAdd(size, newSize);
+            size = newSize;
+            endChange();
         }
-        
-        // Getters and setters
-        public String getQuestionText() { return questionText; }
-        public void setQuestionText(String questionText) { this.questionText = questionText != null ? questionText : ""; }
-        
-        public String getQuestionType() { return questionType; }
-        public void setQuestionType(String questionType) { this.questionType = questionType != null ? questionType : ""; }
-        
-        public int getMarks() { return marks; }
-        public void setMarks(int marks) { this.marks = marks; }
-        
-        public String getDifficulty() { return difficulty; }
-        public void setDifficulty(String difficulty) { this.difficulty = difficulty != null ? difficulty : ""; }
-        
-        public String getBloomLevel() { return bloomLevel; }
-        public void setBloomLevel(String bloomLevel) { this.bloomLevel = bloomLevel != null ? bloomLevel : ""; }
-        
-        public String getKeywords() { return keywords; }
-        public void setKeywords(String keywords) { this.keywords = keywords != null ? keywords : ""; }
-        
-        public String getStatus() { return status; }
-        public void setStatus(String status) { this.status = status != null ? status : "Valid"; }
     }
-}
\ No newline at end of file
+}
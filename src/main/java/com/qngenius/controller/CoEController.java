@@ -4,11 +4,13 @@ import com.qngenius.model.Blueprint;
 import com.qngenius.model.Course;
 import com.qngenius.model.ExamType;
 import com.qngenius.model.Subject;
-import com.qngenius.model.BlueprintCriteria;
-import com.qngenius.model.Question;
+import com.qngenius.service.BatchPaperExportJob;
+import com.qngenius.service.PaperGenerationService;
+import com.qngenius.util.ConfigManager;
 import com.qngenius.util.DatabaseUtil;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -16,23 +18,22 @@ import javafx.scene.Node;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextArea;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.UUID;
 import java.util.List;
 
-import com.itextpdf.kernel.pdf.PdfDocument;
-import com.itextpdf.kernel.pdf.PdfWriter;
-import com.itextpdf.layout.Document;
-import com.itextpdf.layout.element.Paragraph;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import java.io.File;
-import java.io.FileNotFoundException;
 
 public class CoEController {
 
@@ -46,6 +47,14 @@ public class CoEController {
     private ComboBox<String> blueprintComboBox;
     @FXML
     private TextArea paperTextArea;
+    @FXML
+    private Label batchStatusLabel;
+    @FXML
+    private ProgressBar batchProgressBar;
+    @FXML
+    private Button batchExportButton;
+    @FXML
+    private Button cancelBatchExportButton;
 
     private ObservableList<Subject> allSubjects = FXCollections.observableArrayList();
     private ObservableList<ExamType> allExamTypes = FXCollections.observableArrayList();
@@ -55,6 +64,12 @@ public class CoEController {
     private UUID selectedExamTypeId;
     private UUID selectedBlueprintId;
 
+    private final PaperGenerationService paperService = PaperGenerationService.getInstance();
+    // The running batch export, if any; set on the export thread, cancelled from the FX thread.
+    // A cancel before the job exists is picked up through the flag when it is created.
+    private volatile BatchPaperExportJob batchExportJob;
+    private volatile boolean batchExportCancelled;
+
     public void setUsername(String username) {
         usernameLabel.setText("Welcome, " + username + "!");
     }
@@ -157,32 +172,23 @@ public class CoEController {
             return;
         }
 
-        try {
-            List<BlueprintCriteria> allCriteria = DatabaseUtil.getBlueprintCriteria(selectedBlueprintId);
-            StringBuilder paperContent = new StringBuilder();
-            int questionNumber = 1;
-
-            for (BlueprintCriteria criteria : allCriteria) {
-                UUID subjectId = null;
-                String selectedSubjectCode = subjectComboBox.getSelectionModel().getSelectedItem();
-                for (Subject s : allSubjects) {
-                    if (s.getSubjectCode().equals(selectedSubjectCode)) {
-                        subjectId = s.getId();
-                        break;
-                    }
-                }
-
-                if (subjectId != null) {
-                    List<Question> questions = DatabaseUtil.getQuestionsByCriteria(subjectId, criteria);
-
-                    for (Question q : questions) {
-                        paperContent.append("Q").append(questionNumber++).append(". ").append(q.getQuestionText())
-                                .append(" (Marks: ").append(q.getMarks()).append(")\n");
-                    }
-                }
+        UUID subjectId = null;
+        String selectedSubjectCode = subjectComboBox.getSelectionModel().getSelectedItem();
+        for (Subject s : allSubjects) {
+            if (s.getSubjectCode().equals(selectedSubjectCode)) {
+                subjectId = s.getId();
+                break;
             }
+        }
+
+        if (subjectId == null) {
+            showAlert(Alert.AlertType.WARNING, "Selection Error", "Please select a subject first.");
+            return;
+        }
 
-            paperTextArea.setText(paperContent.toString());
+        try {
+            String paperContent = paperService.generatePaperContent(subjectId, selectedBlueprintId);
+            paperTextArea.setText(paperContent);
             showAlert(Alert.AlertType.INFORMATION, "Success", "Question paper generated successfully!");
         } catch (SQLException e) {
             e.printStackTrace();
@@ -207,26 +213,108 @@ public class CoEController {
 
         if (file != null) {
             try {
-                // Create PDF writer and document
-                PdfWriter writer = new PdfWriter(file.getAbsolutePath());
-                PdfDocument pdf = new PdfDocument(writer);
-                Document document = new Document(pdf);
-
-                // Add content from the TextArea
-                document.add(new Paragraph(paperContent));
-
-                // Close the document
-                document.close();
+                paperService.exportToPdf(paperContent, file);
 
                 showAlert(Alert.AlertType.INFORMATION, "Export Successful",
                         "Question paper exported to " + file.getAbsolutePath());
-            } catch (FileNotFoundException e) {
+            } catch (IOException e) {
                 e.printStackTrace();
                 showAlert(Alert.AlertType.ERROR, "Export Failed", "Error saving the file.");
             }
         }
     }
 
+    @FXML
+    private void handleBatchExportButtonAction(ActionEvent event) {
+        DirectoryChooser directoryChooser = new DirectoryChooser();
+        directoryChooser.setTitle("Select Output Folder for Question Papers");
+        File outputDirectory = directoryChooser.showDialog(paperTextArea.getScene().getWindow());
+        if (outputDirectory == null) {
+            return;
+        }
+        // loadSubjects refills the list on the FX thread while the export runs
+        List<Subject> subjects = new ArrayList<>(allSubjects);
+
+        Task<BatchPaperExportJob.ExportResult> exportTask = new Task<BatchPaperExportJob.ExportResult>() {
+            @Override
+            protected BatchPaperExportJob.ExportResult call() throws Exception {
+                updateMessage("Collecting blueprints...");
+                List<Blueprint> blueprints = new ArrayList<>();
+                for (Subject s : subjects) {
+                    blueprints.addAll(DatabaseUtil.getBlueprintsBySubject(s.getId()));
+                }
+
+                BatchPaperExportJob job = new BatchPaperExportJob(blueprints, outputDirectory,
+                        ConfigManager.getInstance().getExportMaxInFlight());
+                batchExportJob = job;
+                if (batchExportCancelled) {
+                    job.cancel();
+                }
+                return job.run(progress -> {
+                    updateProgress(progress.getProcessed(), progress.getTotal());
+                    updateMessage(String.format("Exported %d of %d papers (%d skipped, %d failed) - %.1f papers/s",
+                            progress.getCompleted(), progress.getTotal(), progress.getSkipped(),
+                            progress.getFailed(), progress.getPapersPerSecond()));
+                });
+            }
+
+            @Override
+            protected void succeeded() {
+                BatchPaperExportJob.ExportResult result = getValue();
+                finishBatchExport();
+                if (result.isCancelled()) {
+                    batchStatusLabel.setText("Batch export cancelled");
+                    showAlert(Alert.AlertType.INFORMATION, "Batch Export Cancelled",
+                            result.getProgress().getCompleted() + " paper(s) exported before the export was cancelled. "
+                                    + "Run the export again to resume.");
+                } else if (result.isSuccessful()) {
+                    showAlert(Alert.AlertType.INFORMATION, "Batch Export Complete",
+                            "Question papers exported to " + outputDirectory.getAbsolutePath());
+                } else {
+                    showAlert(Alert.AlertType.WARNING, "Batch Export Incomplete",
+                            result.getFailures().size() + " paper(s) failed. Run the export again to resume.");
+                }
+            }
+
+            @Override
+            protected void failed() {
+                getException().printStackTrace();
+                finishBatchExport();
+                batchStatusLabel.setText("Batch export failed");
+                showAlert(Alert.AlertType.ERROR, "Batch Export Failed", "An error occurred while exporting papers.");
+            }
+        };
+
+        batchStatusLabel.textProperty().bind(exportTask.messageProperty());
+        batchProgressBar.progressProperty().bind(exportTask.progressProperty());
+        batchExportCancelled = false;
+        batchExportButton.setDisable(true);
+        cancelBatchExportButton.setDisable(false);
+        Thread exportThread = new Thread(exportTask);
+        exportThread.setDaemon(true);
+        exportThread.start();
+    }
+
+    @FXML
+    private void handleCancelBatchExportButtonAction(ActionEvent event) {
+        batchExportCancelled = true;
+        BatchPaperExportJob job = batchExportJob;
+        if (job != null) {
+            job.cancel();
+        }
+        cancelBatchExportButton.setDisable(true);
+        batchStatusLabel.textProperty().unbind();
+        batchStatusLabel.setText("Cancelling; finishing the papers already rendering...");
+    }
+
+    private void finishBatchExport() {
+        batchExportJob = null;
+        batchStatusLabel.textProperty().unbind();
+        batchProgressBar.progressProperty().unbind();
+        batchExportButton.setDisable(false);
+        cancelBatchExportButton.setDisable(true);
+    }
+
     @FXML
     private void handleLogoutButtonAction(ActionEvent event) throws IOException {
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/qngenius/view/login.fxml"));
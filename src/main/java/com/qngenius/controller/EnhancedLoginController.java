@@ -1,7 +1,8 @@
 package com.qngenius.controller;
 
-import com.qngenius.util.DatabaseUtil;
 import com.qngenius.model.User;
+import com.qngenius.service.AuthenticationService;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -12,17 +13,17 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.io.IOException;
-import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 public class EnhancedLoginController {
 
+    private static final Logger LOGGER = Logger.getLogger(EnhancedLoginController.class.getName());
+
     @FXML private TextField usernameField;
     @FXML private PasswordField passwordField;
 
@@ -36,44 +37,39 @@ public class EnhancedLoginController {
             return;
         }
 
-        try {
-            User user = authenticateUser(username, password);
-            if (user != null) {
-                navigateBasedOnRole(event, user);
-            } else {
-                showAlert(Alert.AlertType.ERROR, "Login Failed", "Invalid username or password.");
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "Database Error", "Unable to connect to database. Please try again later.");
-        } catch (IOException e) {
-            e.printStackTrace();
-            showAlert(Alert.AlertType.ERROR, "System Error", "Unable to load application. Please contact support.");
-        }
-    }
+        // Hashing and the lookup run in the background; keep the button from queueing duplicates
+        Node source = (Node) event.getSource();
+        source.setDisable(true);
 
-    private User authenticateUser(String username, String password) throws SQLException {
-        String sql = "SELECT id, username, password_hash, role FROM users WHERE username = ?";
-        BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-        
-        try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            pstmt.setString(1, username);
-            ResultSet rs = pstmt.executeQuery();
-            
-            if (rs.next()) {
-                String storedPasswordHash = rs.getString("password_hash");
-                if (passwordEncoder.matches(password, storedPasswordHash)) {
-                    return new User(
-                        rs.getObject("id", UUID.class),
-                        rs.getString("username"),
-                        rs.getString("role")
-                    );
+        AuthenticationService.getInstance().authenticate(username, password)
+            .whenComplete((user, error) -> Platform.runLater(() -> {
+                source.setDisable(false);
+                if (error != null) {
+                    handleAuthenticationError(error);
+                    return;
                 }
-            }
+                if (user == null) {
+                    showAlert(Alert.AlertType.ERROR, "Login Failed", "Invalid username or password.");
+                    return;
+                }
+                try {
+                    navigateBasedOnRole(event, user);
+                } catch (IOException e) {
+                    LOGGER.log(Level.SEVERE, "Failed to load dashboard", e);
+                    showAlert(Alert.AlertType.ERROR, "System Error", "Unable to load application. Please contact support.");
+                }
+            }));
+    }
+
+    private void handleAuthenticationError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            LOGGER.warning("Login rejected, too many logins in progress");
+            showAlert(Alert.AlertType.WARNING, "Server Busy", "Too many logins are in progress. Please try again in a moment.");
+        } else {
+            LOGGER.log(Level.SEVERE, "Login failed", cause);
+            showAlert(Alert.AlertType.ERROR, "Database Error", "Unable to connect to database. Please try again later.");
         }
-        return null;
     }
 
     private void navigateBasedOnRole(ActionEvent event, User user) throws IOException {
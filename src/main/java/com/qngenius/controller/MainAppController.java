@@ -1,12 +1,16 @@
 package com.qngenius.controller;
 
 import com.qngenius.model.Question;
+import com.qngenius.model.QuestionFilter;
 import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.QuestionTablePager;
 
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
-import javafx.scene.control.TextArea;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.event.ActionEvent;
 import javafx.stage.Stage;
@@ -23,6 +27,10 @@ import java.util.List;
 
 public class MainAppController {
 
+    // A few screens of rows per fetch, and no more than ten pages held at once
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 10;
+
     @FXML
     private Label usernameLabel;
 
@@ -39,7 +47,27 @@ public class MainAppController {
     private ComboBox<String> bloomTaxonomyComboBox;
 
     @FXML
-    private TextArea questionsArea;
+    private TableView<Question> questionsTable;
+
+    @FXML
+    private TableColumn<Question, String> questionTextColumn;
+
+    @FXML
+    private TableColumn<Question, String> questionTypeColumn;
+
+    @FXML
+    private TableColumn<Question, String> marksColumn;
+
+    @FXML
+    private TableColumn<Question, String> difficultyColumn;
+
+    @FXML
+    private TableColumn<Question, String> bloomLevelColumn;
+
+    @FXML
+    private Label browserStatusLabel;
+
+    private QuestionTablePager questionPager;
 
     // This method will be called by LoginController to pass the username
     public void setUsername(String username) {
@@ -63,6 +91,16 @@ public class MainAppController {
 
         bloomTaxonomyComboBox.setItems(FXCollections.observableArrayList(
                 "Remember", "Understand", "Apply", "Analyze", "Evaluate", "Create"));
+
+        questionTextColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getQuestionText()));
+        questionTypeColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getQuestionType()));
+        marksColumn.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getMarks())));
+        difficultyColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getDifficultyLevel()));
+        bloomLevelColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getBloomTaxonomyLevel()));
+
+        // Browses the whole bank until questions are generated
+        questionPager = new QuestionTablePager(questionsTable, browserStatusLabel, PAGE_SIZE, MAX_PAGES);
+        questionPager.show(QuestionFilter.all());
     }
 
     @FXML
@@ -73,7 +111,7 @@ public class MainAppController {
         String bloomTaxonomy = bloomTaxonomyComboBox.getValue();
 
         if (questionType == null || marks == null || difficultyLevel == null || bloomTaxonomy == null) {
-            questionsArea.setText("Please select values for all fields.");
+            browserStatusLabel.setText("Please select values for all fields.");
             return;
         }
 
@@ -81,12 +119,11 @@ public class MainAppController {
             List<Question> newQuestions = generateDummyQuestions(questionType, marks, difficultyLevel, bloomTaxonomy);
             DatabaseUtil.saveQuestions(newQuestions);
 
-            List<Question> retrievedQuestions = DatabaseUtil.getQuestions(questionType, difficultyLevel);
-            displayQuestions(retrievedQuestions);
+            questionPager.show(new QuestionFilter(null, questionType, difficultyLevel));
 
         } catch (SQLException e) {
             e.printStackTrace();
-            questionsArea.setText(
+            browserStatusLabel.setText(
                     "An error occurred while generating or saving questions. Please check the database connection and permissions.");
         }
     }
@@ -116,22 +153,4 @@ public class MainAppController {
 
         return questions;
     }
-
-    // This method needs to be updated to match the new constructor.
-    private void displayQuestions(List<Question> questions) {
-        StringBuilder sb = new StringBuilder();
-        if (questions.isEmpty()) {
-            sb.append("No questions found for the given criteria.");
-        } else {
-            for (Question q : questions) {
-                sb.append("Question ID: ").append(q.getQuestionId()).append("\n");
-                sb.append("Question: ").append(q.getQuestionText()).append("\n");
-                sb.append("Type: ").append(q.getQuestionType()).append("\n");
-                sb.append("Marks: ").append(q.getMarks()).append("\n");
-                sb.append("Difficulty: ").append(q.getDifficultyLevel()).append("\n");
-                sb.append("Bloom Level: ").append(q.getBloomTaxonomyLevel()).append("\n\n");
-            }
-        }
-        questionsArea.setText(sb.toString());
-    }
 }
\ No newline at end of file
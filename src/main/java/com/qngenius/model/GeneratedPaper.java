@@ -0,0 +1,37 @@
+package com.qngenius.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One set of a question paper: the questions selected for a blueprint, in paper order, and
+ * the paper text laid out from them.
+ */
+public class GeneratedPaper {
+
+    private final UUID subjectId;
+    private final UUID blueprintId;
+    private final List<Question> questions;
+    private final String content;
+
+    public GeneratedPaper(UUID subjectId, UUID blueprintId, List<Question> questions, String content) {
+        this.subjectId = subjectId;
+        this.blueprintId = blueprintId;
+        this.questions = new ArrayList<>(questions);
+        this.content = content;
+    }
+
+    public UUID getSubjectId() { return subjectId; }
+    public UUID getBlueprintId() { return blueprintId; }
+    public List<Question> getQuestions() { return new ArrayList<>(questions); }
+    public String getContent() { return content; }
+
+    public int getTotalMarks() {
+        int total = 0;
+        for (Question question : questions) {
+            total += question.getMarks();
+        }
+        return total;
+    }
+}
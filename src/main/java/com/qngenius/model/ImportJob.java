@@ -0,0 +1,48 @@
+package com.qngenius.model;
+
+import java.util.UUID;
+
+public class ImportJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+
+    private final UUID id;
+    private final String fileName;
+    private final String fileHash;
+    private final UUID subjectId;
+    private final UUID unitId;
+    private final UUID createdBy;
+    private final int totalRows;
+    private final int committedRows;
+    private final int lastCommittedRow;
+    private final String status;
+
+    public ImportJob(UUID id, String fileName, String fileHash, UUID subjectId, UUID unitId, UUID createdBy,
+            int totalRows, int committedRows, int lastCommittedRow, String status) {
+        this.id = id;
+        this.fileName = fileName;
+        this.fileHash = fileHash;
+        this.subjectId = subjectId;
+        this.unitId = unitId;
+        this.createdBy = createdBy;
+        this.totalRows = totalRows;
+        this.committedRows = committedRows;
+        this.lastCommittedRow = lastCommittedRow;
+        this.status = status;
+    }
+
+    public UUID getId() { return id; }
+    public String getFileName() { return fileName; }
+    public String getFileHash() { return fileHash; }
+    public UUID getSubjectId() { return subjectId; }
+    public UUID getUnitId() { return unitId; }
+    public UUID getCreatedBy() { return createdBy; }
+    public int getTotalRows() { return totalRows; }
+    public int getCommittedRows() { return committedRows; }
+    // Highest source-file row committed so far; rows may commit out of order
+    public int getLastCommittedRow() { return lastCommittedRow; }
+    public String getStatus() { return status; }
+    public boolean isResumable() { return !STATUS_COMPLETED.equals(status); }
+}
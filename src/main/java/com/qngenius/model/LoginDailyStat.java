@@ -0,0 +1,25 @@
+package com.qngenius.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public class LoginDailyStat {
+
+    private final LocalDate day;
+    private final UUID userId;
+    private final int successes;
+    private final int failures;
+
+    public LoginDailyStat(LocalDate day, UUID userId, int successes, int failures) {
+        this.day = day;
+        this.userId = userId;
+        this.successes = successes;
+        this.failures = failures;
+    }
+
+    public LocalDate getDay() { return day; }
+    public UUID getUserId() { return userId; }
+    public int getSuccesses() { return successes; }
+    public int getFailures() { return failures; }
+    public int getAttempts() { return successes + failures; }
+}
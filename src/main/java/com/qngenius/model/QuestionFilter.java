@@ -0,0 +1,27 @@
+package com.qngenius.model;
+
+import java.util.UUID;
+
+/**
+ * What the question browser shows; a null field matches every question.
+ */
+public class QuestionFilter {
+
+    private static final QuestionFilter ALL = new QuestionFilter(null, null, null);
+
+    private final UUID subjectId;
+    private final String questionType;
+    private final String difficultyLevel;
+
+    public QuestionFilter(UUID subjectId, String questionType, String difficultyLevel) {
+        this.subjectId = subjectId;
+        this.questionType = questionType;
+        this.difficultyLevel = difficultyLevel;
+    }
+
+    public static QuestionFilter all() { return ALL; }
+
+    public UUID getSubjectId() { return subjectId; }
+    public String getQuestionType() { return questionType; }
+    public String getDifficultyLevel() { return difficultyLevel; }
+}
@@ -0,0 +1,77 @@
+package com.qngenius.model;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A page of questions in (created_at, question_id) order, with the positions of its first and
+ * last question, from which the pages before and after it are fetched.
+ */
+public class QuestionPage {
+
+    private final List<Question> questions;
+    private final Cursor first;
+    private final Cursor last;
+    private final boolean more;
+
+    public QuestionPage(List<Question> questions, Cursor first, Cursor last, boolean more) {
+        this.questions = List.copyOf(questions);
+        this.first = first;
+        this.last = last;
+        this.more = more;
+    }
+
+    public List<Question> getQuestions() { return questions; }
+    /** @return the position of the first question, null if the page is empty */
+    public Cursor getFirst() { return first; }
+    /** @return the position of the last question, null if the page is empty */
+    public Cursor getLast() { return last; }
+    /** @return whether there are more questions past this page, in the direction it was fetched */
+    public boolean hasMore() { return more; }
+    public boolean isEmpty() { return questions.isEmpty(); }
+
+    /**
+     * The position of a question in browsing order. {@link #toString()} gives it as an opaque
+     * token, safe in a URL, that {@link #parse(String)} reads back.
+     */
+    public static final class Cursor {
+
+        private final OffsetDateTime createdAt;
+        private final UUID questionId;
+
+        public Cursor(OffsetDateTime createdAt, UUID questionId) {
+            this.createdAt = createdAt;
+            this.questionId = questionId;
+        }
+
+        public OffsetDateTime getCreatedAt() { return createdAt; }
+        public UUID getQuestionId() { return questionId; }
+
+        /**
+         * @throws IllegalArgumentException if the token is not one {@link #toString()} made
+         */
+        public static Cursor parse(String token) {
+            int separator = token.indexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor " + token);
+            }
+            try {
+                long micros = Long.parseLong(token.substring(0, separator));
+                OffsetDateTime createdAt = Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+                return new Cursor(createdAt, UUID.fromString(token.substring(separator + 1)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor " + token, e);
+            }
+        }
+
+        // PostgreSQL keeps timestamps to the microsecond, so that is all the token needs
+        @Override
+        public String toString() {
+            return ChronoUnit.MICROS.between(Instant.EPOCH, createdAt.toInstant()) + "_" + questionId;
+        }
+    }
+}
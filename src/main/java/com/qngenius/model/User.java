@@ -87,6 +87,7 @@ public class User {
     public String getRole() { return role.get(); }
     public StringProperty roleProperty() { return role; }
     
+    public String getPasswordHash() { return passwordHash; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getLastLogin() { return lastLogin; }
     public boolean isActive() { return isActive; }
@@ -0,0 +1,466 @@
+package com.qngenius.server;
+
+import com.qngenius.model.Blueprint;
+import com.qngenius.model.ExamType;
+import com.qngenius.model.GeneratedPaper;
+import com.qngenius.model.Question;
+import com.qngenius.model.QuestionFilter;
+import com.qngenius.model.QuestionPage;
+import com.qngenius.model.Subject;
+import com.qngenius.service.PaperGenerationService;
+import com.qngenius.service.QuestionService;
+import com.qngenius.service.QuestionService.QuestionSearchCriteria;
+import com.qngenius.service.QuestionService.QuestionStatistics;
+import com.qngenius.util.ConfigManager;
+import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.EnhancedDatabaseUtil;
+import com.qngenius.util.ExpiringCache;
+import com.qngenius.util.JsonWriter;
+import com.qngenius.util.MetricsRegistry;
+import com.qngenius.util.OperationStats;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves question search, statistics and paper generation as JSON over HTTP, for department
+ * portals. Started with {@code Launcher serve [--port N]}; all endpoints take query parameters:
+ * <pre>
+ *   GET  /api/health
+ *   GET  /api/exam-types
+ *   GET  /api/blueprints?subject=CODE|ID[&amp;examType=NAME|ID]
+ *   GET  /api/questions/search?subject=..[&amp;type=..&amp;difficulty=..&amp;keywords=..&amp;minMarks=..&amp;maxMarks=..&amp;limit=..]
+ *   GET  /api/questions/browse?[subject=..&amp;type=..&amp;difficulty=..&amp;after=CURSOR&amp;limit=..]
+ *   GET  /api/questions/statistics?subject=..
+ *   POST /api/papers/generate?subject=..&amp;blueprint=TITLE|ID[&amp;examType=..]
+ * </pre>
+ * Requests run on a pool with one thread per pooled connection, since nearly all of their time
+ * is spent waiting on the database, and a bounded queue in front of it. When the queue is full
+ * a request is answered 503 straight away instead of waiting behind the backlog. Subjects,
+ * blueprints and each subject's questions are cached for {@code app.server.cacheSeconds}, so
+ * search and statistics are filtered in memory; paper generation always selects afresh.
+ * Browsing reads one page from the database per request and returns the cursor of the next,
+ * so walking the whole bank costs the same per page from start to end.
+ */
+public class ApiServer {
+
+    public static final String COMMAND = "serve";
+
+    private static final Logger LOGGER = Logger.getLogger(ApiServer.class.getName());
+    private static final int DEFAULT_SEARCH_LIMIT = 100;
+    private static final int MAX_SEARCH_LIMIT = 1000;
+    private static final int CACHED_SUBJECTS = 10_000;
+    // Set while a rejected request is answered on the server's dispatcher thread
+    private static final ThreadLocal<Boolean> OVERLOADED = new ThreadLocal<>();
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final ExpiringCache<String, Subject> subjects;
+    private final ExpiringCache<UUID, List<Question>> subjectQuestions;
+    private final ExpiringCache<UUID, QuestionStatistics> statistics;
+    private final ExpiringCache<UUID, List<Blueprint>> blueprints;
+    private final ExpiringCache<Boolean, List<ExamType>> examTypes;
+
+    /**
+     * @param port 0 picks a free port
+     */
+    public ApiServer(int port) throws IOException {
+        ConfigManager config = ConfigManager.getInstance();
+        int threads = config.getServerThreads() > 0 ? config.getServerThreads() : config.getConnectionPoolMaxSize();
+        int queueSize = Math.max(1, config.getServerMaxQueuedRequests());
+        executor = newRequestPool(threads, queueSize);
+
+        int cacheSeconds = config.getServerCacheSeconds();
+        subjects = new ExpiringCache<>(cacheSeconds, CACHED_SUBJECTS);
+        subjectQuestions = new ExpiringCache<>(cacheSeconds, CACHED_SUBJECTS);
+        statistics = new ExpiringCache<>(cacheSeconds, CACHED_SUBJECTS);
+        blueprints = new ExpiringCache<>(cacheSeconds, CACHED_SUBJECTS);
+        examTypes = new ExpiringCache<>(cacheSeconds, 1);
+
+        // Connections waiting to be accepted count towards the same bound as queued requests
+        server = HttpServer.create(new InetSocketAddress(port), queueSize);
+        server.setExecutor(executor);
+        server.createContext("/api/health", exchange -> handle(exchange, "GET", "health", params -> health()));
+        server.createContext("/api/exam-types", exchange -> handle(exchange, "GET", "examTypes", params -> listExamTypes()));
+        server.createContext("/api/blueprints", exchange -> handle(exchange, "GET", "blueprints", this::listBlueprints));
+        server.createContext("/api/questions/search", exchange -> handle(exchange, "GET", "search", this::search));
+        server.createContext("/api/questions/browse", exchange -> handle(exchange, "GET", "browse", this::browse));
+        server.createContext("/api/questions/statistics", exchange -> handle(exchange, "GET", "statistics", this::statistics));
+        server.createContext("/api/papers/generate", exchange -> handle(exchange, "POST", "generate", this::generate));
+    }
+
+    /**
+     * Starts the server from the command line and returns; it runs until the JVM shuts down.
+     *
+     * @param args the arguments after {@link #COMMAND}
+     * @return the process exit code if the server could not start, otherwise 0
+     */
+    public static int run(String[] args) {
+        int port = ConfigManager.getInstance().getServerPort();
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                try {
+                    port = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    port = -1;
+                }
+            } else {
+                port = -1;
+            }
+            if (port < 0 || port > 65535) {
+                System.err.println("Usage: serve [--port N]");
+                return 2;
+            }
+        }
+        try {
+            ApiServer apiServer = new ApiServer(port);
+            apiServer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                apiServer.stop(2);
+                EnhancedDatabaseUtil.closePool();
+            }, "api-server-shutdown"));
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Could not start the server on port " + port + ": " + e.getMessage());
+            return 1;
+        }
+    }
+
+    public void start() {
+        server.start();
+        LOGGER.info(String.format("Serving on port %d with %d request threads", getPort(), executor.getMaximumPoolSize()));
+    }
+
+    /**
+     * Stops accepting requests and waits up to {@code delaySeconds} for running ones
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        LOGGER.info("Server stopped");
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // --- Endpoints ---
+
+    private JsonWriter health() {
+        EnhancedDatabaseUtil.DatabaseHealth pool = EnhancedDatabaseUtil.getConnectionPoolStatus();
+        return new JsonWriter().beginObject()
+                .field("healthy", pool.isHealthy())
+                .field("status", pool.getStatus())
+                .field("activeConnections", pool.getActiveConnections())
+                .field("idleConnections", pool.getIdleConnections())
+                .field("queuedRequests", executor.getQueue().size())
+                .endObject();
+    }
+
+    private JsonWriter listExamTypes() throws Exception {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (ExamType examType : examTypes.get(Boolean.TRUE, key -> DatabaseUtil.getExamTypes())) {
+            json.beginObject().field("id", examType.getId().toString()).field("name", examType.getTypeName()).endObject();
+        }
+        return json.endArray();
+    }
+
+    private JsonWriter listBlueprints(Map<String, String> params) throws Exception {
+        Subject subject = subject(params);
+        ExamType examType = params.containsKey("examType") ? examType(params.get("examType")) : null;
+        JsonWriter json = new JsonWriter().beginArray();
+        for (Blueprint blueprint : blueprints.get(subject.getId(), DatabaseUtil::getBlueprintsBySubject)) {
+            if (examType == null || examType.getId().equals(blueprint.getExamTypeId())) {
+                json.beginObject()
+                    .field("id", blueprint.getId().toString())
+                    .field("title", blueprint.getTitle())
+                    .field("examTypeId", String.valueOf(blueprint.getExamTypeId()))
+                    .field("totalMarks", blueprint.getTotalMarks())
+                    .field("durationMinutes", blueprint.getDurationMinutes())
+                    .endObject();
+            }
+        }
+        return json.endArray();
+    }
+
+    private JsonWriter search(Map<String, String> params) throws Exception {
+        Subject subject = subject(params);
+        QuestionSearchCriteria criteria = new QuestionSearchCriteria();
+        criteria.setQuestionType(params.get("type"));
+        criteria.setDifficultyLevel(params.get("difficulty"));
+        criteria.setKeywords(params.get("keywords"));
+        criteria.setMinMarks(intParam(params, "minMarks", null));
+        criteria.setMaxMarks(intParam(params, "maxMarks", null));
+        int limit = Math.min(MAX_SEARCH_LIMIT, Math.max(0, intParam(params, "limit", DEFAULT_SEARCH_LIMIT)));
+
+        List<Question> matches = QuestionService.filterQuestions(questionsOf(subject), criteria);
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("subjectId", subject.getId().toString())
+                .field("total", matches.size())
+                .name("questions").beginArray();
+        for (Question q : matches.subList(0, Math.min(limit, matches.size()))) {
+            writeQuestion(json, q);
+        }
+        return json.endArray().endObject();
+    }
+
+    private JsonWriter browse(Map<String, String> params) throws Exception {
+        UUID subjectId = params.containsKey("subject") ? subject(params).getId() : null;
+        QuestionFilter filter = new QuestionFilter(subjectId, params.get("type"), params.get("difficulty"));
+        QuestionPage.Cursor after = null;
+        if (params.containsKey("after")) {
+            try {
+                after = QuestionPage.Cursor.parse(params.get("after"));
+            } catch (IllegalArgumentException e) {
+                throw new RequestException(400, "Invalid cursor " + params.get("after"));
+            }
+        }
+        int limit = Math.min(MAX_SEARCH_LIMIT, Math.max(1, intParam(params, "limit", DEFAULT_SEARCH_LIMIT)));
+
+        QuestionPage page = DatabaseUtil.getQuestionsAfter(filter, after, limit);
+        JsonWriter json = new JsonWriter().beginObject().name("questions").beginArray();
+        for (Question q : page.getQuestions()) {
+            writeQuestion(json, q);
+        }
+        return json.endArray()
+                .field("next", page.hasMore() ? page.getLast().toString() : null)
+                .endObject();
+    }
+
+    private JsonWriter statistics(Map<String, String> params) throws Exception {
+        Subject subject = subject(params);
+        QuestionStatistics stats = statistics.get(subject.getId(),
+                id -> QuestionService.calculateStatistics(questionsOf(subject)));
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("subjectId", subject.getId().toString())
+                .field("totalQuestions", stats.getTotalQuestions())
+                .field("totalMarks", stats.getTotalMarks())
+                .field("averageMarks", stats.getAverageMarks());
+        writeCounts(json, "byType", stats.getQuestionTypeDistribution());
+        writeCounts(json, "byDifficulty", stats.getDifficultyDistribution());
+        writeCounts(json, "byBloomLevel", stats.getBloomTaxonomyDistribution());
+        return json.endObject();
+    }
+
+    private JsonWriter generate(Map<String, String> params) throws Exception {
+        Subject subject = subject(params);
+        String blueprintRef = required(params, "blueprint");
+        ExamType examType = params.containsKey("examType") ? examType(params.get("examType")) : null;
+        UUID blueprintId = parseId(blueprintRef);
+        Blueprint blueprint = null;
+        for (Blueprint candidate : blueprints.get(subject.getId(), DatabaseUtil::getBlueprintsBySubject)) {
+            boolean matches = candidate.getId().equals(blueprintId) || candidate.getTitle().equalsIgnoreCase(blueprintRef);
+            if (matches && (examType == null || examType.getId().equals(candidate.getExamTypeId()))) {
+                blueprint = candidate;
+                break;
+            }
+        }
+        if (blueprint == null) {
+            throw new RequestException(404, "No blueprint " + blueprintRef + " for " + subject.getSubjectCode());
+        }
+
+        PaperGenerationService paperService = PaperGenerationService.getInstance();
+        GeneratedPaper paper = paperService.generatePaper(subject.getId(), blueprint.getId());
+        JsonWriter json = new JsonWriter().beginObject()
+                .field("subject", subject.getSubjectCode())
+                .field("blueprint", blueprint.getTitle())
+                .field("durationMinutes", blueprint.getDurationMinutes());
+        paperService.writeJson(paper, json);
+        return json.field("content", paper.getContent()).endObject();
+    }
+
+    // --- Lookups ---
+
+    private Subject subject(Map<String, String> params) throws Exception {
+        String ref = required(params, "subject");
+        Subject subject = subjects.get(ref, key -> {
+            UUID id = parseId(key);
+            return id != null ? DatabaseUtil.getSubjectById(id) : DatabaseUtil.getSubjectByCode(key);
+        });
+        if (subject == null) {
+            // A miss is cached too; drop it so a subject added meanwhile is found
+            subjects.invalidate(ref);
+            throw new RequestException(404, "No subject " + ref);
+        }
+        return subject;
+    }
+
+    private ExamType examType(String ref) throws Exception {
+        UUID id = parseId(ref);
+        for (ExamType examType : examTypes.get(Boolean.TRUE, key -> DatabaseUtil.getExamTypes())) {
+            if (examType.getId().equals(id) || examType.getTypeName().equalsIgnoreCase(ref)) {
+                return examType;
+            }
+        }
+        throw new RequestException(404, "No exam type " + ref);
+    }
+
+    private List<Question> questionsOf(Subject subject) throws Exception {
+        return subjectQuestions.get(subject.getId(), DatabaseUtil::getQuestionsBySubject);
+    }
+
+    private static void writeQuestion(JsonWriter json, Question q) {
+        json.beginObject()
+            .field("id", q.getQuestionId() != null ? q.getQuestionId().toString() : null)
+            .field("text", q.getQuestionText())
+            .field("type", q.getQuestionType())
+            .field("marks", q.getMarks())
+            .field("difficulty", q.getDifficultyLevel())
+            .field("bloomLevel", q.getBloomTaxonomyLevel())
+            .endObject();
+    }
+
+    // --- Plumbing ---
+
+    @FunctionalInterface
+    private interface Endpoint {
+        JsonWriter handle(Map<String, String> params) throws Exception;
+    }
+
+    private void handle(HttpExchange exchange, String method, String name, Endpoint endpoint) {
+        long start = System.nanoTime();
+        OperationStats stats = metrics.operation("ApiServer." + name);
+        int status = 200;
+        String body;
+        try {
+            if (Boolean.TRUE.equals(OVERLOADED.get())) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                throw new RequestException(503, "Server busy");
+            }
+            if (!method.equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", method);
+                throw new RequestException(405, "Use " + method);
+            }
+            body = endpoint.handle(parseQuery(exchange.getRequestURI().getRawQuery())).toString();
+        } catch (RequestException e) {
+            status = e.status;
+            body = new JsonWriter().beginObject().field("error", e.getMessage()).endObject().toString();
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Request " + exchange.getRequestURI() + " failed", e);
+            status = 500;
+            body = new JsonWriter().beginObject().field("error", "Database error").endObject().toString();
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Request " + exchange.getRequestURI() + " failed", e);
+            status = 500;
+            body = new JsonWriter().beginObject().field("error", "Internal error").endObject().toString();
+        }
+
+        try {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Client went away before the response was sent", e);
+        } finally {
+            exchange.close();
+            stats.recordSince(start);
+            if (status >= 500) {
+                stats.recordError();
+            }
+        }
+    }
+
+    private static void writeCounts(JsonWriter json, String name, Map<String, Integer> counts) {
+        json.name(name).beginObject();
+        for (Map.Entry<String, Integer> count : counts.entrySet()) {
+            json.field(String.valueOf(count.getKey()), count.getValue());
+        }
+        json.endObject();
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            if (!value.isEmpty()) {
+                params.put(key, value);
+            }
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> params, String name) throws RequestException {
+        String value = params.get(name);
+        if (value == null) {
+            throw new RequestException(400, "Missing parameter " + name);
+        }
+        return value;
+    }
+
+    private static Integer intParam(Map<String, String> params, String name, Integer defaultValue) throws RequestException {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, "Parameter " + name + " must be a number");
+        }
+    }
+
+    private static UUID parseId(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static ThreadPoolExecutor newRequestPool(int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, "api-request-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // The dispatcher only hands over connections with a request waiting, so answering
+            // 503 in its place is quick; the default would drop the connection without a reply
+            (runnable, pool) -> {
+                OVERLOADED.set(Boolean.TRUE);
+                try {
+                    runnable.run();
+                } finally {
+                    OVERLOADED.remove();
+                }
+            });
+    }
+
+    private static class RequestException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
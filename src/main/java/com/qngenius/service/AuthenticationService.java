@@ -0,0 +1,173 @@
+package com.qngenius.service;
+
+import com.qngenius.model.User;
+import com.qngenius.util.ConfigManager;
+import com.qngenius.util.EnhancedDatabaseUtil;
+import com.qngenius.util.MetricsRegistry;
+import com.qngenius.util.OperationStats;
+import com.qngenius.util.jfr.LoginAttemptEvent;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Verifies logins off the JavaFX thread.
+ *
+ * The user is looked up through the pooled DAO on an I/O pool sized to the connection pool,
+ * and the BCrypt check runs on a separate pool with one thread per core, since it is pure CPU
+ * work. Both pools have bounded queues: when too many logins are waiting, new ones fail fast
+ * instead of queueing behind minutes of hashing. A single encoder is shared, as
+ * {@link BCryptPasswordEncoder} is thread-safe.
+ */
+public class AuthenticationService {
+
+    private static final Logger LOGGER = Logger.getLogger(AuthenticationService.class.getName());
+    // Login latency is logged on its own, as the periodic summary only lists the slowest operations
+    private static final int LATENCY_LOG_INTERVAL = 50;
+    private static AuthenticationService instance;
+    private static String clientAddress;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final ThreadPoolExecutor lookupExecutor;
+    private final ThreadPoolExecutor verifyExecutor;
+    private final OperationStats loginStats = MetricsRegistry.getInstance().operation("AuthenticationService.authenticate");
+    private final OperationStats verifyStats = MetricsRegistry.getInstance().operation("AuthenticationService.verifyPassword");
+
+    private AuthenticationService() {
+        ConfigManager config = ConfigManager.getInstance();
+        int queueSize = config.getAuthMaxQueuedLogins();
+        lookupExecutor = newBoundedPool("auth-lookup", config.getConnectionPoolMaxSize(), queueSize);
+        verifyExecutor = newBoundedPool("auth-verify", config.getAuthVerifyThreads(), queueSize);
+        config.addListener((previous, updated) -> {
+            // The queue bounds are fixed at startup; only the thread counts follow the config
+            resize(lookupExecutor, updated.getConnectionPoolMaxSize());
+            resize(verifyExecutor, updated.getAuthVerifyThreads());
+        });
+    }
+
+    public static synchronized AuthenticationService getInstance() {
+        if (instance == null) {
+            instance = new AuthenticationService();
+        }
+        return instance;
+    }
+
+    /**
+     * Completes with the user if the credentials match, or null if they do not. Completes
+     * exceptionally with the {@link SQLException} if the lookup fails, or with a
+     * {@link java.util.concurrent.RejectedExecutionException} when the service is saturated.
+     */
+    public CompletableFuture<User> authenticate(String username, String password) {
+        long start = System.nanoTime();
+        LoginAttemptEvent event = new LoginAttemptEvent();
+        event.begin();
+
+        CompletableFuture<User> result;
+        try {
+            result = CompletableFuture
+                .supplyAsync(() -> lookup(username), lookupExecutor)
+                .thenApplyAsync(user -> verify(user, password), verifyExecutor);
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.whenComplete((user, error) -> {
+            loginStats.recordSince(start);
+            if (error != null) {
+                loginStats.recordError();
+            }
+            if (loginStats.getCount() % LATENCY_LOG_INTERVAL == 0) {
+                LOGGER.info(loginStats + "; " + verifyStats);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.username = username;
+                event.succeeded = user != null;
+                event.error = error != null ? error.toString() : null;
+                event.commit();
+            }
+        });
+    }
+
+    private User lookup(String username) {
+        try {
+            return EnhancedDatabaseUtil.getUserCredentials(username);
+        } catch (SQLException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private User verify(User user, String password) {
+        if (user == null || user.getPasswordHash() == null) {
+            audit(null, false);
+            return null;
+        }
+
+        long start = System.nanoTime();
+        boolean matches = passwordEncoder.matches(password, user.getPasswordHash());
+        verifyStats.recordSince(start);
+        audit(user.getId(), matches);
+
+        // Callers get the user without the hash
+        return matches ? new User(user.getId(), user.getUsername(), user.getRole()) : null;
+    }
+
+    private void audit(UUID userId, boolean success) {
+        try {
+            // Only queues the event; it never waits on the database
+            EnhancedDatabaseUtil.logUserLogin(userId, clientAddress(), success);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to record login attempt", e);
+        }
+    }
+
+    private static synchronized String clientAddress() {
+        if (clientAddress == null) {
+            try {
+                clientAddress = InetAddress.getLocalHost().getHostAddress();
+            } catch (UnknownHostException e) {
+                clientAddress = InetAddress.getLoopbackAddress().getHostAddress();
+            }
+        }
+        return clientAddress;
+    }
+
+    private static void resize(ThreadPoolExecutor executor, int threads) {
+        threads = Math.max(1, threads);
+        if (threads == executor.getMaximumPoolSize()) {
+            return;
+        }
+        // The core size may never exceed the maximum, so the order depends on the direction
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+        LOGGER.info("Resized login pool to " + threads + " threads");
+    }
+
+    private static ThreadPoolExecutor newBoundedPool(String name, int threads, int queueSize) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+}
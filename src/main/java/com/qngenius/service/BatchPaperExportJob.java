@@ -0,0 +1,209 @@
+package com.qngenius.service;
+
+import com.qngenius.model.Blueprint;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Renders the papers for many blueprints into an output directory concurrently.
+ *
+ * At most {@code maxInFlight} documents are generated or rendered at any time, which
+ * bounds the heap used by paper text and iText page buffers. Each paper is written to a
+ * {@code .part} file and moved into place when complete, so re-running the job over the
+ * same directory skips finished papers and resumes where a failed run stopped.
+ */
+public class BatchPaperExportJob {
+
+    private static final Logger LOGGER = Logger.getLogger(BatchPaperExportJob.class.getName());
+    private static final String PART_SUFFIX = ".part";
+
+    private final List<Blueprint> blueprints;
+    private final File outputDirectory;
+    private final int maxInFlight;
+    private final PaperGenerationService paperService = PaperGenerationService.getInstance();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    public BatchPaperExportJob(List<Blueprint> blueprints, File outputDirectory, int maxInFlight) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.blueprints = new ArrayList<>(blueprints);
+        this.outputDirectory = outputDirectory;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Stops submitting papers; those already rendering are finished, so the next run resumes
+     * after them. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    /**
+     * Runs the export and blocks until every paper has been written, skipped or has failed.
+     */
+    public ExportResult run(ProgressListener listener) throws IOException, InterruptedException {
+        Files.createDirectories(outputDirectory.toPath());
+
+        int threads = Math.min(maxInFlight, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "paper-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger skipped = new AtomicInteger();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        long startNanos = System.nanoTime();
+        int total = blueprints.size();
+
+        try {
+            for (Blueprint blueprint : blueprints) {
+                if (cancelled.get()) {
+                    break;
+                }
+
+                File target = new File(outputDirectory, fileNameFor(blueprint));
+                if (target.exists()) {
+                    skipped.incrementAndGet();
+                    report(listener, total, completed, skipped, failures, startNanos);
+                    continue;
+                }
+
+                // Block the submitting thread rather than queueing unbounded work
+                inFlight.acquire();
+                if (cancelled.get()) {
+                    inFlight.release();
+                    break;
+                }
+                executor.execute(() -> {
+                    try {
+                        exportOne(blueprint, target);
+                        completed.incrementAndGet();
+                    } catch (Exception e) {
+                        LOGGER.log(Level.WARNING, "Failed to export paper for blueprint: " + blueprint.getTitle(), e);
+                        failures.add(blueprint.getTitle() + ": " + e.getMessage());
+                    } finally {
+                        inFlight.release();
+                        report(listener, total, completed, skipped, failures, startNanos);
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        ExportProgress finalProgress = snapshot(total, completed, skipped, failures, startNanos);
+        LOGGER.info(String.format("Batch export finished: %d written, %d skipped, %d failed in %.1fs (%.2f papers/s)",
+                finalProgress.getCompleted(), finalProgress.getSkipped(), finalProgress.getFailed(),
+                finalProgress.getElapsedMillis() / 1000.0, finalProgress.getPapersPerSecond()));
+
+        return new ExportResult(finalProgress, new ArrayList<>(failures), cancelled.get());
+    }
+
+    private void exportOne(Blueprint blueprint, File target) throws Exception {
+        String content = paperService.generatePaperContent(blueprint);
+        File partFile = new File(target.getPath() + PART_SUFFIX);
+        try {
+            paperService.exportToPdf(content, partFile);
+            try {
+                Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            // Gone after a successful move; otherwise a half-written paper
+            try {
+                Files.deleteIfExists(partFile.toPath());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to delete " + partFile, e);
+            }
+        }
+    }
+
+    static String fileNameFor(Blueprint blueprint) {
+        String title = blueprint.getTitle() == null ? "paper" : blueprint.getTitle();
+        String safeTitle = title.replaceAll("[^A-Za-z0-9._-]+", "_");
+        return safeTitle + "_" + blueprint.getId() + ".pdf";
+    }
+
+    private void report(ProgressListener listener, int total, AtomicInteger completed, AtomicInteger skipped,
+                        List<String> failures, long startNanos) {
+        if (listener != null) {
+            listener.onProgress(snapshot(total, completed, skipped, failures, startNanos));
+        }
+    }
+
+    private ExportProgress snapshot(int total, AtomicInteger completed, AtomicInteger skipped,
+                                    List<String> failures, long startNanos) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        return new ExportProgress(total, completed.get(), skipped.get(), failures.size(), elapsedMillis);
+    }
+
+    public interface ProgressListener {
+        void onProgress(ExportProgress progress);
+    }
+
+    public static class ExportProgress {
+        private final int total;
+        private final int completed;
+        private final int skipped;
+        private final int failed;
+        private final long elapsedMillis;
+
+        public ExportProgress(int total, int completed, int skipped, int failed, long elapsedMillis) {
+            this.total = total;
+            this.completed = completed;
+            this.skipped = skipped;
+            this.failed = failed;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getTotal() { return total; }
+        public int getCompleted() { return completed; }
+        public int getSkipped() { return skipped; }
+        public int getFailed() { return failed; }
+        public int getProcessed() { return completed + skipped + failed; }
+        public long getElapsedMillis() { return elapsedMillis; }
+        public double getPapersPerSecond() {
+            return elapsedMillis > 0 ? completed * 1000.0 / elapsedMillis : 0;
+        }
+    }
+
+    public static class ExportResult {
+        private final ExportProgress progress;
+        private final List<String> failures;
+        private final boolean cancelled;
+
+        public ExportResult(ExportProgress progress, List<String> failures, boolean cancelled) {
+            this.progress = progress;
+            this.failures = failures;
+            this.cancelled = cancelled;
+        }
+
+        public ExportProgress getProgress() { return progress; }
+        public List<String> getFailures() { return new ArrayList<>(failures); }
+        public boolean isCancelled() { return cancelled; }
+        public boolean isSuccessful() { return failures.isEmpty() && !cancelled; }
+    }
+}
@@ -0,0 +1,144 @@
+package com.qngenius.service;
+
+import com.qngenius.model.Blueprint;
+import com.qngenius.model.BlueprintCriteria;
+import com.qngenius.model.GeneratedPaper;
+import com.qngenius.model.Question;
+import com.qngenius.util.DatabaseUtil;
+import com.qngenius.util.JsonWriter;
+import com.qngenius.util.jfr.PaperGenerationEvent;
+
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.layout.Document;
+import com.itextpdf.layout.element.Paragraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+public class PaperGenerationService {
+
+    private static final Logger LOGGER = Logger.getLogger(PaperGenerationService.class.getName());
+    private static PaperGenerationService instance;
+
+    private PaperGenerationService() {}
+
+    public static synchronized PaperGenerationService getInstance() {
+        if (instance == null) {
+            instance = new PaperGenerationService();
+        }
+        return instance;
+    }
+
+    /**
+     * Selects questions for each criteria of a blueprint and lays them out as one set of the
+     * paper. The selection is random, so every call gives a different set.
+     */
+    public GeneratedPaper generatePaper(UUID subjectId, UUID blueprintId) throws SQLException {
+        PaperGenerationEvent generateEvent = new PaperGenerationEvent();
+        generateEvent.begin();
+
+        // Random selection per criteria happens in the query, so fetching returns the chosen questions
+        PaperGenerationEvent fetchEvent = new PaperGenerationEvent();
+        fetchEvent.begin();
+        List<BlueprintCriteria> allCriteria = DatabaseUtil.getBlueprintCriteria(blueprintId);
+        List<List<Question>> selected = new ArrayList<>(allCriteria.size());
+        List<Question> questions = new ArrayList<>();
+        for (BlueprintCriteria criteria : allCriteria) {
+            List<Question> chosen = DatabaseUtil.getQuestionsByCriteria(subjectId, criteria);
+            selected.add(chosen);
+            questions.addAll(chosen);
+        }
+        commit(fetchEvent, PaperGenerationEvent.CANDIDATE_FETCH, blueprintId, questions.size());
+
+        PaperGenerationEvent selectionEvent = new PaperGenerationEvent();
+        selectionEvent.begin();
+        String paperContent = assemblePaper(selected);
+        commit(selectionEvent, PaperGenerationEvent.SELECTION, blueprintId, questions.size());
+
+        commit(generateEvent, PaperGenerationEvent.GENERATE, blueprintId, questions.size());
+        return new GeneratedPaper(subjectId, blueprintId, questions, paperContent);
+    }
+
+    /**
+     * Builds the plain-text paper for a blueprint by selecting questions for each of its criteria
+     */
+    public String generatePaperContent(UUID subjectId, UUID blueprintId) throws SQLException {
+        return generatePaper(subjectId, blueprintId).getContent();
+    }
+
+    public String generatePaperContent(Blueprint blueprint) throws SQLException {
+        return generatePaperContent(blueprint.getSubjectId(), blueprint.getId());
+    }
+
+    /**
+     * Renders paper text to a PDF file. The document is streamed straight to disk,
+     * so only the current page is held in memory.
+     */
+    public void exportToPdf(String paperContent, File file) throws IOException {
+        PaperGenerationEvent event = new PaperGenerationEvent();
+        event.begin();
+        // The writer is closed even if the document cannot be created around it
+        try (PdfWriter writer = new PdfWriter(file.getAbsolutePath());
+             Document document = new Document(new PdfDocument(writer))) {
+            for (String line : paperContent.split("\n")) {
+                document.add(new Paragraph(line));
+            }
+        }
+        commit(event, PaperGenerationEvent.RENDER, null, 0);
+        LOGGER.fine("Paper exported to " + file.getAbsolutePath());
+    }
+
+    /**
+     * Writes the paper's fields, with its questions in paper order, into the open JSON object
+     */
+    public void writeJson(GeneratedPaper paper, JsonWriter json) {
+        json.field("subjectId", String.valueOf(paper.getSubjectId()))
+            .field("blueprintId", String.valueOf(paper.getBlueprintId()))
+            .field("totalMarks", paper.getTotalMarks())
+            .name("questions").beginArray();
+        int questionNumber = 1;
+        for (Question q : paper.getQuestions()) {
+            json.beginObject()
+                .field("number", questionNumber++)
+                .field("id", q.getQuestionId() != null ? q.getQuestionId().toString() : null)
+                .field("text", q.getQuestionText())
+                .field("type", q.getQuestionType())
+                .field("marks", q.getMarks())
+                .field("difficulty", q.getDifficultyLevel())
+                .field("bloomLevel", q.getBloomTaxonomyLevel())
+                .endObject();
+        }
+        json.endArray();
+    }
+
+    /**
+     * Numbers the selected questions in criteria order and lays them out as paper text
+     */
+    static String assemblePaper(List<List<Question>> selected) {
+        StringBuilder paperContent = new StringBuilder();
+        int questionNumber = 1;
+        for (List<Question> questions : selected) {
+            for (Question q : questions) {
+                paperContent.append("Q").append(questionNumber++).append(". ").append(q.getQuestionText())
+                        .append(" (Marks: ").append(q.getMarks()).append(")\n");
+            }
+        }
+        return paperContent.toString();
+    }
+
+    private static void commit(PaperGenerationEvent event, String phase, UUID blueprintId, int questions) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.blueprintId = blueprintId != null ? blueprintId.toString() : null;
+            event.questions = questions;
+            event.commit();
+        }
+    }
+}
@@ -3,7 +3,8 @@ package com.qngenius.service;
 import com.qngenius.model.Question;
 import com.qngenius.model.BlueprintCriteria;
 import com.qngenius.util.DatabaseUtil;
-import com.qngenius.exception.QuestionServiceException;
+import com.qngenius.util.MetricsRegistry;
+import com.qngenius.util.jfr.PaperGenerationEvent;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -18,6 +19,7 @@ public class QuestionService {
     
     private static final Logger LOGGER = Logger.getLogger(QuestionService.class.getName());
     private static QuestionService instance;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
     
     private QuestionService() {}
     
@@ -32,6 +34,7 @@ public class QuestionService {
      * Saves a list of questions to the database with validation
      */
     public void saveQuestions(List<Question> questions, UUID userId) throws QuestionServiceException {
+        long start = System.nanoTime();
         if (questions == null || questions.isEmpty()) {
             throw new QuestionServiceException("Question list cannot be null or empty");
         }
@@ -45,6 +48,8 @@ public class QuestionService {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to save questions to database", e);
             throw new QuestionServiceException("Failed to save questions: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("QuestionService.saveQuestions").recordSince(start);
         }
     }
 
@@ -52,6 +57,10 @@ public class QuestionService {
      * Retrieves questions based on criteria with fallback options
      */
     public List<Question> getQuestionsByCriteria(UUID subjectId, BlueprintCriteria criteria) throws QuestionServiceException {
+        long start = System.nanoTime();
+        PaperGenerationEvent event = new PaperGenerationEvent();
+        event.begin();
+        int fetched = 0;
         try {
             List<Question> questions = DatabaseUtil.getQuestionsByCriteria(subjectId, criteria);
             
@@ -63,10 +72,19 @@ public class QuestionService {
                 questions = getQuestionsWithRelaxedCriteria(subjectId, criteria);
             }
             
+            fetched = questions.size();
             return questions;
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to retrieve questions by criteria", e);
             throw new QuestionServiceException("Failed to retrieve questions: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("QuestionService.getQuestionsByCriteria").recordSince(start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.phase = PaperGenerationEvent.CANDIDATE_FETCH;
+                event.questions = fetched;
+                event.commit();
+            }
         }
     }
 
@@ -74,16 +92,15 @@ public class QuestionService {
      * Search questions with multiple filters
      */
     public List<Question> searchQuestions(QuestionSearchCriteria searchCriteria) throws QuestionServiceException {
+        long start = System.nanoTime();
         try {
-            List<Question> allQuestions = DatabaseUtil.getFullQuestions();
-            
-            return allQuestions.stream()
-                .filter(q -> matchesSearchCriteria(q, searchCriteria))
-                .collect(Collectors.toList());
-                
+            return filterQuestions(DatabaseUtil.getFullQuestions(), searchCriteria);
+
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to search questions", e);
             throw new QuestionServiceException("Failed to search questions: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("QuestionService.searchQuestions").recordSince(start);
         }
     }
 
@@ -91,12 +108,15 @@ public class QuestionService {
      * Get question statistics by subject
      */
     public QuestionStatistics getQuestionStatistics(UUID subjectId) throws QuestionServiceException {
+        long start = System.nanoTime();
         try {
             List<Question> questions = getQuestionsBySubject(subjectId);
             return calculateStatistics(questions);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to get question statistics", e);
             throw new QuestionServiceException("Failed to get statistics: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("QuestionService.getQuestionStatistics").recordSince(start);
         }
     }
 
@@ -104,6 +124,7 @@ public class QuestionService {
      * Validate individual question for duplicates
      */
     public boolean isDuplicateQuestion(Question question, UUID subjectId) throws QuestionServiceException {
+        long start = System.nanoTime();
         try {
             List<Question> existingQuestions = getQuestionsBySubject(subjectId);
             
@@ -113,6 +134,8 @@ public class QuestionService {
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Failed to check for duplicate questions", e);
             throw new QuestionServiceException("Failed to check duplicates: " + e.getMessage(), e);
+        } finally {
+            metrics.operation("QuestionService.isDuplicateQuestion").recordSince(start);
         }
     }
 
@@ -155,7 +178,16 @@ public class QuestionService {
         return DatabaseUtil.getQuestionsByCriteria(subjectId, criteria);
     }
 
-    private boolean matchesSearchCriteria(Question question, QuestionSearchCriteria criteria) {
+    /**
+     * Applies the search filters to questions already in memory
+     */
+    public static List<Question> filterQuestions(List<Question> questions, QuestionSearchCriteria criteria) {
+        return questions.stream()
+            .filter(q -> matchesSearchCriteria(q, criteria))
+            .collect(Collectors.toList());
+    }
+
+    private static boolean matchesSearchCriteria(Question question, QuestionSearchCriteria criteria) {
         if (criteria.getQuestionType() != null && !criteria.getQuestionType().equals(question.getQuestionType())) {
             return false;
         }
@@ -174,7 +206,7 @@ public class QuestionService {
         return true;
     }
 
-    private boolean containsKeywords(Question question, String keywords) {
+    private static boolean containsKeywords(Question question, String keywords) {
         String questionText = question.getQuestionText().toLowerCase();
         String questionKeywords = question.getKeywords() != null ? question.getKeywords().toLowerCase() : "";
         String searchTerms = keywords.toLowerCase();
@@ -189,56 +221,17 @@ public class QuestionService {
     }
 
     private List<Question> getQuestionsBySubject(UUID subjectId) throws SQLException {
-        // This method would need to be implemented in DatabaseUtil
-        // For now, returning all questions (you'll need to modify this)
-        return DatabaseUtil.getFullQuestions().stream()
-            .filter(q -> q.getUnitId() != null) // Basic filter, needs proper subject relationship
-            .collect(Collectors.toList());
+        return DatabaseUtil.getQuestionsBySubject(subjectId);
     }
 
     private boolean isSimilarQuestion(Question q1, Question q2) {
-        // Simple similarity check - can be enhanced with more sophisticated algorithms
-        String text1 = q1.getQuestionText().toLowerCase().trim();
-        String text2 = q2.getQuestionText().toLowerCase().trim();
-        
-        // Check for exact match
-        if (text1.equals(text2)) {
-            return true;
-        }
-        
-        // Check for high similarity (more than 80% similar)
-        double similarity = calculateSimilarity(text1, text2);
-        return similarity > 0.8;
-    }
-
-    private double calculateSimilarity(String s1, String s2) {
-        // Simple Levenshtein distance-based similarity
-        int distance = levenshteinDistance(s1, s2);
-        int maxLength = Math.max(s1.length(), s2.length());
-        return maxLength == 0 ? 1.0 : 1.0 - (double) distance / maxLength;
+        return QuestionSimilarityIndex.isSimilar(q1.getQuestionText(), q2.getQuestionText());
     }
 
-    private int levenshteinDistance(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
-        
-        for (int i = 0; i <= s1.length(); i++) {
-            for (int j = 0; j <= s2.length(); j++) {
-                if (i == 0) {
-                    dp[i][j] = j;
-                } else if (j == 0) {
-                    dp[i][j] = i;
-                } else {
-                    dp[i][j] = Math.min(
-                        dp[i-1][j-1] + (s1.charAt(i-1) == s2.charAt(j-1) ? 0 : 1),
-                        Math.min(dp[i-1][j] + 1, dp[i][j-1] + 1)
-                    );
-                }
-            }
-        }
-        return dp[s1.length()][s2.length()];
-    }
-
-    private QuestionStatistics calculateStatistics(List<Question> questions) {
+    /**
+     * Counts questions and marks by type, difficulty and Bloom level
+     */
+    public static QuestionStatistics calculateStatistics(List<Question> questions) {
         Map<String, Integer> typeCount = new HashMap<>();
         Map<String, Integer> difficultyCount = new HashMap<>();
         Map<String, Integer> bloomCount = new HashMap<>();
@@ -0,0 +1,222 @@
+package com.qngenius.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory index of question texts for duplicate detection.
+ *
+ * Exact matches on normalized text are a hash lookup. Near matches (Levenshtein similarity
+ * above {@link #SIMILARITY_THRESHOLD}) are found through a character-trigram inverted index:
+ * a text within the allowed edit distance must share a minimum number of distinct trigrams
+ * with the query, so only the postings of its rarest trigrams need probing, and only the
+ * resulting candidates are compared with a bounded edit distance.
+ *
+ * Not thread-safe for writes. Once fully built, concurrent lookups are safe.
+ *
+ * @param <K> identifies where an indexed text came from, e.g. a question id or a file row
+ */
+public class QuestionSimilarityIndex<K> {
+
+    public static final double SIMILARITY_THRESHOLD = 0.8;
+    private static final int GRAM = 3;
+
+    private final Map<String, K> exactTexts = new HashMap<>();
+    private final List<String> texts = new ArrayList<>();
+    private final List<K> keys = new ArrayList<>();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final TreeMap<Integer, IntList> idsByLength = new TreeMap<>();
+
+    public void add(K key, String questionText) {
+        String text = normalize(questionText);
+        if (text.isEmpty()) {
+            return;
+        }
+
+        exactTexts.putIfAbsent(text, key);
+        int id = texts.size();
+        texts.add(text);
+        keys.add(key);
+
+        for (long gram : distinctTrigrams(text)) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+        }
+        idsByLength.computeIfAbsent(text.length(), l -> new IntList()).add(id);
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * Returns the key of an indexed text that equals or is similar to the given text, or null
+     */
+    public K findDuplicate(String questionText) {
+        String text = normalize(questionText);
+        if (text.isEmpty()) {
+            return null;
+        }
+
+        K exact = exactTexts.get(text);
+        if (exact != null) {
+            return exact;
+        }
+
+        int length = text.length();
+        int minLength = length - maxDistance(length);
+        int maxLength = length;
+        while (maxLength + 1 - length <= maxDistance(maxLength + 1)) {
+            maxLength++;
+        }
+
+        long[] grams = distinctTrigrams(text);
+        // Each edit destroys at most GRAM of the query's trigrams
+        int minShared = grams.length - GRAM * maxDistance(maxLength);
+
+        if (minShared <= 0) {
+            // Too short for the trigram filter to exclude anything; compare by length alone
+            for (IntList ids : idsByLength.subMap(minLength, true, maxLength, true).values()) {
+                for (int i = 0; i < ids.size; i++) {
+                    K match = compare(text, ids.values[i]);
+                    if (match != null) {
+                        return match;
+                    }
+                }
+            }
+            return null;
+        }
+
+        // Any text sharing minShared trigrams shares at least one of the (grams - minShared + 1) rarest
+        IntList[] gramPostings = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            gramPostings[i] = postings.get(grams[i]);
+        }
+        Arrays.sort(gramPostings, (a, b) -> Integer.compare(a == null ? 0 : a.size, b == null ? 0 : b.size));
+
+        Set<Integer> visited = new HashSet<>();
+        int probes = grams.length - minShared + 1;
+        for (int p = 0; p < probes; p++) {
+            IntList ids = gramPostings[p];
+            if (ids == null) {
+                continue;
+            }
+            for (int i = 0; i < ids.size; i++) {
+                int id = ids.values[i];
+                int candidateLength = texts.get(id).length();
+                if (candidateLength < minLength || candidateLength > maxLength || !visited.add(id)) {
+                    continue;
+                }
+                K match = compare(text, id);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+        return null;
+    }
+
+    public static String normalize(String questionText) {
+        if (questionText == null) {
+            return "";
+        }
+        return questionText.trim().replaceAll("\\s+", " ").toLowerCase();
+    }
+
+    /**
+     * Similarity check used across the application: exact match or more than 80% similar by edit distance
+     */
+    public static boolean isSimilar(String questionText1, String questionText2) {
+        String text1 = normalize(questionText1);
+        String text2 = normalize(questionText2);
+        if (text1.equals(text2)) {
+            return true;
+        }
+        int maxLength = Math.max(text1.length(), text2.length());
+        int distance = boundedLevenshtein(text1, text2, maxDistance(maxLength));
+        return 1.0 - (double) distance / maxLength > SIMILARITY_THRESHOLD;
+    }
+
+    private K compare(String text, int id) {
+        String candidate = texts.get(id);
+        int maxLength = Math.max(text.length(), candidate.length());
+        int distance = boundedLevenshtein(text, candidate, maxDistance(maxLength));
+        return 1.0 - (double) distance / maxLength > SIMILARITY_THRESHOLD ? keys.get(id) : null;
+    }
+
+    // Largest edit distance that still leaves similarity above the threshold
+    static int maxDistance(int maxLength) {
+        return Math.max(0, (int) Math.ceil((1 - SIMILARITY_THRESHOLD) * maxLength) - 1);
+    }
+
+    /**
+     * Levenshtein distance, or any value greater than {@code bound} once the distance is known to exceed it
+     */
+    static int boundedLevenshtein(String s1, String s2, int bound) {
+        if (Math.abs(s1.length() - s2.length()) > bound) {
+            return bound + 1;
+        }
+
+        int[] previous = new int[s2.length() + 1];
+        int[] current = new int[s2.length() + 1];
+        for (int j = 0; j <= s2.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= s1.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char c1 = s1.charAt(i - 1);
+            for (int j = 1; j <= s2.length(); j++) {
+                current[j] = Math.min(
+                    previous[j - 1] + (c1 == s2.charAt(j - 1) ? 0 : 1),
+                    Math.min(previous[j] + 1, current[j - 1] + 1)
+                );
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[s2.length()];
+    }
+
+    private static long[] distinctTrigrams(String text) {
+        if (text.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
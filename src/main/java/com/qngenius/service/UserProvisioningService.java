@@ -0,0 +1,230 @@
+package com.qngenius.service;
+
+import com.qngenius.model.User;
+import com.qngenius.service.importer.StreamingCsvReader;
+import com.qngenius.util.ConfigManager;
+import com.qngenius.util.EnhancedDatabaseUtil;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Creates user accounts in bulk from a CSV file with the columns
+ * {@code username, password, role, groups}, where groups are separated by semicolons.
+ *
+ * BCrypt is deliberately slow, so hashing dominates: every password is hashed on a pool with
+ * one thread per core while the main thread inserts finished batches in file order, so the
+ * database writes overlap with the hashing still in progress. Usernames repeated in the file
+ * or already taken are reported and skipped, not inserted.
+ */
+public class UserProvisioningService {
+
+    private static final Logger LOGGER = Logger.getLogger(UserProvisioningService.class.getName());
+    private static final int BATCH_SIZE = 200;
+    private static final int MIN_PASSWORD_LENGTH = 8;
+    private static final Set<String> ROLES = new HashSet<>(Arrays.asList(
+        "admin", "coe", "controller", "teacher", "faculty", "student"
+    ));
+
+    private static UserProvisioningService instance;
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    private final int hashThreads;
+
+    private UserProvisioningService() {
+        this.hashThreads = Math.max(1, ConfigManager.getInstance().getAuthVerifyThreads());
+    }
+
+    public static synchronized UserProvisioningService getInstance() {
+        if (instance == null) {
+            instance = new UserProvisioningService();
+        }
+        return instance;
+    }
+
+    /**
+     * @param listener receives the number of rows finished and the total; may be null
+     */
+    public ProvisioningResult provision(File csvFile, ProgressListener listener)
+            throws IOException, SQLException, InterruptedException {
+        long start = System.nanoTime();
+        ProvisioningResult result = new ProvisioningResult();
+
+        List<UserRow> rows = readRows(csvFile, result);
+        Set<String> existing = EnhancedDatabaseUtil.findExistingUsernames(
+                rows.stream().map(row -> row.username).collect(Collectors.toList()));
+        List<UserRow> pending = new ArrayList<>(rows.size());
+        for (UserRow row : rows) {
+            if (existing.contains(row.username)) {
+                result.existing.add(row.username);
+            } else {
+                pending.add(row);
+            }
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService hashPool = Executors.newFixedThreadPool(hashThreads, runnable -> {
+            Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long hashNanos = 0;
+        try {
+            List<Future<String>> hashes = new ArrayList<>(pending.size());
+            for (UserRow row : pending) {
+                hashes.add(hashPool.submit(() -> passwordEncoder.encode(row.password)));
+            }
+
+            for (int from = 0; from < pending.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, pending.size());
+                List<User> batch = new ArrayList<>(to - from);
+                Map<String, List<String>> groups = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    UserRow row = pending.get(i);
+                    batch.add(new User(null, row.username, null, awaitHash(hashes.get(i)), row.role, null));
+                    groups.put(row.username, row.groups);
+                }
+                hashNanos = System.nanoTime() - start;
+
+                Map<String, UUID> inserted = EnhancedDatabaseUtil.provisionUsers(batch, groups);
+                result.created += inserted.size();
+                for (User user : batch) {
+                    if (!inserted.containsKey(user.getUsername())) {
+                        // Taken by someone else since the existence check
+                        result.existing.add(user.getUsername());
+                    }
+                }
+                if (listener != null) {
+                    listener.onProgress(to, pending.size());
+                }
+            }
+        } finally {
+            hashPool.shutdownNow();
+        }
+
+        result.hashed = pending.size();
+        result.elapsedNanos = System.nanoTime() - start;
+        result.hashNanos = hashNanos;
+        LOGGER.info("User provisioning finished: " + result.getSummary());
+        return result;
+    }
+
+    private List<UserRow> readRows(File csvFile, ProvisioningResult result) throws IOException {
+        List<UserRow> rows = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        // The reader pads every row to the question column count, so the four columns are always present
+        new StreamingCsvReader().read(csvFile, (lineNumber, cells) -> {
+            String username = trim(cells[0]);
+            String password = cells[1] != null ? cells[1] : "";
+            String role = trim(cells[2]).toLowerCase();
+
+            String error = null;
+            if (username.isEmpty()) {
+                error = "username is required";
+            } else if (password.length() < MIN_PASSWORD_LENGTH) {
+                error = "password must be at least " + MIN_PASSWORD_LENGTH + " characters";
+            } else if (!role.isEmpty() && !ROLES.contains(role)) {
+                error = "unknown role '" + role + "'";
+            }
+            if (error != null) {
+                result.errors.add("Line " + lineNumber + ": " + error);
+                return;
+            }
+            if (!seen.add(username)) {
+                result.fileDuplicates.add(username);
+                return;
+            }
+
+            Set<String> groups = new LinkedHashSet<>();
+            for (String group : trim(cells[3]).split(";")) {
+                if (!group.trim().isEmpty()) {
+                    groups.add(group.trim());
+                }
+            }
+            rows.add(new UserRow(username, password, role.isEmpty() ? "student" : role, new ArrayList<>(groups)));
+        });
+
+        return rows;
+    }
+
+    private static String awaitHash(Future<String> hash) throws InterruptedException {
+        try {
+            return hash.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private static String trim(String value) {
+        return value != null ? value.trim() : "";
+    }
+
+    private static class UserRow {
+        private final String username;
+        private final String password;
+        private final String role;
+        private final List<String> groups;
+
+        UserRow(String username, String password, String role, List<String> groups) {
+            this.username = username;
+            this.password = password;
+            this.role = role;
+            this.groups = groups;
+        }
+    }
+
+    public interface ProgressListener {
+        void onProgress(int done, int total);
+    }
+
+    public static class ProvisioningResult {
+        private int created;
+        private int hashed;
+        private long elapsedNanos;
+        private long hashNanos;
+        private final List<String> existing = new ArrayList<>();
+        private final List<String> fileDuplicates = new ArrayList<>();
+        private final List<String> errors = new ArrayList<>();
+
+        public int getCreated() { return created; }
+        public List<String> getExistingUsernames() { return existing; }
+        public List<String> getFileDuplicates() { return fileDuplicates; }
+        public List<String> getErrors() { return errors; }
+
+        public double getUsersPerSecond() {
+            return elapsedNanos > 0 ? created / (elapsedNanos / 1_000_000_000.0) : 0;
+        }
+
+        // Time until the last password was hashed, so this excludes the final insert
+        public double getHashesPerSecond() {
+            return hashNanos > 0 ? hashed / (hashNanos / 1_000_000_000.0) : 0;
+        }
+
+        public String getSummary() {
+            return String.format("%d users created, %d already existed, %d repeated in file, %d invalid rows; "
+                    + "%.1fs total, %.0f users/s, %.0f hashes/s",
+                    created, existing.size(), fileDuplicates.size(), errors.size(),
+                    elapsedNanos / 1_000_000_000.0, getUsersPerSecond(), getHashesPerSecond());
+        }
+    }
+}
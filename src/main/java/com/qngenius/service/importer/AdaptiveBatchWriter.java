@@ -0,0 +1,280 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.util.jfr.ImportStageEvent;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+/**
+ * Write stage that commits rows on its own thread, so database round trips overlap with
+ * parsing and validation upstream.
+ *
+ * Rows handed to {@link #accept} are queued and grouped into batches by the writer thread.
+ * The batch size is tuned by hill climbing on observed throughput: it keeps moving in the same
+ * direction while rows per second improve and reverses when they drop. A commit that times out
+ * halves the batch size and the same rows are retried in smaller batches. When rows arrive
+ * more slowly than they can be written, a partial batch is committed after a short linger
+ * and the size is left alone, since that commit says nothing about the database.
+ */
+public class AdaptiveBatchWriter implements RowSink {
+
+    private static final Logger LOGGER = Logger.getLogger(AdaptiveBatchWriter.class.getName());
+    private static final long POLL_MILLIS = 50;
+    private static final long LINGER_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int MIN_BATCH_SIZE = 10;
+    private static final double GROWTH_FACTOR = 1.5;
+    // Throughput changes smaller than this are treated as noise
+    private static final double TOLERANCE = 0.10;
+    private static final int MAX_CONSECUTIVE_TIMEOUTS = 3;
+    private static final String QUERY_CANCELED_STATE = "57014";
+
+    private static final QuestionImportRow END_OF_ROWS = new QuestionImportRow();
+
+    private final BatchCommitter committer;
+    private final int maxBatchSize;
+    private final int timeoutSeconds;
+    private final BlockingQueue<QuestionImportRow> queue;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final Thread thread;
+    private volatile boolean cancelled;
+
+    // Owned by the writer thread; volatile so progress can be read from elsewhere
+    private volatile int batchSize;
+    private volatile long rowsWritten;
+    private volatile int batches;
+    private volatile int timeouts;
+    private volatile long commitNanos;
+    private volatile long waitNanos;
+    private final int initialBatchSize;
+    private int largestBatchSize;
+    private int direction = 1;
+    private double lastRowsPerSecond;
+    private long startNanos;
+    private long finishNanos;
+
+    public AdaptiveBatchWriter(BatchCommitter committer, int initialBatchSize, int maxBatchSize, int timeoutSeconds) {
+        this.committer = committer;
+        this.maxBatchSize = Math.max(MIN_BATCH_SIZE, maxBatchSize);
+        this.initialBatchSize = clamp(initialBatchSize);
+        this.batchSize = this.initialBatchSize;
+        this.largestBatchSize = this.initialBatchSize;
+        this.timeoutSeconds = timeoutSeconds;
+        this.queue = new ArrayBlockingQueue<>(this.maxBatchSize * 2);
+        this.thread = new Thread(this::writeLoop, "import-writer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+        thread.start();
+    }
+
+    @Override
+    public void accept(QuestionImportRow row) throws Exception {
+        put(row);
+    }
+
+    /**
+     * Waits until every queued row is committed, rethrowing the writer's failure if there was one
+     */
+    @Override
+    public void finish() throws Exception {
+        put(END_OF_ROWS);
+        thread.join();
+        checkFailure();
+    }
+
+    /**
+     * Stops the writer after its current commit and waits for the thread to exit. Rows still
+     * queued are dropped; they are picked up again when the import is resumed.
+     */
+    public void abort() throws InterruptedException {
+        cancelled = true;
+        if (thread.isAlive()) {
+            thread.join();
+        }
+    }
+
+    public int getBatchSize() { return batchSize; }
+    public long getRowsWritten() { return rowsWritten; }
+    public int getBatches() { return batches; }
+    public int getTimeouts() { return timeouts; }
+
+    @Override
+    public String toString() {
+        long elapsed = (finishNanos > 0 ? finishNanos : System.nanoTime()) - startNanos;
+        double seconds = elapsed / 1_000_000_000.0;
+        return String.format("db write: %,d rows in %,d batches, %,.0f rows/s, batch size %d -> %d (max %d), "
+                + "%d timeouts, %.1fs committing, %.1fs waiting for input",
+                rowsWritten, batches, seconds > 0 ? rowsWritten / seconds : 0.0,
+                initialBatchSize, batchSize, largestBatchSize, timeouts,
+                commitNanos / 1_000_000_000.0, waitNanos / 1_000_000_000.0);
+    }
+
+    private void writeLoop() {
+        List<QuestionImportRow> batch = new ArrayList<>();
+        Deque<QuestionImportRow> retry = new ArrayDeque<>();
+        boolean endOfInput = false;
+        int consecutiveTimeouts = 0;
+
+        try {
+            while (!cancelled && !(endOfInput && retry.isEmpty())) {
+                while (batch.size() < batchSize && !retry.isEmpty()) {
+                    batch.add(retry.pollFirst());
+                }
+                endOfInput = fill(batch, endOfInput);
+                if (batch.isEmpty() || cancelled) {
+                    continue;
+                }
+
+                boolean full = batch.size() >= batchSize;
+                ImportStageEvent event = new ImportStageEvent();
+                event.begin();
+                long start = System.nanoTime();
+                try {
+                    committer.commit(batch, timeoutSeconds);
+                } catch (SQLException e) {
+                    commitEvent(event, "commit (failed)", batch.size());
+                    if (!isTimeout(e) || ++consecutiveTimeouts > MAX_CONSECUTIVE_TIMEOUTS) {
+                        throw e;
+                    }
+                    timeouts++;
+                    shrinkAfterTimeout();
+                    LOGGER.warning("Import commit of " + batch.size() + " rows timed out; retrying with batches of "
+                            + batchSize);
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        retry.addFirst(batch.get(i));
+                    }
+                    batch.clear();
+                    continue;
+                }
+                long elapsed = System.nanoTime() - start;
+                commitEvent(event, "commit", batch.size());
+
+                consecutiveTimeouts = 0;
+                commitNanos += elapsed;
+                rowsWritten += batch.size();
+                batches++;
+                if (full) {
+                    adapt(batch.size(), elapsed);
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new CancellationException("Import writer interrupted"));
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            finishNanos = System.nanoTime();
+            LOGGER.info("Import writer finished: " + this);
+        }
+    }
+
+    private static void commitEvent(ImportStageEvent event, String stage, int rows) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stage;
+            event.rows = rows;
+            event.workers = 1;
+            event.commit();
+        }
+    }
+
+    /**
+     * Tops the batch up from the queue until it is full, input ends, or a partial batch has
+     * lingered long enough
+     *
+     * @return whether end of input has been reached
+     */
+    private boolean fill(List<QuestionImportRow> batch, boolean endOfInput) throws InterruptedException {
+        long lingerDeadline = System.nanoTime() + LINGER_NANOS;
+        while (!endOfInput && batch.size() < batchSize && !cancelled) {
+            QuestionImportRow row = queue.poll();
+            if (row == null) {
+                long waitStart = System.nanoTime();
+                row = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                waitNanos += System.nanoTime() - waitStart;
+                if (row == null) {
+                    if (!batch.isEmpty() && System.nanoTime() >= lingerDeadline) {
+                        break;
+                    }
+                    continue;
+                }
+            }
+            if (row == END_OF_ROWS) {
+                return true;
+            }
+            batch.add(row);
+        }
+        return endOfInput;
+    }
+
+    private void adapt(int rows, long elapsedNanos) {
+        double rowsPerSecond = rows / Math.max(elapsedNanos / 1_000_000_000.0, 1e-9);
+        if (lastRowsPerSecond > 0 && rowsPerSecond < lastRowsPerSecond * (1 - TOLERANCE)) {
+            direction = -direction;
+        }
+        lastRowsPerSecond = rowsPerSecond;
+
+        int next = direction > 0
+                ? (int) Math.ceil(batchSize * GROWTH_FACTOR)
+                : (int) Math.floor(batchSize / GROWTH_FACTOR);
+        batchSize = clamp(next);
+        largestBatchSize = Math.max(largestBatchSize, batchSize);
+    }
+
+    private void shrinkAfterTimeout() {
+        batchSize = clamp(batchSize / 2);
+        direction = -1;
+        lastRowsPerSecond = 0;
+    }
+
+    private int clamp(int size) {
+        return Math.max(MIN_BATCH_SIZE, Math.min(maxBatchSize, size));
+    }
+
+    private static boolean isTimeout(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current instanceof SQLTimeoutException || QUERY_CANCELED_STATE.equals(current.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void put(QuestionImportRow row) throws Exception {
+        while (!queue.offer(row, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+            if (!thread.isAlive()) {
+                throw new IllegalStateException("Import writer is not running");
+            }
+        }
+    }
+
+    private void checkFailure() throws Exception {
+        Exception error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Commits one batch in a single transaction. Must be idempotent for rows that were already
+     * committed, since a timed-out batch is retried.
+     */
+    @FunctionalInterface
+    public interface BatchCommitter {
+        void commit(List<QuestionImportRow> batch, int timeoutSeconds) throws SQLException;
+    }
+}
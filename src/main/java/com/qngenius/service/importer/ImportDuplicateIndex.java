@@ -0,0 +1,109 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.model.Question;
+import com.qngenius.service.QuestionSimilarityIndex;
+import com.qngenius.util.DatabaseUtil;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Import-scoped duplicate detection. The target subject's questions are loaded once when the
+ * import starts, instead of re-reading the bank for every row; rows are then checked against
+ * that snapshot and against the rows of the same file seen so far.
+ *
+ * Every row is checked, invalid ones too, so that an invalid row which repeats a question is
+ * not imported when invalid rows are; its validation message is kept in the duplicate note.
+ * Only valid rows are added to the file's index, so a valid row is never held back by an
+ * invalid one that may be skipped. Whether a row repeats an earlier one depends on the rows
+ * checked before it, so the pipeline runs this check in file order and the first occurrence is
+ * always the one kept, in the preview and the import alike.
+ */
+public class ImportDuplicateIndex implements ImportPipeline.DuplicateCheck {
+
+    private static final Logger LOGGER = Logger.getLogger(ImportDuplicateIndex.class.getName());
+    private static final int PREVIEW_LENGTH = 60;
+
+    private final QuestionSimilarityIndex<UUID> bankIndex;
+    private final Map<UUID, String> bankTexts;
+    private final QuestionSimilarityIndex<Integer> fileIndex = new QuestionSimilarityIndex<>();
+    private final AtomicInteger bankDuplicates = new AtomicInteger();
+    private final AtomicInteger fileDuplicates = new AtomicInteger();
+
+    private ImportDuplicateIndex(QuestionSimilarityIndex<UUID> bankIndex, Map<UUID, String> bankTexts) {
+        this.bankIndex = bankIndex;
+        this.bankTexts = bankTexts;
+    }
+
+    /**
+     * Loads the existing questions of a subject. A null subject yields an index that only
+     * detects duplicates within the file.
+     */
+    public static ImportDuplicateIndex load(UUID subjectId) throws SQLException {
+        List<Question> existing = subjectId != null ? DatabaseUtil.getQuestionsBySubject(subjectId) : List.of();
+        return forQuestions(existing);
+    }
+
+    public static ImportDuplicateIndex forQuestions(List<Question> existing) {
+        long start = System.currentTimeMillis();
+        QuestionSimilarityIndex<UUID> bankIndex = new QuestionSimilarityIndex<>();
+        Map<UUID, String> bankTexts = new HashMap<>();
+        for (Question q : existing) {
+            bankIndex.add(q.getQuestionId(), q.getQuestionText());
+            bankTexts.put(q.getQuestionId(), q.getQuestionText());
+        }
+        LOGGER.info(String.format("Duplicate index built from %d existing questions in %d ms",
+                bankIndex.size(), System.currentTimeMillis() - start));
+        return new ImportDuplicateIndex(bankIndex, bankTexts);
+    }
+
+    @Override
+    public boolean isOrderSensitive() {
+        return true;
+    }
+
+    @Override
+    public void check(QuestionImportRow row) {
+        boolean valid = "valid".equalsIgnoreCase(row.getStatus());
+
+        UUID existingId = bankIndex.findDuplicate(row.getQuestionText());
+        if (existingId != null) {
+            bankDuplicates.incrementAndGet();
+            markDuplicate(row, valid, "existing question " + existingId + " \"" + preview(bankTexts.get(existingId)) + "\"");
+            return;
+        }
+
+        Integer earlierRow;
+        synchronized (fileIndex) {
+            earlierRow = fileIndex.findDuplicate(row.getQuestionText());
+            if (earlierRow == null && valid) {
+                fileIndex.add(row.getRowNumber(), row.getQuestionText());
+            }
+        }
+        if (earlierRow != null) {
+            fileDuplicates.incrementAndGet();
+            markDuplicate(row, valid, "row " + earlierRow + " of this file");
+        }
+    }
+
+    public int getBankSize() { return bankIndex.size(); }
+    public int getBankDuplicates() { return bankDuplicates.get(); }
+    public int getFileDuplicates() { return fileDuplicates.get(); }
+
+    private static void markDuplicate(QuestionImportRow row, boolean valid, String duplicateOf) {
+        row.setDuplicateOf(valid ? duplicateOf : duplicateOf + " (" + row.getStatus() + ")");
+        row.setStatus("Duplicate");
+    }
+
+    private static String preview(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.length() <= PREVIEW_LENGTH ? text : text.substring(0, PREVIEW_LENGTH) + "...";
+    }
+}
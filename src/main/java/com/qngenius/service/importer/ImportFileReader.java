@@ -0,0 +1,26 @@
+package com.qngenius.service.importer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Streams the data rows of an import file to an {@link ImportRowHandler}, skipping the header row.
+ */
+public interface ImportFileReader {
+
+    /**
+     * @return the number of rows delivered to the handler
+     */
+    int read(File file, ImportRowHandler handler) throws IOException;
+
+    /**
+     * Picks the reader for a file based on its extension
+     */
+    static ImportFileReader forFile(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".csv") || name.endsWith(".tsv") || name.endsWith(".txt")) {
+            return new StreamingCsvReader();
+        }
+        return new StreamingExcelReader();
+    }
+}
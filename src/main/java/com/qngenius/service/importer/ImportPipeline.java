@@ -0,0 +1,358 @@
+package com.qngenius.service.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Staged producer-consumer import: parse -> validate -> dedupe -> write.
+ *
+ * The source is parsed on the calling thread. Validation runs on several workers, and so do
+ * duplicate checks unless the check is order-sensitive, in which case a single worker checks
+ * the rows in file order; the write stage is a single {@link RowSink}. Stages are connected by
+ * bounded queues, so a slow stage applies back-pressure to the parser instead of letting rows
+ * pile up in memory. Rows may reach the sink out of file order.
+ */
+public class ImportPipeline {
+
+    private static final Logger LOGGER = Logger.getLogger(ImportPipeline.class.getName());
+    private static final long QUEUE_POLL_MILLIS = 100;
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+    private static final long PROGRESS_LOG_INTERVAL_MILLIS = 2000;
+
+    private static final RawRow END_OF_RAW_ROWS = new RawRow(-1, null);
+    private static final QuestionImportRow END_OF_ROWS = new QuestionImportRow();
+
+    private final ImportSource source;
+    private final QuestionImportValidator validator;
+    private final DuplicateCheck duplicateCheck;
+    private final RowSink sink;
+
+    private int validateWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int dedupeWorkers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    private int queueCapacity = 1024;
+    private Consumer<String> progressLog;
+
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    // Row numbers in parse order, and validated rows waiting for an earlier one, for an order-sensitive check
+    private final Queue<Integer> parseOrder = new ConcurrentLinkedQueue<>();
+    private final Map<Integer, QuestionImportRow> outOfOrderRows = new HashMap<>();
+    private final List<ImportStageMetrics> stageMetrics = new ArrayList<>();
+
+    /**
+     * @param duplicateCheck may be null to skip duplicate detection
+     */
+    public ImportPipeline(ImportSource source, QuestionImportValidator validator,
+                          DuplicateCheck duplicateCheck, RowSink sink) {
+        this.source = source;
+        this.validator = validator;
+        this.duplicateCheck = duplicateCheck;
+        this.sink = sink;
+    }
+
+    public void setValidateWorkers(int validateWorkers) { this.validateWorkers = Math.max(1, validateWorkers); }
+    public void setDedupeWorkers(int dedupeWorkers) { this.dedupeWorkers = Math.max(1, dedupeWorkers); }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = Math.max(1, queueCapacity); }
+    public void setProgressLog(Consumer<String> progressLog) { this.progressLog = progressLog; }
+
+    public List<ImportStageMetrics> getStageMetrics() {
+        return new ArrayList<>(stageMetrics);
+    }
+
+    public void cancel() {
+        failure.compareAndSet(null, new CancellationException("Import cancelled"));
+    }
+
+    /**
+     * Runs all stages to completion. The first exception thrown by any stage aborts the
+     * pipeline and is rethrown here.
+     */
+    public void run() throws Exception {
+        BlockingQueue<RawRow> validateQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<QuestionImportRow> dedupeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<QuestionImportRow> writeQueue = new ArrayBlockingQueue<>(queueCapacity);
+        boolean inFileOrder = duplicateCheck != null && duplicateCheck.isOrderSensitive();
+        int dedupeWorkers = inFileOrder ? 1 : this.dedupeWorkers;
+        parseOrder.clear();
+        outOfOrderRows.clear();
+
+        ImportStageMetrics parseMetrics = new ImportStageMetrics("parse", 1);
+        ImportStageMetrics validateMetrics = new ImportStageMetrics("validate", validateWorkers);
+        ImportStageMetrics dedupeMetrics = new ImportStageMetrics("dedupe", dedupeWorkers);
+        ImportStageMetrics writeMetrics = new ImportStageMetrics("write", 1);
+        stageMetrics.clear();
+        stageMetrics.addAll(Arrays.asList(parseMetrics, validateMetrics, dedupeMetrics, writeMetrics));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(validateWorkers + dedupeWorkers + 2, runnable -> {
+            Thread thread = new Thread(runnable, "import-pipeline-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        CountDownLatch done = new CountDownLatch(1);
+
+        try {
+            startStage(executor, validateMetrics, validateWorkers, validateQueue, END_OF_RAW_ROWS,
+                    dedupeQueue, END_OF_ROWS, dedupeWorkers, done, this::validate);
+            startStage(executor, dedupeMetrics, dedupeWorkers, dedupeQueue, END_OF_ROWS,
+                    writeQueue, END_OF_ROWS, 1, done,
+                    inFileOrder ? row -> dedupeInFileOrder(row, writeQueue) : this::dedupe);
+            startStage(executor, writeMetrics, 1, writeQueue, END_OF_ROWS,
+                    null, null, 0, done, this::write);
+            executor.execute(() -> monitor(done, validateQueue, dedupeQueue, writeQueue));
+
+            parse(parseMetrics, validateQueue, inFileOrder);
+            for (int i = 0; i < validateWorkers; i++) {
+                put(validateQueue, END_OF_RAW_ROWS);
+            }
+
+            while (!done.await(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Exception error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+
+        LOGGER.info("Import pipeline finished:\n" + formatMetrics());
+    }
+
+    public String formatMetrics() {
+        StringBuilder sb = new StringBuilder();
+        for (ImportStageMetrics metrics : stageMetrics) {
+            if (sb.length() > 0) {
+                sb.append('\n');
+            }
+            sb.append("  ").append(metrics);
+        }
+        return sb.toString();
+    }
+
+    private void parse(ImportStageMetrics metrics, BlockingQueue<RawRow> output, boolean recordOrder) throws Exception {
+        metrics.started();
+        long[] lastEmit = {System.nanoTime()};
+        try {
+            source.read((rowNumber, cells) -> {
+                // Time spent inside the reader since the previous row, excluding back-pressure waits
+                metrics.recordRow(System.nanoTime() - lastEmit[0]);
+                if (recordOrder) {
+                    parseOrder.add(rowNumber);
+                }
+                put(output, new RawRow(rowNumber, cells));
+                lastEmit[0] = System.nanoTime();
+            });
+        } finally {
+            metrics.finished();
+        }
+    }
+
+    private QuestionImportRow validate(RawRow raw) {
+        try {
+            return validator.parseRow(raw.rowNumber, raw.cells);
+        } catch (Exception e) {
+            // Create an invalid row to show the error
+            QuestionImportRow errorRow = new QuestionImportRow();
+            errorRow.setRowNumber(raw.rowNumber);
+            errorRow.setQuestionText("Error parsing row " + raw.rowNumber);
+            errorRow.setStatus("Invalid: " + e.getMessage());
+            return errorRow;
+        }
+    }
+
+    private QuestionImportRow dedupe(QuestionImportRow row) {
+        if (duplicateCheck != null) {
+            try {
+                duplicateCheck.check(row);
+            } catch (Exception e) {
+                LOGGER.log(Level.WARNING, "Failed to check row " + row.getRowNumber() + " for duplicates", e);
+                // Don't fail the import for this
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Parallel validation reorders rows, so each row waits until every row parsed before it has
+     * been checked. Runs on the single dedupe worker and passes rows on itself.
+     */
+    private QuestionImportRow dedupeInFileOrder(QuestionImportRow row, BlockingQueue<QuestionImportRow> output)
+            throws Exception {
+        outOfOrderRows.put(row.getRowNumber(), row);
+        Integer next;
+        QuestionImportRow ready;
+        while ((next = parseOrder.peek()) != null && (ready = outOfOrderRows.remove(next)) != null) {
+            parseOrder.poll();
+            put(output, dedupe(ready));
+        }
+        return null;
+    }
+
+    private QuestionImportRow write(QuestionImportRow row) throws Exception {
+        sink.accept(row);
+        return null;
+    }
+
+    private <I, O> void startStage(ExecutorService executor, ImportStageMetrics metrics, int workers,
+                                   BlockingQueue<I> input, I endOfInput,
+                                   BlockingQueue<O> output, O endOfOutput, int downstreamWorkers,
+                                   CountDownLatch done, StageFunction<I, O> function) {
+        AtomicInteger running = new AtomicInteger(workers);
+        metrics.started();
+
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> {
+                try {
+                    while (true) {
+                        I item = take(input);
+                        if (item == endOfInput) {
+                            break;
+                        }
+                        long start = System.nanoTime();
+                        O result = function.apply(item);
+                        metrics.recordRow(System.nanoTime() - start);
+                        if (output != null && result != null) {
+                            put(output, result);
+                        }
+                    }
+
+                    // The last worker out passes end-of-stream on to every downstream worker
+                    if (running.decrementAndGet() == 0) {
+                        if (output == null) {
+                            sink.finish();
+                        }
+                        metrics.finished();
+                        for (int d = 0; d < downstreamWorkers; d++) {
+                            put(output, endOfOutput);
+                        }
+                        if (output == null) {
+                            done.countDown();
+                        }
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    done.countDown();
+                }
+            });
+        }
+    }
+
+    private void monitor(CountDownLatch done, BlockingQueue<?>... stageInputs) {
+        long lastLog = System.currentTimeMillis();
+        try {
+            while (!done.await(SAMPLE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS) && failure.get() == null) {
+                // Each queue feeds the stage after parse
+                for (int i = 0; i < stageInputs.length; i++) {
+                    stageMetrics.get(i + 1).sampleQueueDepth(stageInputs[i].size());
+                }
+
+                long now = System.currentTimeMillis();
+                if (progressLog != null && now - lastLog >= PROGRESS_LOG_INTERVAL_MILLIS) {
+                    lastLog = now;
+                    progressLog.accept(formatProgress(stageInputs));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String formatProgress(BlockingQueue<?>[] stageInputs) {
+        StringBuilder sb = new StringBuilder("Pipeline progress:");
+        for (int i = 0; i < stageMetrics.size(); i++) {
+            ImportStageMetrics metrics = stageMetrics.get(i);
+            sb.append(String.format(" %s=%,d (%,.0f/s", metrics.getStageName(),
+                    metrics.getRowsProcessed(), metrics.getRowsPerSecond()));
+            if (i > 0) {
+                sb.append(", queued ").append(stageInputs[i - 1].size());
+            }
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+
+    // Bounded waits so that every stage notices an abort from another stage promptly
+    private <T> void put(BlockingQueue<T> queue, T item) throws Exception {
+        while (!queue.offer(item, QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkFailure();
+        }
+    }
+
+    private <T> T take(BlockingQueue<T> queue) throws Exception {
+        T item;
+        while ((item = queue.poll(QUEUE_POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkFailure();
+        }
+        return item;
+    }
+
+    private void checkFailure() throws Exception {
+        Exception error = failure.get();
+        if (error != null) {
+            throw new CancellationException("Import aborted: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Supplies raw rows to the parse stage, e.g. {@code handler -> reader.read(file, handler)}
+     */
+    @FunctionalInterface
+    public interface ImportSource {
+        int read(ImportRowHandler handler) throws Exception;
+    }
+
+    /**
+     * Marks a row as a duplicate by updating its status. Called concurrently from several workers
+     * unless {@link #isOrderSensitive()}.
+     */
+    @FunctionalInterface
+    public interface DuplicateCheck {
+        void check(QuestionImportRow row) throws Exception;
+
+        /**
+         * True if the outcome for a row depends on the rows checked before it; the pipeline then
+         * checks the rows one at a time, in file order
+         */
+        default boolean isOrderSensitive() {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageFunction<I, O> {
+        O apply(I input) throws Exception;
+    }
+
+    private static class RawRow {
+        private final int rowNumber;
+        private final String[] cells;
+
+        RawRow(int rowNumber, String[] cells) {
+            this.rowNumber = rowNumber;
+            this.cells = cells;
+        }
+    }
+}
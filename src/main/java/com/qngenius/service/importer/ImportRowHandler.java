@@ -0,0 +1,14 @@
+package com.qngenius.service.importer;
+
+/**
+ * Receives data rows from an import reader as they are parsed. The header row is not delivered.
+ */
+@FunctionalInterface
+public interface ImportRowHandler {
+
+    /**
+     * @param rowNumber 1-based row number in the source file, for error reporting
+     * @param cells     cell values of the row, padded to {@link QuestionImportValidator#COLUMN_COUNT}
+     */
+    void handleRow(int rowNumber, String[] cells) throws Exception;
+}
@@ -0,0 +1,172 @@
+package com.qngenius.service.importer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, append-only store of the preview columns of parsed import rows.
+ *
+ * Rows are kept column-wise in primitive and String arrays instead of one object per row, and
+ * the low-cardinality columns (type, difficulty) share one String instance per distinct value.
+ * Full status messages and duplicate descriptions are only kept for the rows that have them.
+ * Alongside the rows the store maintains an index list per {@link Category}, so filtered views
+ * are just positions into the same arrays. Rows can be added from a pipeline thread while the
+ * UI reads them; every method is synchronized.
+ */
+public class ImportRowStore implements RowSink {
+
+    public enum Category { VALID, INVALID, DUPLICATE }
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final Category[] CATEGORIES = Category.values();
+
+    private int size;
+    private int[] rowNumbers = new int[INITIAL_CAPACITY];
+    private int[] marks = new int[INITIAL_CAPACITY];
+    private byte[] categories = new byte[INITIAL_CAPACITY];
+    private String[] questionTexts = new String[INITIAL_CAPACITY];
+    private String[] questionTypes = new String[INITIAL_CAPACITY];
+    private String[] difficulties = new String[INITIAL_CAPACITY];
+    private final Map<Integer, String> statusMessages = new HashMap<>();
+    private final Map<Integer, String> duplicateOf = new HashMap<>();
+    private final Map<String, String> sharedValues = new HashMap<>();
+
+    // Display order of all rows and of each category; arrival order until sortByRowNumber()
+    private IndexList order = new IndexList();
+    private IndexList[] byCategory = newCategoryLists();
+
+    @Override
+    public synchronized void accept(QuestionImportRow row) {
+        ensureCapacity(size + 1);
+        int index = size++;
+
+        Category category = categorize(row.getStatus());
+        rowNumbers[index] = row.getRowNumber();
+        marks[index] = row.getMarks();
+        categories[index] = (byte) category.ordinal();
+        questionTexts[index] = row.getQuestionText();
+        questionTypes[index] = share(row.getQuestionType());
+        difficulties[index] = share(row.getDifficulty());
+        if (!"Valid".equals(row.getStatus()) && !"Duplicate".equals(row.getStatus())) {
+            statusMessages.put(index, row.getStatus());
+        }
+        if (!row.getDuplicateOf().isEmpty()) {
+            duplicateOf.put(index, row.getDuplicateOf());
+        }
+
+        order.add(index);
+        byCategory[category.ordinal()].add(index);
+    }
+
+    /**
+     * Puts every view into source-file order. Parallel pipeline stages deliver rows slightly
+     * out of order, so this is called once parsing has finished; views over the old order
+     * must be rebuilt.
+     */
+    public synchronized void sortByRowNumber() {
+        // Pack (row number, index) into longs so a primitive sort does the work
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) rowNumbers[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        order = new IndexList();
+        byCategory = newCategoryLists();
+        for (long key : keys) {
+            int index = (int) key;
+            order.add(index);
+            byCategory[categories[index]].add(index);
+        }
+    }
+
+    /**
+     * Number of rows in a view; a null category means all rows
+     */
+    public synchronized int size(Category category) {
+        return view(category).size;
+    }
+
+    /**
+     * Row index at a position of a view, for use with the column getters
+     */
+    public synchronized int indexAt(Category category, int position) {
+        IndexList view = view(category);
+        if (position < 0 || position >= view.size) {
+            throw new IndexOutOfBoundsException("Position " + position + " of " + view.size);
+        }
+        return view.values[position];
+    }
+
+    public synchronized int getRowNumber(int index) { return rowNumbers[index]; }
+    public synchronized int getMarks(int index) { return marks[index]; }
+    public synchronized String getQuestionText(int index) { return questionTexts[index]; }
+    public synchronized String getQuestionType(int index) { return questionTypes[index]; }
+    public synchronized String getDifficulty(int index) { return difficulties[index]; }
+    public synchronized Category getCategory(int index) { return CATEGORIES[categories[index]]; }
+
+    public synchronized String getStatus(int index) {
+        String message = statusMessages.get(index);
+        if (message != null) {
+            return message;
+        }
+        return categories[index] == Category.DUPLICATE.ordinal() ? "Duplicate" : "Valid";
+    }
+
+    public synchronized String getDuplicateOf(int index) {
+        return duplicateOf.getOrDefault(index, "");
+    }
+
+    private static Category categorize(String status) {
+        if ("Valid".equalsIgnoreCase(status)) {
+            return Category.VALID;
+        }
+        if ("Duplicate".equalsIgnoreCase(status)) {
+            return Category.DUPLICATE;
+        }
+        return Category.INVALID;
+    }
+
+    private IndexList view(Category category) {
+        return category == null ? order : byCategory[category.ordinal()];
+    }
+
+    private String share(String value) {
+        String shared = sharedValues.putIfAbsent(value, value);
+        return shared != null ? shared : value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= rowNumbers.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, rowNumbers.length * 2);
+        rowNumbers = Arrays.copyOf(rowNumbers, newCapacity);
+        marks = Arrays.copyOf(marks, newCapacity);
+        categories = Arrays.copyOf(categories, newCapacity);
+        questionTexts = Arrays.copyOf(questionTexts, newCapacity);
+        questionTypes = Arrays.copyOf(questionTypes, newCapacity);
+        difficulties = Arrays.copyOf(difficulties, newCapacity);
+    }
+
+    private static IndexList[] newCategoryLists() {
+        IndexList[] lists = new IndexList[CATEGORIES.length];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = new IndexList();
+        }
+        return lists;
+    }
+
+    private static class IndexList {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
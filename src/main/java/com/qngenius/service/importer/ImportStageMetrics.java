@@ -0,0 +1,95 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.util.jfr.ImportStageEvent;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Throughput and input-queue depth for one stage of an {@link ImportPipeline}.
+ * Updated concurrently by the stage's workers and sampled by the pipeline monitor.
+ */
+public class ImportStageMetrics {
+
+    private final String stageName;
+    private final int workers;
+    private final LongAdder rowsProcessed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final LongAdder queueDepthTotal = new LongAdder();
+    private final LongAdder queueSamples = new LongAdder();
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private final ImportStageEvent event = new ImportStageEvent();
+
+    public ImportStageMetrics(String stageName, int workers) {
+        this.stageName = stageName;
+        this.workers = workers;
+    }
+
+    void started() {
+        startNanos = System.nanoTime();
+        event.begin();
+    }
+
+    void finished() {
+        endNanos = System.nanoTime();
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = stageName;
+            event.rows = getRowsProcessed();
+            event.workers = workers;
+            event.commit();
+        }
+    }
+
+    void recordRow(long nanos) {
+        rowsProcessed.increment();
+        busyNanos.add(nanos);
+    }
+
+    void sampleQueueDepth(int depth) {
+        maxQueueDepth.accumulateAndGet(depth, Math::max);
+        queueDepthTotal.add(depth);
+        queueSamples.increment();
+    }
+
+    public String getStageName() { return stageName; }
+    public int getWorkers() { return workers; }
+    public long getRowsProcessed() { return rowsProcessed.sum(); }
+    public int getMaxQueueDepth() { return maxQueueDepth.get(); }
+
+    public double getAverageQueueDepth() {
+        long samples = queueSamples.sum();
+        return samples > 0 ? (double) queueDepthTotal.sum() / samples : 0;
+    }
+
+    public long getElapsedMillis() {
+        if (startNanos == 0) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    public double getRowsPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getRowsProcessed() * 1000.0 / elapsed : 0;
+    }
+
+    /**
+     * Fraction of the stage's wall time its workers spent processing rows rather than waiting
+     */
+    public double getUtilization() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? Math.min(1.0, busyNanos.sum() / (elapsed * 1_000_000.0 * workers)) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s x%d: %,d rows, %,.0f rows/s, busy %.0f%%, queue avg %.1f / max %d",
+                stageName, workers, getRowsProcessed(), getRowsPerSecond(), getUtilization() * 100,
+                getAverageQueueDepth(), getMaxQueueDepth());
+    }
+}
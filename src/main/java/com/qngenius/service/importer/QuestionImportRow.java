@@ -0,0 +1,68 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.model.Question;
+
+import java.util.UUID;
+
+/**
+ * A single question row read from an import file, together with its validation status.
+ */
+public class QuestionImportRow {
+    private int rowNumber;
+    private String questionText = "";
+    private String questionType = "";
+    private int marks = 0;
+    private String difficulty = "";
+    private String bloomLevel = "";
+    private String keywords = "";
+    private String status = "Valid";
+    private String duplicateOf = "";
+
+    public Question toQuestion(UUID unitId, UUID createdBy) {
+        return new Question(
+            null, // ID will be generated
+            unitId,
+            null, // coId
+            questionText,
+            questionType,
+            marks,
+            difficulty,
+            null, // importance level
+            null, // application level
+            bloomLevel,
+            null, // course outcome
+            keywords,
+            createdBy,
+            null // raw content
+        );
+    }
+
+    // Getters and setters
+    public int getRowNumber() { return rowNumber; }
+    public void setRowNumber(int rowNumber) { this.rowNumber = rowNumber; }
+
+    public String getQuestionText() { return questionText; }
+    public void setQuestionText(String questionText) { this.questionText = questionText != null ? questionText : ""; }
+
+    public String getQuestionType() { return questionType; }
+    public void setQuestionType(String questionType) { this.questionType = questionType != null ? questionType : ""; }
+
+    public int getMarks() { return marks; }
+    public void setMarks(int marks) { this.marks = marks; }
+
+    public String getDifficulty() { return difficulty; }
+    public void setDifficulty(String difficulty) { this.difficulty = difficulty != null ? difficulty : ""; }
+
+    public String getBloomLevel() { return bloomLevel; }
+    public void setBloomLevel(String bloomLevel) { this.bloomLevel = bloomLevel != null ? bloomLevel : ""; }
+
+    public String getKeywords() { return keywords; }
+    public void setKeywords(String keywords) { this.keywords = keywords != null ? keywords : ""; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status != null ? status : "Valid"; }
+
+    // Describes what a row marked "Duplicate" collides with
+    public String getDuplicateOf() { return duplicateOf; }
+    public void setDuplicateOf(String duplicateOf) { this.duplicateOf = duplicateOf != null ? duplicateOf : ""; }
+}
@@ -0,0 +1,137 @@
+package com.qngenius.service.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts raw import cells into {@link QuestionImportRow}s and validates them.
+ * Stateless, so a single instance can be shared by every import source.
+ */
+public class QuestionImportValidator {
+
+    // Expected columns: Question Text, Type, Marks, Difficulty, Bloom Level, Keywords
+    public static final int COLUMN_COUNT = 6;
+
+    private static final Set<String> QUESTION_TYPES = new HashSet<>(Arrays.asList(
+        "Short Answer", "Long Answer", "Multiple Choice", "Case Study", "Essay", "Numerical"));
+    private static final Set<String> DIFFICULTY_LEVELS = new HashSet<>(Arrays.asList(
+        "Easy", "Medium", "Hard"));
+    private static final Set<String> BLOOM_LEVELS = new HashSet<>(Arrays.asList(
+        "Remember", "Understand", "Apply", "Analyze", "Evaluate", "Create"));
+
+    /**
+     * Builds and validates an import row from the cell values of one spreadsheet row
+     */
+    public QuestionImportRow parseRow(int rowNumber, String[] cells) {
+        QuestionImportRow importRow = new QuestionImportRow();
+        importRow.setRowNumber(rowNumber);
+
+        importRow.setQuestionText(cell(cells, 0));
+        importRow.setQuestionType(cell(cells, 1));
+        importRow.setDifficulty(cell(cells, 3));
+        importRow.setBloomLevel(cell(cells, 4));
+        importRow.setKeywords(cell(cells, 5));
+
+        // Parse marks
+        String marksStr = cell(cells, 2);
+        try {
+            if (marksStr != null && !marksStr.isEmpty()) {
+                importRow.setMarks(parseMarks(marksStr));
+            } else {
+                importRow.setMarks(0);
+            }
+        } catch (NumberFormatException e) {
+            importRow.setMarks(0);
+            importRow.setStatus("Warning: Invalid marks value");
+        }
+
+        validate(importRow);
+
+        return importRow;
+    }
+
+    public void validate(QuestionImportRow row) {
+        List<String> errors = new ArrayList<>();
+
+        // Required field validation
+        if (row.getQuestionText() == null || row.getQuestionText().trim().isEmpty()) {
+            errors.add("Question text is required");
+        } else if (row.getQuestionText().length() < 10) {
+            errors.add("Question text too short");
+        }
+
+        if (row.getQuestionType() == null || row.getQuestionType().trim().isEmpty()) {
+            errors.add("Question type is required");
+        } else if (!isValidQuestionType(row.getQuestionType())) {
+            errors.add("Invalid question type");
+        }
+
+        if (row.getMarks() <= 0) {
+            errors.add("Marks must be greater than 0");
+        } else if (row.getMarks() > 100) {
+            errors.add("Marks seem too high (>100)");
+        }
+
+        if (row.getDifficulty() == null || row.getDifficulty().trim().isEmpty()) {
+            errors.add("Difficulty level is required");
+        } else if (!isValidDifficultyLevel(row.getDifficulty())) {
+            errors.add("Invalid difficulty level");
+        }
+
+        if (row.getBloomLevel() != null && !row.getBloomLevel().trim().isEmpty()
+            && !isValidBloomLevel(row.getBloomLevel())) {
+            errors.add("Invalid Bloom taxonomy level");
+        }
+
+        // Set status based on validation
+        if (errors.isEmpty()) {
+            row.setStatus("Valid");
+        } else {
+            row.setStatus("Invalid: " + String.join(", ", errors));
+        }
+    }
+
+    public static boolean isEmptyRow(String[] cells) {
+        for (String value : cells) {
+            if (value != null && !value.trim().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isValidQuestionType(String type) {
+        return QUESTION_TYPES.contains(type);
+    }
+
+    public boolean isValidDifficultyLevel(String level) {
+        return DIFFICULTY_LEVELS.contains(level);
+    }
+
+    public boolean isValidBloomLevel(String level) {
+        return BLOOM_LEVELS.contains(level);
+    }
+
+    private static String cell(String[] cells, int index) {
+        if (index >= cells.length || cells[index] == null) {
+            return null;
+        }
+        return cells[index].trim();
+    }
+
+    // Spreadsheets often store whole numbers as "5.0"
+    private static int parseMarks(String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            double numericValue = Double.parseDouble(value);
+            if (numericValue != (long) numericValue) {
+                throw e;
+            }
+            return (int) numericValue;
+        }
+    }
+}
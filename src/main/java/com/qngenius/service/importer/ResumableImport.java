@@ -0,0 +1,197 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.model.ImportJob;
+import com.qngenius.model.Question;
+import com.qngenius.util.ConfigManager;
+import com.qngenius.util.DatabaseUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes the selected rows of an import file in checkpointed batches.
+ *
+ * Each batch is committed together with the job's checkpoint in the {@code import_jobs} table,
+ * and every question is keyed by (import id, source row), so a batch can never be applied
+ * twice. When the same file is imported into the same unit after a failure, the unfinished
+ * job is picked up again and the rows it already committed are skipped.
+ */
+public class ResumableImport {
+
+    private static final Logger LOGGER = Logger.getLogger(ResumableImport.class.getName());
+
+    private final File file;
+    private final UUID subjectId;
+    private final UUID unitId;
+    private final UUID userId;
+    private Consumer<String> progressLog;
+    private ImportJob job;
+    private Set<Integer> committedRows = Collections.emptySet();
+    private ImportPipeline pipeline;
+    private AdaptiveBatchWriter writer;
+
+    public ResumableImport(File file, UUID subjectId, UUID unitId, UUID userId) {
+        this.file = file;
+        this.subjectId = subjectId;
+        this.unitId = unitId;
+        this.userId = userId;
+    }
+
+    public void setProgressLog(Consumer<String> progressLog) {
+        this.progressLog = progressLog;
+    }
+
+    /**
+     * Finds an unfinished job for this file and unit, or registers a new one
+     */
+    public ImportJob prepare(int totalRows) throws IOException, SQLException {
+        String fileHash = hashFile(file);
+        job = DatabaseUtil.findResumableImportJob(fileHash, subjectId, unitId);
+        if (job != null) {
+            committedRows = DatabaseUtil.getImportedRows(job.getId());
+            LOGGER.info(String.format("Resuming import %s of %s (%d rows already committed)",
+                    job.getId(), file.getName(), committedRows.size()));
+        } else {
+            job = DatabaseUtil.createImportJob(file.getName(), fileHash, subjectId, unitId, userId, totalRows);
+            LOGGER.info("Started import " + job.getId() + " of " + file.getName());
+        }
+        return job;
+    }
+
+    public ImportJob getJob() {
+        return job;
+    }
+
+    /**
+     * Streams the file through an {@link ImportPipeline} whose write stage is an
+     * {@link AdaptiveBatchWriter} on a dedicated connection, then marks the job completed.
+     * Rows that are not included, or that an earlier run of the job already committed, are skipped.
+     *
+     * @param duplicateCheck may be null to skip duplicate detection
+     * @return the number of questions inserted by this run
+     */
+    public int run(ImportPipeline.ImportSource source, QuestionImportValidator validator,
+                   ImportPipeline.DuplicateCheck duplicateCheck, Predicate<QuestionImportRow> include,
+                   ProgressListener listener) throws Exception {
+        if (job == null) {
+            throw new IllegalStateException("prepare() must be called before run()");
+        }
+
+        ConfigManager config = ConfigManager.getInstance();
+        AtomicInteger inserted = new AtomicInteger();
+        AtomicInteger rowsDone = new AtomicInteger(committedRows.size());
+
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            writer = new AdaptiveBatchWriter((batch, timeoutSeconds) -> {
+                List<Question> questions = new ArrayList<>(batch.size());
+                List<Integer> rowNumbers = new ArrayList<>(batch.size());
+                int lastRow = 0;
+                for (QuestionImportRow row : batch) {
+                    questions.add(row.toQuestion(unitId, userId));
+                    rowNumbers.add(row.getRowNumber());
+                    lastRow = Math.max(lastRow, row.getRowNumber());
+                }
+                inserted.addAndGet(DatabaseUtil.saveImportChunk(conn, job.getId(), questions, rowNumbers, timeoutSeconds));
+                if (listener != null) {
+                    listener.onBatchCommitted(rowsDone.addAndGet(batch.size()), job.getTotalRows(), lastRow);
+                }
+            }, config.getImportInitialBatchSize(), config.getImportMaxBatchSize(), config.getImportCommitTimeoutSeconds());
+
+            RowSink sink = new RowSink() {
+                @Override
+                public void accept(QuestionImportRow row) throws Exception {
+                    if (include.test(row) && !committedRows.contains(row.getRowNumber())) {
+                        writer.accept(row);
+                    }
+                }
+
+                @Override
+                public void finish() throws Exception {
+                    writer.finish();
+                }
+            };
+
+            pipeline = new ImportPipeline(source, validator, duplicateCheck, sink);
+            if (progressLog != null) {
+                pipeline.setProgressLog(progressLog);
+            }
+
+            writer.start();
+            try {
+                pipeline.run();
+            } catch (Exception e) {
+                // Let an in-flight commit finish before the connection is closed
+                writer.abort();
+                throw e;
+            }
+
+            DatabaseUtil.updateImportJobStatus(job.getId(), ImportJob.STATUS_COMPLETED, null);
+            return inserted.get();
+        } catch (Exception e) {
+            markFailed(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Per-stage metrics of the last run, with the database writer's line last
+     */
+    public String formatMetrics() {
+        StringBuilder sb = new StringBuilder();
+        if (pipeline != null) {
+            sb.append(pipeline.formatMetrics());
+        }
+        if (writer != null) {
+            sb.append("\n  ").append(writer);
+        }
+        return sb.toString();
+    }
+
+    private void markFailed(Exception cause) {
+        try {
+            DatabaseUtil.updateImportJobStatus(job.getId(), ImportJob.STATUS_FAILED, cause.getMessage());
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to record import failure for job " + job.getId(), e);
+        }
+    }
+
+    static String hashFile(File file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(Files.newInputStream(file.toPath()), digest)) {
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public interface ProgressListener {
+        /**
+         * @param rowsDone     selected rows committed so far, including those from earlier runs
+         * @param totalRows    selected rows in the import
+         * @param lastFileRow  highest source row number in the batch just committed
+         */
+        void onBatchCommitted(int rowsDone, int totalRows, int lastFileRow);
+    }
+}
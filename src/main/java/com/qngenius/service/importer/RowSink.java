@@ -0,0 +1,16 @@
+package com.qngenius.service.importer;
+
+/**
+ * Final stage of an {@link ImportPipeline}. Called from a single thread, so implementations
+ * need no synchronization of their own.
+ */
+public interface RowSink {
+
+    void accept(QuestionImportRow row) throws Exception;
+
+    /**
+     * Called once after the last row, on the same thread as {@link #accept}
+     */
+    default void finish() throws Exception {
+    }
+}
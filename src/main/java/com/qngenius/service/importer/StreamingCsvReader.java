@@ -0,0 +1,257 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.util.ConfigManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fast-path reader for UTF-8 CSV and TSV exports.
+ *
+ * The file is read in chunks into a direct buffer and scanned byte by byte. Delimiters, quotes
+ * and line breaks are all ASCII and can never occur inside a multi-byte UTF-8 sequence, so no
+ * decoding happens while scanning. Only the cells the importer uses are decoded into Strings,
+ * through one reusable byte buffer. Quoted fields may contain delimiters, doubled quotes and
+ * line breaks. The delimiter is a tab for .tsv files and a comma otherwise.
+ *
+ * The file is not memory-mapped: on Windows a mapping keeps the file locked until the buffer
+ * is garbage collected, so the user could not re-save or delete it after a preview or import.
+ */
+public class StreamingCsvReader implements ImportFileReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final int CHUNK_SIZE = 1 << 20;
+    // Returned by parseRecord when the record runs past the bytes read so far
+    private static final int INCOMPLETE = -1;
+
+    private final long maxUploadSize;
+
+    public StreamingCsvReader() {
+        this(ConfigManager.getInstance().getMaxUploadSize());
+    }
+
+    public StreamingCsvReader(long maxUploadSize) {
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    @Override
+    public int read(File file, ImportRowHandler handler) throws IOException {
+        if (file.length() > maxUploadSize) {
+            throw new IOException(String.format("File is %,d bytes, which exceeds the maximum upload size of %,d bytes",
+                    file.length(), maxUploadSize));
+        }
+
+        byte delimiter = file.getName().toLowerCase().endsWith(".tsv") ? (byte) '\t' : (byte) ',';
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new Parser(channel, delimiter).parse(handler);
+        }
+    }
+
+    /**
+     * Parses one record at a time from a window over the file. A record that runs past the end
+     * of the window is parsed again from its start once the window has been refilled, or grown
+     * if the record alone fills it.
+     */
+    private static class Parser {
+
+        private final FileChannel channel;
+        private final byte delimiter;
+        private ByteBuffer window = ByteBuffer.allocateDirect(CHUNK_SIZE);
+        private boolean endOfFile;
+        private byte[] scratch = new byte[256];
+        // Line breaks inside the record parsed last, quoted ones included
+        private int recordLines;
+
+        Parser(FileChannel channel, byte delimiter) {
+            this.channel = channel;
+            this.delimiter = delimiter;
+            window.limit(0);
+        }
+
+        int parse(ImportRowHandler handler) throws IOException {
+            fill();
+            int pos = hasUtf8Bom() ? 3 : 0;
+
+            String[] cells = new String[QuestionImportValidator.COLUMN_COUNT];
+            int recordLine = 1;
+            boolean headerSkipped = false;
+            int delivered = 0;
+
+            while (true) {
+                if (pos >= window.limit()) {
+                    if (endOfFile) {
+                        break;
+                    }
+                    pos = refill(pos);
+                    continue;
+                }
+
+                int next = parseRecord(pos, recordLine, cells);
+                if (next == INCOMPLETE) {
+                    Arrays.fill(cells, null);
+                    pos = refill(pos);
+                    continue;
+                }
+                pos = next;
+
+                if (!headerSkipped) {
+                    headerSkipped = true;
+                } else if (!QuestionImportValidator.isEmptyRow(cells)) {
+                    try {
+                        handler.handleRow(recordLine, cells);
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IOException("Import aborted at line " + recordLine + ": " + e.getMessage(), e);
+                    }
+                    delivered++;
+                }
+                cells = new String[QuestionImportValidator.COLUMN_COUNT];
+                recordLine += recordLines;
+            }
+
+            return delivered;
+        }
+
+        /**
+         * @return the position after the record, or {@link #INCOMPLETE} if more of the file is
+         *         needed to finish it
+         */
+        private int parseRecord(int pos, int recordLine, String[] cells) throws IOException {
+            ByteBuffer buffer = window;
+            int limit = buffer.limit();
+            int column = 0;
+            recordLines = 0;
+
+            while (true) {
+                // Parse one field starting at pos
+                int length = 0;
+                if (pos < limit && buffer.get(pos) == QUOTE) {
+                    pos++;
+                    while (true) {
+                        if (pos >= limit) {
+                            if (!endOfFile) {
+                                return INCOMPLETE;
+                            }
+                            throw new IOException("Unterminated quoted field starting on line " + recordLine);
+                        }
+                        byte b = buffer.get(pos++);
+                        if (b == QUOTE) {
+                            if (pos >= limit && !endOfFile) {
+                                return INCOMPLETE;
+                            }
+                            if (pos < limit && buffer.get(pos) == QUOTE) {
+                                pos++; // Escaped quote
+                            } else {
+                                break;
+                            }
+                        } else if (b == LF) {
+                            recordLines++;
+                        }
+                        if (column < cells.length) {
+                            if (length == scratch.length) {
+                                scratch = Arrays.copyOf(scratch, length * 2);
+                            }
+                            scratch[length++] = b;
+                        }
+                    }
+                    // Skip anything between the closing quote and the next delimiter
+                    while (pos < limit && buffer.get(pos) != delimiter && buffer.get(pos) != LF && buffer.get(pos) != CR) {
+                        pos++;
+                    }
+                } else {
+                    int start = pos;
+                    while (pos < limit) {
+                        byte b = buffer.get(pos);
+                        if (b == delimiter || b == LF || b == CR) {
+                            break;
+                        }
+                        pos++;
+                    }
+                    length = pos - start;
+                    if (column < cells.length && length > 0) {
+                        if (length > scratch.length) {
+                            scratch = new byte[Math.max(length, scratch.length * 2)];
+                        }
+                        buffer.get(start, scratch, 0, length);
+                    }
+                }
+
+                // The field, or a CR that may be followed by LF, may continue in the next chunk
+                if (pos >= limit - 1 && !endOfFile) {
+                    return INCOMPLETE;
+                }
+
+                if (column < cells.length) {
+                    cells[column] = length > 0 ? new String(scratch, 0, length, StandardCharsets.UTF_8) : null;
+                }
+                column++;
+
+                // Decide whether the record continues
+                if (pos >= limit) {
+                    return pos;
+                }
+                byte b = buffer.get(pos++);
+                if (b == delimiter) {
+                    // A delimiter right at end of file closes the record with an empty last field
+                    if (pos >= limit) {
+                        return pos;
+                    }
+                } else {
+                    if (b == CR && pos < limit && buffer.get(pos) == LF) {
+                        pos++;
+                    }
+                    recordLines++;
+                    return pos;
+                }
+            }
+        }
+
+        /**
+         * Keeps the bytes from {@code pos} on, reads more of the file after them, and returns
+         * their new position
+         */
+        private int refill(int pos) throws IOException {
+            if (pos == 0 && window.limit() == window.capacity()) {
+                // One record fills the whole window
+                ByteBuffer larger = ByteBuffer.allocateDirect(window.capacity() * 2);
+                larger.put(window.position(0));
+                window = larger.flip();
+            } else {
+                window.position(pos).compact().flip();
+            }
+            fill();
+            return 0;
+        }
+
+        /**
+         * Reads until the window is full or the file ends
+         */
+        private void fill() throws IOException {
+            int start = window.limit();
+            window.position(start).limit(window.capacity());
+            while (window.hasRemaining()) {
+                if (channel.read(window) < 0) {
+                    endOfFile = true;
+                    break;
+                }
+            }
+            window.flip();
+        }
+
+        private boolean hasUtf8Bom() {
+            return window.limit() >= 3
+                && (window.get(0) & 0xFF) == 0xEF
+                && (window.get(1) & 0xFF) == 0xBB
+                && (window.get(2) & 0xFF) == 0xBF;
+        }
+    }
+}
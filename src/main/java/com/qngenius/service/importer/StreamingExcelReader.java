@@ -0,0 +1,261 @@
+package com.qngenius.service.importer;
+
+import com.qngenius.util.ConfigManager;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Reads the first sheet of an .xlsx or .xls file with POI's event API, delivering rows to an
+ * {@link ImportRowHandler} as they are parsed. Unlike {@code XSSFWorkbook}, only the shared
+ * string table and the current row are held in memory, regardless of sheet size.
+ */
+public class StreamingExcelReader implements ImportFileReader {
+
+    private final long maxUploadSize;
+
+    public StreamingExcelReader() {
+        this(ConfigManager.getInstance().getMaxUploadSize());
+    }
+
+    public StreamingExcelReader(long maxUploadSize) {
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    /**
+     * Streams every non-empty data row of the first sheet to the handler
+     *
+     * @return the number of rows delivered
+     */
+    @Override
+    public int read(File file, ImportRowHandler handler) throws IOException {
+        if (file.length() > maxUploadSize) {
+            throw new IOException(String.format("File is %,d bytes, which exceeds the maximum upload size of %,d bytes",
+                    file.length(), maxUploadSize));
+        }
+
+        try {
+            if (file.getName().toLowerCase().endsWith(".xlsx")) {
+                return readXlsx(file, handler);
+            }
+            return readXls(file, handler);
+        } catch (RowHandlerException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Import aborted at row " + e.rowNumber + ": " + cause.getMessage(), cause);
+        }
+    }
+
+    private int readXlsx(File file, ImportRowHandler handler) throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+
+            RowCollector collector = new RowCollector(handler);
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, strings, new XlsxSheetHandler(collector), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+            return collector.delivered;
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            if (e.getCause() instanceof RowHandlerException) {
+                throw (RowHandlerException) e.getCause();
+            }
+            throw new IOException("Failed to read Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private int readXls(File file, ImportRowHandler handler) throws IOException {
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            RowCollector collector = new RowCollector(handler);
+            XlsRecordListener listener = new XlsRecordListener(collector);
+            FormatTrackingHSSFListener formatListener =
+                    new FormatTrackingHSSFListener(new MissingRecordAwareHSSFListener(listener));
+            listener.formatListener = formatListener;
+
+            HSSFRequest request = new HSSFRequest();
+            request.addListenerForAllRecords(formatListener);
+            new HSSFEventFactory().processWorkbookEvents(request, fs);
+            return collector.delivered;
+        }
+    }
+
+    /**
+     * Assembles cells into rows, skips the header and empty rows, and forwards the rest
+     */
+    private static class RowCollector {
+        private final ImportRowHandler handler;
+        private String[] cells = new String[QuestionImportValidator.COLUMN_COUNT];
+        private boolean headerSkipped;
+        private int delivered;
+
+        RowCollector(ImportRowHandler handler) {
+            this.handler = handler;
+        }
+
+        void cell(int column, String value) {
+            if (column >= 0 && column < cells.length) {
+                cells[column] = value;
+            }
+        }
+
+        void endRow(int rowIndex) {
+            String[] row = cells;
+            cells = new String[QuestionImportValidator.COLUMN_COUNT];
+
+            if (!headerSkipped) {
+                headerSkipped = true;
+                return;
+            }
+            if (QuestionImportValidator.isEmptyRow(row)) {
+                return;
+            }
+
+            try {
+                handler.handleRow(rowIndex + 1, row);
+                delivered++;
+            } catch (Exception e) {
+                throw new RowHandlerException(rowIndex + 1, e);
+            }
+        }
+    }
+
+    private static class XlsxSheetHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final RowCollector collector;
+
+        XlsxSheetHandler(RowCollector collector) {
+            this.collector = collector;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            collector.endRow(rowNum);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            if (cellReference != null) {
+                collector.cell(new CellReference(cellReference).getCol(), formattedValue);
+            }
+        }
+    }
+
+    private static class XlsRecordListener implements HSSFListener {
+        private final RowCollector collector;
+        private FormatTrackingHSSFListener formatListener;
+        private SSTRecord sharedStrings;
+        private int sheetIndex = -1;
+        private int pendingFormulaColumn = -1;
+
+        XlsRecordListener(RowCollector collector) {
+            this.collector = collector;
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof BOFRecord) {
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheetIndex++;
+                }
+                return;
+            }
+            if (record instanceof SSTRecord) {
+                sharedStrings = (SSTRecord) record;
+                return;
+            }
+            // Only the first worksheet is imported
+            if (sheetIndex != 0) {
+                return;
+            }
+
+            if (record instanceof LastCellOfRowDummyRecord) {
+                collector.endRow(((LastCellOfRowDummyRecord) record).getRow());
+            } else if (record instanceof LabelSSTRecord) {
+                LabelSSTRecord label = (LabelSSTRecord) record;
+                collector.cell(label.getColumn(), sharedStrings.getString(label.getSSTIndex()).getString());
+            } else if (record instanceof LabelRecord) {
+                LabelRecord label = (LabelRecord) record;
+                collector.cell(label.getColumn(), label.getValue());
+            } else if (record instanceof NumberRecord) {
+                NumberRecord number = (NumberRecord) record;
+                collector.cell(number.getColumn(), formatListener.formatNumberDateCell(number));
+            } else if (record instanceof BoolErrRecord) {
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                if (boolErr.isBoolean()) {
+                    collector.cell(boolErr.getColumn(), String.valueOf(boolErr.getBooleanValue()));
+                }
+            } else if (record instanceof FormulaRecord) {
+                FormulaRecord formula = (FormulaRecord) record;
+                if (formula.getCachedResultTypeEnum() == CellType.STRING) {
+                    // The cached string result arrives in the following StringRecord
+                    pendingFormulaColumn = formula.getColumn();
+                } else {
+                    collector.cell(formula.getColumn(), formatListener.formatNumberDateCell(formula));
+                }
+            } else if (record instanceof StringRecord && pendingFormulaColumn >= 0) {
+                collector.cell(pendingFormulaColumn, ((StringRecord) record).getString());
+                pendingFormulaColumn = -1;
+            }
+        }
+    }
+
+    private static class RowHandlerException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int rowNumber;
+
+        RowHandlerException(int rowNumber, Throwable cause) {
+            super(cause);
+            this.rowNumber = rowNumber;
+        }
+    }
+}
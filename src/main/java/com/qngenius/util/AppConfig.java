@@ -0,0 +1,143 @@
+package com.qngenius.util;
+
+import java.util.Properties;
+
+/**
+ * An immutable, already-parsed view of the configuration.
+ *
+ * {@link ConfigManager} builds one from the loaded properties and publishes it through a
+ * volatile reference, so a read is a field access rather than a property lookup and parse.
+ * A reload builds a whole new instance, so a caller holding one never sees a mix of old and
+ * new values.
+ */
+public final class AppConfig {
+
+    // Database
+    private final String databaseUrl;
+    private final String databaseUser;
+    private final String databasePassword;
+    private final String databaseDriver;
+    private final int connectionPoolInitialSize;
+    private final int connectionPoolMaxSize;
+    private final int connectionPoolMaxWaitTime;
+
+    // Application
+    private final String appName;
+    private final String appVersion;
+    private final String appTheme;
+    private final int sessionTimeout;
+    private final long maxUploadSize;
+    private final boolean backupEnabled;
+    private final int backupInterval;
+    private final int exportMaxInFlight;
+    private final int importInitialBatchSize;
+    private final int importMaxBatchSize;
+    private final int importCommitTimeoutSeconds;
+    private final int authVerifyThreads;
+    private final int authMaxQueuedLogins;
+    private final int auditQueueCapacity;
+    private final int auditRetentionMonths;
+    private final int auditPartitionsAhead;
+    private final int metricsSummaryIntervalSeconds;
+    private final int slowQueryMillis;
+    private final boolean slowQueryExplain;
+    private final String slowQueryLogFile;
+    private final boolean migrateOnStartup;
+    private final int serverPort;
+    private final int serverThreads;
+    private final int serverMaxQueuedRequests;
+    private final int serverCacheSeconds;
+
+    /**
+     * @throws IllegalArgumentException if a numeric setting does not parse
+     */
+    AppConfig(Properties db, Properties app) {
+        databaseUrl = db.getProperty("db.url");
+        databaseUser = db.getProperty("db.user");
+        databasePassword = db.getProperty("db.password");
+        databaseDriver = db.getProperty("db.driver", "org.postgresql.Driver");
+        connectionPoolInitialSize = intValue(db, "db.pool.initialSize", 5);
+        connectionPoolMaxSize = intValue(db, "db.pool.maxSize", 20);
+        connectionPoolMaxWaitTime = intValue(db, "db.pool.maxWaitTime", 30000);
+
+        appName = app.getProperty("app.name");
+        appVersion = app.getProperty("app.version");
+        appTheme = app.getProperty("app.theme", "default");
+        sessionTimeout = intValue(app, "app.session.timeout", 3600);
+        maxUploadSize = longValue(app, "app.max.upload.size", 10485760L);
+        backupEnabled = Boolean.parseBoolean(app.getProperty("app.backup.enabled", "true"));
+        backupInterval = intValue(app, "app.backup.interval", 86400);
+        exportMaxInFlight = intValue(app, "app.export.maxInFlight", 4);
+        importInitialBatchSize = intValue(app, "app.import.initialBatchSize", 50);
+        importMaxBatchSize = intValue(app, "app.import.maxBatchSize", 2000);
+        importCommitTimeoutSeconds = intValue(app, "app.import.commitTimeoutSeconds", 30);
+        authVerifyThreads = intValue(app, "app.auth.verifyThreads", Runtime.getRuntime().availableProcessors());
+        authMaxQueuedLogins = intValue(app, "app.auth.maxQueuedLogins", 256);
+        auditQueueCapacity = intValue(app, "app.audit.queueCapacity", 10000);
+        auditRetentionMonths = intValue(app, "app.audit.retentionMonths", 12);
+        auditPartitionsAhead = intValue(app, "app.audit.partitionsAhead", 2);
+        metricsSummaryIntervalSeconds = intValue(app, "app.metrics.summaryIntervalSeconds", 60);
+        slowQueryMillis = intValue(app, "app.db.slowQueryMillis", 500);
+        slowQueryExplain = Boolean.parseBoolean(app.getProperty("app.db.slowQueryExplain", "false"));
+        slowQueryLogFile = app.getProperty("app.db.slowQueryLogFile", "logs/slow-queries.%g.log");
+        migrateOnStartup = Boolean.parseBoolean(app.getProperty("app.db.migrateOnStartup", "true"));
+        serverPort = intValue(app, "app.server.port", 8085);
+        serverThreads = intValue(app, "app.server.threads", 0);
+        serverMaxQueuedRequests = intValue(app, "app.server.maxQueuedRequests", 1024);
+        serverCacheSeconds = intValue(app, "app.server.cacheSeconds", 30);
+    }
+
+    private static int intValue(Properties properties, String key, int defaultValue) {
+        long value = longValue(properties, key, defaultValue);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Value for " + key + " is out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    private static long longValue(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": '" + value + "'", e);
+        }
+    }
+
+    public String getDatabaseUrl() { return databaseUrl; }
+    public String getDatabaseUser() { return databaseUser; }
+    public String getDatabasePassword() { return databasePassword; }
+    public String getDatabaseDriver() { return databaseDriver; }
+    public int getConnectionPoolInitialSize() { return connectionPoolInitialSize; }
+    public int getConnectionPoolMaxSize() { return connectionPoolMaxSize; }
+    public int getConnectionPoolMaxWaitTime() { return connectionPoolMaxWaitTime; }
+
+    public String getAppName() { return appName; }
+    public String getAppVersion() { return appVersion; }
+    public String getAppTheme() { return appTheme; }
+    public int getSessionTimeout() { return sessionTimeout; }
+    public long getMaxUploadSize() { return maxUploadSize; }
+    public boolean isBackupEnabled() { return backupEnabled; }
+    public int getBackupInterval() { return backupInterval; }
+    public int getExportMaxInFlight() { return exportMaxInFlight; }
+    public int getImportInitialBatchSize() { return importInitialBatchSize; }
+    public int getImportMaxBatchSize() { return importMaxBatchSize; }
+    public int getImportCommitTimeoutSeconds() { return importCommitTimeoutSeconds; }
+    public int getAuthVerifyThreads() { return authVerifyThreads; }
+    public int getAuthMaxQueuedLogins() { return authMaxQueuedLogins; }
+    public int getAuditQueueCapacity() { return auditQueueCapacity; }
+    public int getAuditRetentionMonths() { return auditRetentionMonths; }
+    public int getAuditPartitionsAhead() { return auditPartitionsAhead; }
+    public int getMetricsSummaryIntervalSeconds() { return metricsSummaryIntervalSeconds; }
+    public int getSlowQueryMillis() { return slowQueryMillis; }
+    public boolean isSlowQueryExplain() { return slowQueryExplain; }
+    public String getSlowQueryLogFile() { return slowQueryLogFile; }
+    public boolean isMigrateOnStartup() { return migrateOnStartup; }
+    public int getServerPort() { return serverPort; }
+    public int getServerThreads() { return serverThreads; }
+    public int getServerMaxQueuedRequests() { return serverMaxQueuedRequests; }
+    public int getServerCacheSeconds() { return serverCacheSeconds; }
+}
@@ -2,18 +2,57 @@ package com.qngenius.util;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
+/**
+ * Loads the database and application settings from the classpath, overlaid with an optional
+ * external file ({@code -Dqngenius.config=...}, default {@code config/qngenius.properties}).
+ *
+ * The settings are parsed once into an {@link AppConfig} snapshot. Getters read the current
+ * snapshot, so they cost a volatile read. While {@link #startWatching()} is active, edits to
+ * the external file are picked up without a restart: a new snapshot is built and swapped in
+ * atomically, and registered {@link ConfigListener}s are told about the change. A file that
+ * does not parse is rejected and the current snapshot stays.
+ */
 public class ConfigManager {
     private static final Logger LOGGER = Logger.getLogger(ConfigManager.class.getName());
+    private static final long RELOAD_SETTLE_MILLIS = 200;
     private static ConfigManager instance;
     private Properties dbProperties;
     private Properties appProperties;
+    private final Path externalConfigFile;
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile AppConfig current;
+    private Properties currentSource;
+    private WatchService watchService;
+    private Thread watchThread;
     
     private ConfigManager() {
+        externalConfigFile = Paths.get(System.getProperty("qngenius.config", "config/qngenius.properties")).toAbsolutePath();
         loadConfigurations();
+        Properties db = new Properties();
+        Properties app = new Properties();
+        try {
+            currentSource = readExternalConfig(db, app);
+            current = new AppConfig(db, app);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Ignoring invalid external configuration " + externalConfigFile, e);
+            currentSource = new Properties();
+            current = new AppConfig(dbProperties, appProperties);
+        }
     }
     
     public static synchronized ConfigManager getInstance() {
@@ -92,64 +131,302 @@ public class ConfigManager {
         appProperties.setProperty("app.max.upload.size", "10485760"); // 10MB
         appProperties.setProperty("app.backup.enabled", "true");
         appProperties.setProperty("app.backup.interval", "86400"); // 24 hours
+        appProperties.setProperty("app.export.maxInFlight", "4");
+        appProperties.setProperty("app.import.initialBatchSize", "50");
+        appProperties.setProperty("app.import.maxBatchSize", "2000");
+        appProperties.setProperty("app.import.commitTimeoutSeconds", "30");
+        appProperties.setProperty("app.auth.verifyThreads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+        appProperties.setProperty("app.auth.maxQueuedLogins", "256");
+        appProperties.setProperty("app.audit.queueCapacity", "10000");
+        appProperties.setProperty("app.audit.retentionMonths", "12");
+        appProperties.setProperty("app.audit.partitionsAhead", "2");
+        appProperties.setProperty("app.metrics.summaryIntervalSeconds", "60");
+        appProperties.setProperty("app.db.slowQueryMillis", "500"); // 0 disables the slow query log
+        appProperties.setProperty("app.db.slowQueryExplain", "false");
+        appProperties.setProperty("app.db.slowQueryLogFile", "logs/slow-queries.%g.log");
+        appProperties.setProperty("app.db.migrateOnStartup", "true");
+        appProperties.setProperty("app.server.port", "8085");
+        appProperties.setProperty("app.server.threads", "0"); // 0 means one per pooled connection
+        appProperties.setProperty("app.server.maxQueuedRequests", "1024");
+        appProperties.setProperty("app.server.cacheSeconds", "30"); // 0 disables the response caches
     }
     
+    /**
+     * The external file may hold both db.* and app.* keys; they override the classpath values
+     *
+     * @return the external file's own properties, empty if there is none
+     */
+    private Properties readExternalConfig(Properties db, Properties app) {
+        db.putAll(dbProperties);
+        app.putAll(appProperties);
+
+        Properties external = new Properties();
+        if (Files.isRegularFile(externalConfigFile)) {
+            try (InputStream input = Files.newInputStream(externalConfigFile)) {
+                external.load(input);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Failed to read " + externalConfigFile, e);
+            }
+            LOGGER.info("External configuration loaded from: " + externalConfigFile);
+        }
+        for (String key : external.stringPropertyNames()) {
+            (key.startsWith("db.") ? db : app).setProperty(key, external.getProperty(key));
+        }
+        return external;
+    }
+
+    /**
+     * The current parsed configuration. Hot paths should read this once and use its fields.
+     */
+    public AppConfig getConfig() {
+        return current;
+    }
+
+    public void addListener(ConfigListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ConfigListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Re-reads the external file and publishes a new snapshot if anything changed
+     *
+     * @return true if a new snapshot was published
+     */
+    public boolean reload() {
+        AppConfig previous;
+        AppConfig updated;
+        synchronized (this) {
+            Properties db = new Properties();
+            Properties app = new Properties();
+            Properties source;
+            try {
+                source = readExternalConfig(db, app);
+                updated = new AppConfig(db, app);
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("Rejected configuration change, keeping the current settings: " + e.getMessage());
+                return false;
+            }
+            if (source.equals(currentSource)) {
+                return false;
+            }
+            previous = current;
+            currentSource = source;
+            current = updated;
+        }
+
+        LOGGER.info("Configuration reloaded from " + externalConfigFile);
+        for (ConfigListener listener : listeners) {
+            try {
+                listener.configChanged(previous, updated);
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Configuration listener failed", e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Watches the external file's directory and reloads when the file changes
+     */
+    public synchronized void startWatching() {
+        if (watchThread != null) {
+            return;
+        }
+        Path directory = externalConfigFile.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            LOGGER.info("No external configuration directory at " + directory + ", not watching for changes");
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Cannot watch " + directory + " for configuration changes", e);
+            return;
+        }
+
+        WatchService service = watchService;
+        watchThread = new Thread(() -> watchLoop(service), "config-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        LOGGER.info("Watching " + externalConfigFile + " for configuration changes");
+    }
+
+    public synchronized void stopWatching() {
+        if (watchThread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Failed to close configuration watcher", e);
+        }
+        watchThread.interrupt();
+        watchThread = null;
+        watchService = null;
+    }
+
+    private void watchLoop(WatchService service) {
+        Path fileName = externalConfigFile.getFileName();
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean relevant = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        relevant = true;
+                    }
+                }
+                key.reset();
+                if (relevant) {
+                    // Editors often write a file in several steps; let it settle and
+                    // coalesce the burst of events into one reload
+                    Thread.sleep(RELOAD_SETTLE_MILLIS);
+                    WatchKey more;
+                    while ((more = service.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
+    }
+
     // Database configuration getters
     public String getDatabaseUrl() {
-        return dbProperties.getProperty("db.url");
+        return current.getDatabaseUrl();
     }
     
     public String getDatabaseUser() {
-        return dbProperties.getProperty("db.user");
+        return current.getDatabaseUser();
     }
     
     public String getDatabasePassword() {
-        return dbProperties.getProperty("db.password");
+        return current.getDatabasePassword();
     }
     
     public String getDatabaseDriver() {
-        return dbProperties.getProperty("db.driver", "org.postgresql.Driver");
+        return current.getDatabaseDriver();
     }
     
     public int getConnectionPoolInitialSize() {
-        return Integer.parseInt(dbProperties.getProperty("db.pool.initialSize", "5"));
+        return current.getConnectionPoolInitialSize();
     }
     
     public int getConnectionPoolMaxSize() {
-        return Integer.parseInt(dbProperties.getProperty("db.pool.maxSize", "20"));
+        return current.getConnectionPoolMaxSize();
     }
     
     public int getConnectionPoolMaxWaitTime() {
-        return Integer.parseInt(dbProperties.getProperty("db.pool.maxWaitTime", "30000"));
+        return current.getConnectionPoolMaxWaitTime();
     }
     
     // Application configuration getters
     public String getAppName() {
-        return appProperties.getProperty("app.name");
+        return current.getAppName();
     }
     
     public String getAppVersion() {
-        return appProperties.getProperty("app.version");
+        return current.getAppVersion();
     }
     
     public String getAppTheme() {
-        return appProperties.getProperty("app.theme", "default");
+        return current.getAppTheme();
     }
     
     public int getSessionTimeout() {
-        return Integer.parseInt(appProperties.getProperty("app.session.timeout", "3600"));
+        return current.getSessionTimeout();
     }
     
     public long getMaxUploadSize() {
-        return Long.parseLong(appProperties.getProperty("app.max.upload.size", "10485760"));
+        return current.getMaxUploadSize();
     }
     
     public boolean isBackupEnabled() {
-        return Boolean.parseBoolean(appProperties.getProperty("app.backup.enabled", "true"));
+        return current.isBackupEnabled();
     }
     
     public int getBackupInterval() {
-        return Integer.parseInt(appProperties.getProperty("app.backup.interval", "86400"));
+        return current.getBackupInterval();
+    }
+    
+    public int getExportMaxInFlight() {
+        return current.getExportMaxInFlight();
+    }
+    
+    public int getImportInitialBatchSize() {
+        return current.getImportInitialBatchSize();
+    }
+    
+    public int getImportMaxBatchSize() {
+        return current.getImportMaxBatchSize();
+    }
+    
+    public int getImportCommitTimeoutSeconds() {
+        return current.getImportCommitTimeoutSeconds();
+    }
+    
+    public int getAuthVerifyThreads() {
+        return current.getAuthVerifyThreads();
+    }
+    
+    public int getAuthMaxQueuedLogins() {
+        return current.getAuthMaxQueuedLogins();
+    }
+    
+    public int getAuditQueueCapacity() {
+        return current.getAuditQueueCapacity();
+    }
+    
+    public int getAuditRetentionMonths() {
+        return current.getAuditRetentionMonths();
+    }
+    
+    public int getAuditPartitionsAhead() {
+        return current.getAuditPartitionsAhead();
+    }
+    
+    public int getMetricsSummaryIntervalSeconds() {
+        return current.getMetricsSummaryIntervalSeconds();
+    }
+    
+    public int getSlowQueryMillis() {
+        return current.getSlowQueryMillis();
+    }
+    
+    public boolean isSlowQueryExplain() {
+        return current.isSlowQueryExplain();
+    }
+    
+    public String getSlowQueryLogFile() {
+        return current.getSlowQueryLogFile();
+    }
+    
+    public boolean isMigrateOnStartup() {
+        return current.isMigrateOnStartup();
+    }
+    
+    public int getServerPort() {
+        return current.getServerPort();
+    }
+    
+    public int getServerThreads() {
+        return current.getServerThreads();
+    }
+    
+    public int getServerMaxQueuedRequests() {
+        return current.getServerMaxQueuedRequests();
+    }
+    
+    public int getServerCacheSeconds() {
+        return current.getServerCacheSeconds();
     }
     
     // Environment-specific methods
@@ -161,6 +438,14 @@ public class ConfigManager {
         return !isDevelopmentMode();
     }
     
+    /**
+     * Notified on the watcher thread after a new snapshot has been published
+     */
+    @FunctionalInterface
+    public interface ConfigListener {
+        void configChanged(AppConfig previous, AppConfig updated);
+    }
+
     // Validation methods
     public boolean validateDatabaseConfig() {
         return getDatabaseUrl() != null && 
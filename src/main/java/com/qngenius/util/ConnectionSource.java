@@ -0,0 +1,12 @@
+package com.qngenius.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Supplies connections to background writers and maintenance jobs, e.g. from the pool
+ */
+@FunctionalInterface
+public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+}
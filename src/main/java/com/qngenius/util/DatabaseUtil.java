@@ -3,43 +3,63 @@ package com.qngenius.util;
 import com.qngenius.model.Blueprint;
 import com.qngenius.model.Course;
 import com.qngenius.model.ExamType;
+import com.qngenius.model.ImportJob;
 import com.qngenius.model.Subject;
 import com.qngenius.model.Unit;
 import com.qngenius.model.BlueprintCriteria;
 import com.qngenius.model.Question;
+import com.qngenius.model.QuestionFilter;
+import com.qngenius.model.QuestionPage;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 
 public class DatabaseUtil {
 
     private static final Properties properties = new Properties();
+    // Without the C:/db.properties override the settings match the pool's, so connections come from it
+    private static final boolean pooled;
 
     static {
+        // The application configuration, unless C:/db.properties overrides it
+        ConfigManager config = ConfigManager.getInstance();
+        properties.setProperty("db.url", config.getDatabaseUrl());
+        properties.setProperty("db.user", config.getDatabaseUser());
+        properties.setProperty("db.password", config.getDatabasePassword());
+
         String propertiesFilePath = "C:/db.properties";
-        try (FileInputStream input = new FileInputStream(propertiesFilePath)) {
-            if (input == null) {
-                System.out.println("sorry, unable to find db.properties at absolute path.");
+        pooled = !new File(propertiesFilePath).isFile();
+        if (!pooled) {
+            try (FileInputStream input = new FileInputStream(propertiesFilePath)) {
+                properties.load(input);
+            } catch (Exception e) {
+                e.printStackTrace();
             }
-            properties.load(input);
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
     public static Connection getConnection() throws SQLException {
+        if (pooled) {
+            return EnhancedDatabaseUtil.getConnection();
+        }
         String url = properties.getProperty("db.url");
         String user = properties.getProperty("db.user");
         String password = properties.getProperty("db.password");
-        return DriverManager.getConnection(url, user, password);
+        long start = System.nanoTime();
+        return JdbcMetrics.wrap(DriverManager.getConnection(url, user, password), start);
     }
 
     // --- Course Methods ---
@@ -95,6 +115,42 @@ public class DatabaseUtil {
         return subjects;
     }
 
+    /**
+     * @return the subject with the given code, or null if there is none
+     */
+    public static Subject getSubjectByCode(String subjectCode) throws SQLException {
+        String sql = "SELECT id, course_id, subject_code, subject_name FROM subjects WHERE subject_code = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, subjectCode);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Subject(rs.getObject("id", UUID.class), rs.getObject("course_id", UUID.class),
+                            rs.getString("subject_code"), rs.getString("subject_name"));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the subject with the given id, or null if there is none
+     */
+    public static Subject getSubjectById(UUID subjectId) throws SQLException {
+        String sql = "SELECT id, course_id, subject_code, subject_name FROM subjects WHERE id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, subjectId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new Subject(rs.getObject("id", UUID.class), rs.getObject("course_id", UUID.class),
+                            rs.getString("subject_code"), rs.getString("subject_name"));
+                }
+            }
+        }
+        return null;
+    }
+
     // --- Unit Methods ---
     public static void addUnit(UUID subjectId, String unitName) throws SQLException {
         String sql = "INSERT INTO units (subject_id, unit_name) VALUES (?, ?)";
@@ -248,6 +304,29 @@ public class DatabaseUtil {
         return questions;
     }
 
+    // Method to get the questions of all units of a subject, by the subject each question carries
+    public static List<Question> getQuestionsBySubject(UUID subjectId) throws SQLException {
+        List<Question> questions = new ArrayList<>();
+        String sql = "SELECT question_id, question_text, question_type, marks, difficulty_level, bloom_taxonomy_level "
+                + "FROM questions WHERE subject_id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, subjectId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    questions.add(new Question(
+                            rs.getObject("question_id", UUID.class),
+                            rs.getString("question_text"),
+                            rs.getString("question_type"),
+                            rs.getInt("marks"),
+                            rs.getString("difficulty_level"),
+                            rs.getString("bloom_taxonomy_level")));
+                }
+            }
+        }
+        return questions;
+    }
+
     // Method to get questions that match specific criteria
     public static List<Question> getQuestionsByCriteria(UUID subjectId, BlueprintCriteria criteria)
             throws SQLException {
@@ -309,6 +388,171 @@ public class DatabaseUtil {
         }
     }
 
+    // --- Import Job Methods ---
+    public static ImportJob createImportJob(String fileName, String fileHash, UUID subjectId, UUID unitId,
+            UUID createdBy, int totalRows) throws SQLException {
+        String sql = "INSERT INTO import_jobs (file_name, file_hash, subject_id, unit_id, created_by, total_rows, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?) RETURNING id";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, fileName);
+            pstmt.setString(2, fileHash);
+            pstmt.setObject(3, subjectId);
+            pstmt.setObject(4, unitId);
+            pstmt.setObject(5, createdBy);
+            pstmt.setInt(6, totalRows);
+            pstmt.setString(7, ImportJob.STATUS_RUNNING);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return new ImportJob(rs.getObject("id", UUID.class), fileName, fileHash, subjectId, unitId,
+                        createdBy, totalRows, 0, 0, ImportJob.STATUS_RUNNING);
+            }
+        }
+    }
+
+    // Method to find the most recent unfinished import of the same file into the same unit
+    public static ImportJob findResumableImportJob(String fileHash, UUID subjectId, UUID unitId) throws SQLException {
+        String sql = "SELECT id, file_name, file_hash, subject_id, unit_id, created_by, total_rows, committed_rows, "
+                + "last_committed_row, status FROM import_jobs "
+                + "WHERE file_hash = ? AND subject_id = ? AND unit_id = ? AND status <> ? "
+                + "ORDER BY started_at DESC LIMIT 1";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, fileHash);
+            pstmt.setObject(2, subjectId);
+            pstmt.setObject(3, unitId);
+            pstmt.setString(4, ImportJob.STATUS_COMPLETED);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new ImportJob(
+                            rs.getObject("id", UUID.class),
+                            rs.getString("file_name"),
+                            rs.getString("file_hash"),
+                            rs.getObject("subject_id", UUID.class),
+                            rs.getObject("unit_id", UUID.class),
+                            rs.getObject("created_by", UUID.class),
+                            rs.getInt("total_rows"),
+                            rs.getInt("committed_rows"),
+                            rs.getInt("last_committed_row"),
+                            rs.getString("status"));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts one chunk of imported questions and advances the job's checkpoint in the same
+     * transaction. Rows are keyed by (import_id, import_row), so re-sending a chunk that was
+     * already committed inserts nothing.
+     *
+     * @param rowNumbers source-file row number of each question, in the same order
+     * @return the number of questions actually inserted
+     */
+    public static int saveImportChunk(UUID importJobId, List<Question> questions, List<Integer> rowNumbers)
+            throws SQLException {
+        try (Connection conn = getConnection()) {
+            return saveImportChunk(conn, importJobId, questions, rowNumbers, 0);
+        }
+    }
+
+    /**
+     * Same as {@link #saveImportChunk(UUID, List, List)} on a caller-owned connection, so a long
+     * import can keep one connection open. A positive timeout bounds each statement, in seconds.
+     */
+    public static int saveImportChunk(Connection conn, UUID importJobId, List<Question> questions,
+            List<Integer> rowNumbers, int timeoutSeconds) throws SQLException {
+        if (questions.size() != rowNumbers.size()) {
+            throw new IllegalArgumentException("Each question needs exactly one row number");
+        }
+
+        // The subject is given rather than left to the trigger, so a partitioned table routes the row by it.
+        // Any unique violation is a row already imported: with partitions the key includes subject_id.
+        String insertSql = "INSERT INTO questions (unit_id, subject_id, question_text, question_type, marks, difficulty_level, "
+                + "bloom_taxonomy_level, keywords, created_by, import_id, import_row) "
+                + "VALUES (?, (SELECT subject_id FROM units WHERE id = ?), ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING";
+        String checkpointSql = "UPDATE import_jobs SET committed_rows = committed_rows + ?, "
+                + "last_committed_row = GREATEST(last_committed_row, ?), status = ?, error_message = NULL, "
+                + "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+        conn.setAutoCommit(false);
+        try (PreparedStatement insert = conn.prepareStatement(insertSql);
+                PreparedStatement checkpoint = conn.prepareStatement(checkpointSql)) {
+            if (timeoutSeconds > 0) {
+                insert.setQueryTimeout(timeoutSeconds);
+                checkpoint.setQueryTimeout(timeoutSeconds);
+            }
+            int lastRow = 0;
+            for (int i = 0; i < questions.size(); i++) {
+                Question q = questions.get(i);
+                insert.setObject(1, q.getUnitId());
+                insert.setObject(2, q.getUnitId());
+                insert.setString(3, q.getQuestionText());
+                insert.setString(4, q.getQuestionType());
+                insert.setInt(5, q.getMarks());
+                insert.setString(6, q.getDifficultyLevel());
+                insert.setString(7, q.getBloomTaxonomyLevel());
+                insert.setString(8, q.getKeywords());
+                insert.setObject(9, q.getCreatedBy());
+                insert.setObject(10, importJobId);
+                insert.setInt(11, rowNumbers.get(i));
+                insert.addBatch();
+                lastRow = Math.max(lastRow, rowNumbers.get(i));
+            }
+
+            int inserted = 0;
+            for (int count : insert.executeBatch()) {
+                inserted += Math.max(count, 0);
+            }
+
+            checkpoint.setInt(1, inserted);
+            checkpoint.setInt(2, lastRow);
+            checkpoint.setString(3, ImportJob.STATUS_RUNNING);
+            checkpoint.setObject(4, importJobId);
+            checkpoint.executeUpdate();
+
+            conn.commit();
+            return inserted;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Source rows already committed by an import job, so a resumed run can skip exactly those
+     */
+    public static Set<Integer> getImportedRows(UUID importJobId) throws SQLException {
+        Set<Integer> rows = new HashSet<>();
+        // Every row of a job was saved with the subject of the job's unit
+        String sql = "SELECT import_row FROM questions WHERE subject_id = "
+                + "(SELECT u.subject_id FROM import_jobs j JOIN units u ON u.id = j.unit_id WHERE j.id = ?) AND import_id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setObject(1, importJobId);
+            pstmt.setObject(2, importJobId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(rs.getInt("import_row"));
+                }
+            }
+        }
+        return rows;
+    }
+
+    public static void updateImportJobStatus(UUID importJobId, String status, String errorMessage) throws SQLException {
+        String sql = "UPDATE import_jobs SET status = ?, error_message = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, status);
+            pstmt.setString(2, errorMessage);
+            pstmt.setObject(3, importJobId);
+            pstmt.executeUpdate();
+        }
+    }
+
     /**
      * Retrieves questions from the database based on criteria.
      * 
@@ -338,4 +582,94 @@ public class DatabaseUtil {
         }
         return questions;
     }
+
+    /**
+     * Retrieves the page of questions that follows a position in (created_at, question_id)
+     * order. Seeks to the position by index rather than skipping the rows before it, so a page
+     * deep into the bank costs what the first one does.
+     *
+     * @param after the last question of the previous page, or null for the first page
+     */
+    public static QuestionPage getQuestionsAfter(QuestionFilter filter, QuestionPage.Cursor after, int limit)
+            throws SQLException {
+        return getQuestionPage(filter, after, true, limit);
+    }
+
+    /**
+     * Retrieves the page of questions that precedes a position in (created_at, question_id)
+     * order, for scrolling back to a page that was let go.
+     *
+     * @param before the first question of the following page, or null for the last page
+     */
+    public static QuestionPage getQuestionsBefore(QuestionFilter filter, QuestionPage.Cursor before, int limit)
+            throws SQLException {
+        return getQuestionPage(filter, before, false, limit);
+    }
+
+    private static QuestionPage getQuestionPage(QuestionFilter filter, QuestionPage.Cursor cursor, boolean forward,
+            int limit) throws SQLException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + limit);
+        }
+        List<String> conditions = new ArrayList<>();
+        List<Object> parameters = new ArrayList<>();
+        if (filter.getSubjectId() != null) {
+            conditions.add("subject_id = ?");
+            parameters.add(filter.getSubjectId());
+        }
+        if (filter.getQuestionType() != null) {
+            conditions.add("question_type = ?");
+            parameters.add(filter.getQuestionType());
+        }
+        if (filter.getDifficultyLevel() != null) {
+            conditions.add("difficulty_level = ?");
+            parameters.add(filter.getDifficultyLevel());
+        }
+        if (cursor != null) {
+            conditions.add(forward ? "(created_at, question_id) > (?, ?)" : "(created_at, question_id) < (?, ?)");
+            parameters.add(cursor.getCreatedAt());
+            parameters.add(cursor.getQuestionId());
+        }
+        String direction = forward ? "ASC" : "DESC";
+        // One row past the page tells whether there is another
+        String sql = "SELECT question_id, question_text, question_type, marks, difficulty_level, bloom_taxonomy_level, "
+                + "created_at FROM questions"
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY created_at " + direction + ", question_id " + direction + " LIMIT ?";
+        parameters.add(limit + 1);
+
+        List<Question> questions = new ArrayList<>();
+        List<QuestionPage.Cursor> cursors = new ArrayList<>();
+        boolean more = false;
+        try (Connection conn = getConnection();
+                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.size(); i++) {
+                pstmt.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    if (questions.size() == limit) {
+                        more = true;
+                        break;
+                    }
+                    UUID questionId = rs.getObject("question_id", UUID.class);
+                    questions.add(new Question(
+                            questionId,
+                            rs.getString("question_text"),
+                            rs.getString("question_type"),
+                            rs.getInt("marks"),
+                            rs.getString("difficulty_level"),
+                            rs.getString("bloom_taxonomy_level")));
+                    cursors.add(new QuestionPage.Cursor(rs.getObject("created_at", OffsetDateTime.class), questionId));
+                }
+            }
+        }
+        if (!forward) {
+            Collections.reverse(questions);
+            Collections.reverse(cursors);
+        }
+        return cursors.isEmpty()
+                ? new QuestionPage(questions, null, null, false)
+                : new QuestionPage(questions, cursors.get(0), cursors.get(cursors.size() - 1), more);
+    }
 }
\ No newline at end of file
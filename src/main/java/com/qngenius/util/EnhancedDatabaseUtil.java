@@ -1,23 +1,78 @@
 package com.qngenius.util;
 
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
 import com.zaxxer.hikari.HikariDataSource;
 import com.qngenius.model.*;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 public class EnhancedDatabaseUtil {
     private static final Logger LOGGER = Logger.getLogger(EnhancedDatabaseUtil.class.getName());
-    private static HikariDataSource dataSource;
+    private static volatile HikariDataSource dataSource;
     private static final ConfigManager config = ConfigManager.getInstance();
+    private static final long AUDIT_DRAIN_TIMEOUT_MILLIS = 5000;
+    private static LoginAuditWriter auditWriter;
+    private static LoginLogPartitionManager partitionManager;
+    // Set last, once the pool and the audit writer are both usable
+    private static volatile boolean initialized;
     
     static {
-        initializeConnectionPool();
+        config.addListener(EnhancedDatabaseUtil::resizeConnectionPool);
+    }
+    
+    /**
+     * Builds the pool and starts the audit writer and partition maintenance, unless already
+     * done. Loading this class no longer does it, so the GUI can show its first frame before
+     * any connection is opened and warm the pool in the background afterwards; otherwise the
+     * first database call pays for it. Pending schema migrations are applied before the pool
+     * is handed out. A failed attempt is retried on the next call.
+     */
+    public static void initialize() {
+        if (initialized) {
+            return;
+        }
+        synchronized (EnhancedDatabaseUtil.class) {
+            if (initialized) {
+                return;
+            }
+            // A retry after a failed migration reuses the pool
+            if (dataSource == null) {
+                initializeConnectionPool();
+            }
+            if (config.isMigrateOnStartup()) {
+                migrateSchema();
+            }
+            MetricsRegistry.getInstance().registerConnectionPool(EnhancedDatabaseUtil::getConnectionPoolStatus);
+            // Straight from the pool, so the EXPLAIN runs are not timed and logged themselves
+            SlowQueryLog.getInstance().setExplainSource(() -> dataSource.getConnection());
+            auditWriter = new LoginAuditWriter(EnhancedDatabaseUtil::getConnection, config.getAuditQueueCapacity());
+            partitionManager = new LoginLogPartitionManager(EnhancedDatabaseUtil::getConnection,
+                    config.getAuditRetentionMonths(), config.getAuditPartitionsAhead());
+            partitionManager.start();
+            initialized = true;
+        }
+    }
+    
+    private static void migrateSchema() {
+        try {
+            new SchemaMigrator(() -> dataSource.getConnection()).migrate();
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to migrate the database schema", e);
+            throw new RuntimeException("Database schema migration failed", e);
+        }
     }
     
     private static void initializeConnectionPool() {
@@ -31,7 +86,7 @@ public class EnhancedDatabaseUtil {
             hikariConfig.setDriverClassName(config.getDatabaseDriver());
             
             // Pool settings
-            hikariConfig.setInitialPoolSize(config.getConnectionPoolInitialSize());
+            hikariConfig.setMinimumIdle(config.getConnectionPoolInitialSize());
             hikariConfig.setMaximumPoolSize(config.getConnectionPoolMaxSize());
             hikariConfig.setConnectionTimeout(config.getConnectionPoolMaxWaitTime());
             hikariConfig.setIdleTimeout(600000); // 10 minutes
@@ -54,14 +109,46 @@ public class EnhancedDatabaseUtil {
         }
     }
     
+    /**
+     * Applies pool size and wait time changes to the running pool. Connections above a
+     * lowered maximum are retired as they are returned, not closed while in use.
+     */
+    private static void resizeConnectionPool(AppConfig previous, AppConfig updated) {
+        if (dataSource == null || dataSource.isClosed()) {
+            return;
+        }
+        HikariConfigMXBean pool = dataSource.getHikariConfigMXBean();
+        if (previous.getConnectionPoolMaxSize() != updated.getConnectionPoolMaxSize()) {
+            pool.setMaximumPoolSize(updated.getConnectionPoolMaxSize());
+        }
+        if (previous.getConnectionPoolInitialSize() != updated.getConnectionPoolInitialSize()) {
+            pool.setMinimumIdle(updated.getConnectionPoolInitialSize());
+        }
+        if (previous.getConnectionPoolMaxWaitTime() != updated.getConnectionPoolMaxWaitTime()) {
+            pool.setConnectionTimeout(updated.getConnectionPoolMaxWaitTime());
+        }
+        LOGGER.info(String.format("Connection pool now min idle %d, max %d, max wait %dms",
+                pool.getMinimumIdle(), pool.getMaximumPoolSize(), pool.getConnectionTimeout()));
+    }
+    
     public static Connection getConnection() throws SQLException {
-        if (dataSource == null) {
-            throw new SQLException("Database connection pool not initialized");
+        try {
+            initialize();
+        } catch (RuntimeException e) {
+            throw new SQLException("Database connection pool not initialized", e);
         }
-        return dataSource.getConnection();
+        long start = System.nanoTime();
+        return JdbcMetrics.wrap(dataSource.getConnection(), start);
     }
     
-    public static void closePool() {
+    public static synchronized void closePool() {
+        if (!initialized) {
+            // Never used, so there is nothing to flush or close
+            return;
+        }
+        // Queued audit events still need the pool
+        partitionManager.stop();
+        auditWriter.shutdown(AUDIT_DRAIN_TIMEOUT_MILLIS);
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             LOGGER.info("Database connection pool closed");
@@ -215,32 +302,188 @@ public class EnhancedDatabaseUtil {
         return null;
     }
     
-    public static void logUserLogin(UUID userId, String ipAddress, boolean success) throws SQLException {
-        String sql = "INSERT INTO login_logs (user_id, ip_address, success) VALUES (?, ?, ?)";
+    /**
+     * Returns which of the given usernames are already taken
+     */
+    public static Set<String> findExistingUsernames(Collection<String> usernames) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (usernames.isEmpty()) {
+            return existing;
+        }
+        String sql = "SELECT username FROM users WHERE username = ANY(?)";
         
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setObject(1, userId);
-            pstmt.setString(2, ipAddress);
-            pstmt.setBoolean(3, success);
-            pstmt.executeUpdate();
+            pstmt.setArray(1, conn.createArrayOf("varchar", usernames.toArray()));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    existing.add(rs.getString("username"));
+                }
+            }
+        }
+        
+        return existing;
+    }
+    
+    /**
+     * Inserts a batch of users with pre-hashed passwords and their group memberships in one
+     * transaction, creating missing groups. Usernames taken in the meantime are skipped.
+     *
+     * @return ids of the users actually inserted, by username
+     */
+    public static Map<String, UUID> provisionUsers(List<User> users, Map<String, List<String>> groupsByUsername) throws SQLException {
+        Map<String, UUID> inserted = new HashMap<>();
+        if (users.isEmpty()) {
+            return inserted;
+        }
+        
+        StringBuilder insertSql = new StringBuilder("INSERT INTO users (username, password_hash, role) VALUES ");
+        for (int i = 0; i < users.size(); i++) {
+            insertSql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        insertSql.append(" ON CONFLICT (username) DO NOTHING RETURNING id, username");
+        
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement pstmt = conn.prepareStatement(insertSql.toString())) {
+                    int parameter = 1;
+                    for (User user : users) {
+                        pstmt.setString(parameter++, user.getUsername());
+                        pstmt.setString(parameter++, user.getPasswordHash());
+                        pstmt.setString(parameter++, user.getRole());
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            inserted.put(rs.getString("username"), rs.getObject("id", UUID.class));
+                        }
+                    }
+                }
+                
+                addGroupMemberships(conn, inserted, groupsByUsername);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+        
+        return inserted;
+    }
+    
+    private static void addGroupMemberships(Connection conn, Map<String, UUID> userIds,
+            Map<String, List<String>> groupsByUsername) throws SQLException {
+        List<UUID> memberIds = new ArrayList<>();
+        List<String> memberGroups = new ArrayList<>();
+        for (Map.Entry<String, UUID> user : userIds.entrySet()) {
+            for (String group : groupsByUsername.getOrDefault(user.getKey(), Collections.emptyList())) {
+                memberIds.add(user.getValue());
+                memberGroups.add(group);
+            }
+        }
+        if (memberIds.isEmpty()) {
+            return;
+        }
+        
+        Array groupNames = conn.createArrayOf("varchar", new HashSet<>(memberGroups).toArray());
+        try (PreparedStatement createGroups = conn.prepareStatement(
+                "INSERT INTO user_groups (group_name) SELECT unnest(?::varchar[]) ON CONFLICT (group_name) DO NOTHING")) {
+            createGroups.setArray(1, groupNames);
+            createGroups.executeUpdate();
+        }
+        
+        // Resolve group names to ids in the database, one statement for the whole batch
+        try (PreparedStatement addMembers = conn.prepareStatement(
+                "INSERT INTO user_group_members (user_id, group_id) "
+                + "SELECT m.user_id, g.id FROM unnest(?::uuid[], ?::varchar[]) AS m (user_id, group_name) "
+                + "JOIN user_groups g ON g.group_name = m.group_name ON CONFLICT DO NOTHING")) {
+            addMembers.setArray(1, conn.createArrayOf("uuid", memberIds.toArray()));
+            addMembers.setArray(2, conn.createArrayOf("varchar", memberGroups.toArray()));
+            addMembers.executeUpdate();
+        }
+    }
+    
+    /**
+     * Looks up a user by exact username for password verification; the hash is included
+     */
+    public static User getUserCredentials(String username) throws SQLException {
+        String sql = "SELECT id, username, password_hash, role, created_at FROM users WHERE username = ?";
+        
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-        } catch (SQLException e) {
-            // Don't fail the login process if logging fails
-            LOGGER.log(Level.WARNING, "Failed to log user login attempt", e);
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp createdAt = rs.getTimestamp("created_at");
+                    return new User(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("username"),
+                        null,
+                        rs.getString("password_hash"),
+                        rs.getString("role"),
+                        createdAt != null ? createdAt.toLocalDateTime() : null
+                    );
+                }
+            }
         }
+        
+        return null;
+    }
+    
+    /**
+     * Queues a login audit row; written in the background so the login path never waits on it
+     */
+    public static void logUserLogin(UUID userId, String ipAddress, boolean success) throws SQLException {
+        initialize();
+        auditWriter.recordLogin(userId, ipAddress, success);
     }
     
+    /**
+     * Queues a last-login update; folded into the next audit batch
+     */
     public static void updateUserLastLogin(UUID userId) throws SQLException {
-        String sql = "UPDATE users SET last_login = CURRENT_TIMESTAMP WHERE id = ?";
+        initialize();
+        auditWriter.recordLastLogin(userId);
+    }
+    
+    public static LoginAuditWriter getLoginAuditWriter() {
+        initialize();
+        return auditWriter;
+    }
+    
+    /**
+     * Daily login counts from the rollup table, newest first; a null user means all users
+     */
+    public static List<LoginDailyStat> getLoginDailyStats(UUID userId, LocalDate from, LocalDate to) throws SQLException {
+        List<LoginDailyStat> stats = new ArrayList<>();
+        String sql = "SELECT day, user_id, successes, failures FROM login_daily_stats "
+                + "WHERE day BETWEEN ? AND ? AND (?::uuid IS NULL OR user_id = ?::uuid) "
+                + "ORDER BY day DESC, user_id";
         
         try (Connection conn = getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
-            pstmt.setObject(1, userId);
-            pstmt.executeUpdate();
+            pstmt.setObject(1, from);
+            pstmt.setObject(2, to);
+            pstmt.setObject(3, userId);
+            pstmt.setObject(4, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    stats.add(new LoginDailyStat(
+                        rs.getObject("day", LocalDate.class),
+                        rs.getObject("user_id", UUID.class),
+                        rs.getInt("successes"),
+                        rs.getInt("failures")
+                    ));
+                }
+            }
         }
+        
+        return stats;
     }
     
     // Enhanced Question Methods with better error handling
@@ -0,0 +1,117 @@
+package com.qngenius.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A read-through cache whose entries are reloaded once they are older than a fixed age.
+ *
+ * Concurrent requests for a missing or expired key share one load rather than each hitting
+ * the database. A failed load is not cached. When the cache holds {@code maxEntries}, expired
+ * entries are purged before a new one is added, and if none have expired the oldest goes.
+ */
+public class ExpiringCache<K, V> {
+
+    @FunctionalInterface
+    public interface Loader<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    private final long maxAgeNanos;
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAgeSeconds 0 disables caching, every get loads
+     */
+    public ExpiringCache(int maxAgeSeconds, int maxEntries) {
+        this.maxAgeNanos = TimeUnit.SECONDS.toNanos(Math.max(0, maxAgeSeconds));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * @throws Exception what the loader threw
+     */
+    public V get(K key, Loader<K, V> loader) throws Exception {
+        if (maxAgeNanos == 0) {
+            return loader.load(key);
+        }
+
+        while (true) {
+            long now = System.nanoTime();
+            Entry<V> entry = entries.get(key);
+            if (entry != null && now - entry.loadedAt <= maxAgeNanos) {
+                return await(entry);
+            }
+            if (entry == null && entries.size() >= maxEntries) {
+                evict(now);
+            }
+            Entry<V> fresh = new Entry<>(now);
+            // Only the caller that installs the new entry loads it; the others wait on its future
+            boolean installed = entry == null ? entries.putIfAbsent(key, fresh) == null
+                    : entries.replace(key, entry, fresh);
+            if (installed) {
+                try {
+                    fresh.value.complete(loader.load(key));
+                } catch (Exception | Error e) {
+                    entries.remove(key, fresh);
+                    fresh.value.completeExceptionally(e);
+                    throw e;
+                }
+                return await(fresh);
+            }
+            // Another caller installed, replaced or removed the entry in between; look again
+        }
+    }
+
+    private static <V> V await(Entry<V> entry) throws Exception {
+        try {
+            return entry.value.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+        }
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        K oldestKey = null;
+        long oldest = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Entry<V>> e = it.next();
+            if (now - e.getValue().loadedAt > maxAgeNanos) {
+                it.remove();
+            } else if (e.getValue().loadedAt < oldest) {
+                oldest = e.getValue().loadedAt;
+                oldestKey = e.getKey();
+            }
+        }
+        if (entries.size() >= maxEntries && oldestKey != null) {
+            entries.remove(oldestKey);
+        }
+    }
+
+    private static final class Entry<V> {
+        final long loadedAt;
+        final CompletableFuture<V> value = new CompletableFuture<>();
+
+        Entry(long loadedAt) {
+            this.loadedAt = loadedAt;
+        }
+    }
+}
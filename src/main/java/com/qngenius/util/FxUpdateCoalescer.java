@@ -0,0 +1,135 @@
+package com.qngenius.util;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Batches progress, status and log updates from background threads into at most one
+ * JavaFX update per pulse.
+ *
+ * Producers on any thread just record the latest progress and status and queue log lines.
+ * An {@link AnimationTimer} runs only while updates are pending and applies all of them in its
+ * next frame, so a burst of thousands of updates costs one layout pass instead of flooding the
+ * FX event queue. The log keeps only the newest {@code logCapacity} lines, both in the pending
+ * queue and in the view, and counts the ones it drops.
+ */
+public class FxUpdateCoalescer {
+
+    private final ProgressBar progressBar;
+    private final Label statusLabel;
+    private final ListView<String> logView;
+    private final int logCapacity;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicReference<String> pendingStatus = new AtomicReference<>();
+    private final ArrayDeque<String> pendingLog = new ArrayDeque<>();
+    private volatile double pendingProgress = Double.NaN;
+    private long droppedLines;
+
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            scheduled.set(false);
+            flush();
+            // Anything that arrived during the flush will be applied next frame
+            if (!scheduled.get()) {
+                stop();
+            }
+        }
+    };
+
+    /**
+     * Any of the controls may be null if the screen does not show that kind of update
+     */
+    public FxUpdateCoalescer(ProgressBar progressBar, Label statusLabel, ListView<String> logView, int logCapacity) {
+        this.progressBar = progressBar;
+        this.statusLabel = statusLabel;
+        this.logView = logView;
+        this.logCapacity = Math.max(1, logCapacity);
+    }
+
+    public void updateProgress(long done, long total) {
+        pendingProgress = total > 0 ? (double) done / total : ProgressBar.INDETERMINATE_PROGRESS;
+        schedule();
+    }
+
+    public void updateStatus(String status) {
+        pendingStatus.set(status != null ? status : "");
+        schedule();
+    }
+
+    public void appendLog(String message) {
+        String line = new Date() + ": " + message;
+        synchronized (pendingLog) {
+            if (pendingLog.size() == logCapacity) {
+                pendingLog.pollFirst();
+                droppedLines++;
+            }
+            pendingLog.addLast(line);
+        }
+        schedule();
+    }
+
+    /**
+     * Lines discarded so far because the log was full
+     */
+    public long getDroppedLines() {
+        synchronized (pendingLog) {
+            return droppedLines;
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            if (Platform.isFxApplicationThread()) {
+                timer.start();
+            } else {
+                Platform.runLater(timer::start);
+            }
+        }
+    }
+
+    private void flush() {
+        double progress = pendingProgress;
+        if (progressBar != null && !Double.isNaN(progress)) {
+            progressBar.setProgress(progress);
+        }
+
+        String status = pendingStatus.getAndSet(null);
+        if (statusLabel != null && status != null) {
+            statusLabel.setText(status);
+        }
+
+        List<String> lines;
+        synchronized (pendingLog) {
+            if (pendingLog.isEmpty()) {
+                return;
+            }
+            lines = new ArrayList<>(pendingLog);
+            pendingLog.clear();
+        }
+        if (logView != null) {
+            ObservableList<String> items = logView.getItems();
+            items.addAll(lines);
+            int excess = items.size() - logCapacity;
+            if (excess > 0) {
+                synchronized (pendingLog) {
+                    droppedLines += excess;
+                }
+                items.remove(0, excess);
+            }
+            logView.scrollTo(items.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.qngenius.util;
+
+import com.qngenius.util.jfr.DbQueryEvent;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Times JDBC work without touching the DAO methods themselves.
+ *
+ * {@link #wrap} puts a proxy around a connection from {@code getConnection()}. The DAO method
+ * that asked for the connection is found from the stack once, and the time until the
+ * connection is closed is recorded against it; each execute call is recorded against its SQL
+ * statement. Rows read from result sets, update counts and JDBC batch sizes are counted too,
+ * and each call is emitted as a {@link DbQueryEvent} while a flight recording wants it.
+ * Bound parameters are remembered so that statements over the slow query threshold can be
+ * handed to the {@link SlowQueryLog} with them. Everything else passes straight through to
+ * the real objects.
+ */
+public final class JdbcMetrics {
+
+    // Only asked whether the event is enabled, never committed
+    private static final DbQueryEvent DB_QUERY_EVENTS = new DbQueryEvent();
+    private static final ConfigManager CONFIG = ConfigManager.getInstance();
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private JdbcMetrics() {
+    }
+
+    /**
+     * @param startNanos when the caller started to acquire the connection, so pool waits count
+     */
+    public static Connection wrap(Connection connection, long startNanos) {
+        OperationStats method = MetricsRegistry.getInstance().operation(callerName());
+        return (Connection) Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new ConnectionHandler(connection, method, startNanos));
+    }
+
+    // The first frame outside the getConnection() methods, e.g. "EnhancedDatabaseUtil.getAllCourses"
+    private static String callerName() {
+        Optional<StackWalker.StackFrame> caller = STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getDeclaringClass() != JdbcMetrics.class
+                        && !frame.getMethodName().equals("getConnection"))
+                .findFirst());
+        return caller
+                .map(frame -> frame.getDeclaringClass().getSimpleName() + "." + frame.getMethodName())
+                .orElse("unknown");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private final OperationStats method;
+        private final long startNanos;
+        private boolean closed;
+
+        ConnectionHandler(Connection target, OperationStats method, long startNanos) {
+            this.target = target;
+            this.method = method;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (name.equals("close")) {
+                try {
+                    return JdbcMetrics.invoke(target, m, args);
+                } finally {
+                    if (!closed) {
+                        closed = true;
+                        method.recordSince(startNanos);
+                    }
+                }
+            }
+
+            Object result = JdbcMetrics.invoke(target, m, args);
+            if (result instanceof Statement) {
+                String sql = (name.equals("prepareStatement") || name.equals("prepareCall")) ? (String) args[0] : null;
+                // Statement, PreparedStatement or CallableStatement, as the method declares
+                return Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(), new Class<?>[] { m.getReturnType() },
+                        new StatementHandler((Statement) result, sql, method));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement target;
+        private final String preparedSql;
+        private final OperationStats method;
+        private int pendingBatch;
+        // Bound values, parameter 1 first, while the slow query log is on
+        private Object[] parameters;
+        private int parameterCount;
+
+        StatementHandler(Statement target, String preparedSql, OperationStats method) {
+            this.target = target;
+            this.preparedSql = preparedSql;
+            this.method = method;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (preparedSql != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer) {
+                if (CONFIG.getConfig().getSlowQueryMillis() > 0) {
+                    rememberParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                }
+                return JdbcMetrics.invoke(target, m, args);
+            }
+            if (name.equals("clearParameters")) {
+                parameters = null;
+                parameterCount = 0;
+                return JdbcMetrics.invoke(target, m, args);
+            }
+            if (name.equals("addBatch")) {
+                pendingBatch++;
+                return JdbcMetrics.invoke(target, m, args);
+            }
+            if (name.equals("clearBatch")) {
+                pendingBatch = 0;
+                return JdbcMetrics.invoke(target, m, args);
+            }
+            if (name.equals("getResultSet")) {
+                return wrapResultSet(JdbcMetrics.invoke(target, m, args), statementStats(args));
+            }
+            if (!name.startsWith("execute")) {
+                return JdbcMetrics.invoke(target, m, args);
+            }
+
+            OperationStats statement = statementStats(args);
+            DbQueryEvent event = null;
+            if (DB_QUERY_EVENTS.isEnabled()) {
+                event = new DbQueryEvent();
+                event.begin();
+            }
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = JdbcMetrics.invoke(target, m, args);
+            } catch (SQLException e) {
+                statement.recordError();
+                method.recordError();
+                if (event != null) {
+                    event.failed = true;
+                    commit(event, statement);
+                }
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                statement.getLatency().record(elapsed);
+                int slowMillis = CONFIG.getConfig().getSlowQueryMillis();
+                if (slowMillis > 0 && elapsed >= slowMillis * 1_000_000L) {
+                    String sql = preparedSql != null ? preparedSql : (args != null ? String.valueOf(args[0]) : statement.getName());
+                    boolean batch = name.equals("executeBatch") || name.equals("executeLargeBatch");
+                    SlowQueryLog.getInstance().record(method.getName(), sql, parameters, parameterCount,
+                            elapsed, batch ? pendingBatch : 0);
+                }
+            }
+
+            if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                statement.recordBatchSize(pendingBatch);
+                if (event != null) {
+                    event.batchSize = pendingBatch;
+                }
+                pendingBatch = 0;
+            } else if (result instanceof Integer || result instanceof Long) {
+                long updated = ((Number) result).longValue();
+                if (updated > 0) {
+                    statement.addRowsAffected(updated);
+                    method.addRowsAffected(updated);
+                    if (event != null) {
+                        event.rowsAffected = updated;
+                    }
+                }
+            }
+
+            if (result instanceof ResultSet) {
+                // A query's event ends once its rows have been read
+                return Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                        new ResultSetHandler((ResultSet) result, statement, method, event));
+            }
+            if (event != null) {
+                commit(event, statement);
+            }
+            return result;
+        }
+
+        private void commit(DbQueryEvent event, OperationStats statement) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = method.getName();
+                event.sql = statement.getName();
+                event.commit();
+            }
+        }
+
+        private void rememberParameter(int index, Object value) {
+            if (index < 1) {
+                return;
+            }
+            if (parameters == null) {
+                parameters = new Object[Math.max(index, 8)];
+            } else if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            if (value instanceof InputStream || value instanceof Reader) {
+                value = "(stream)";
+            }
+            parameters[index - 1] = value;
+            parameterCount = Math.max(parameterCount, index);
+        }
+
+        // Plain statements pass the SQL to execute(); prepared ones were given it up front
+        private OperationStats statementStats(Object[] args) {
+            String sql = preparedSql;
+            if (sql == null && args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            return MetricsRegistry.getInstance().statement(sql != null ? sql : "(unknown statement)");
+        }
+
+        private Object wrapResultSet(Object result, OperationStats statement) {
+            if (!(result instanceof ResultSet)) {
+                return result;
+            }
+            return Proxy.newProxyInstance(JdbcMetrics.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                    new ResultSetHandler((ResultSet) result, statement, method, null));
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final OperationStats statement;
+        private final OperationStats method;
+        private final DbQueryEvent event;
+        private long rows;
+        private boolean counted;
+
+        ResultSetHandler(ResultSet target, OperationStats statement, OperationStats method, DbQueryEvent event) {
+            this.target = target;
+            this.statement = statement;
+            this.method = method;
+            this.event = event;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (name.equals("next")) {
+                boolean hasRow = target.next();
+                if (hasRow) {
+                    rows++;
+                } else {
+                    count();
+                }
+                return hasRow;
+            }
+            if (name.equals("close")) {
+                count();
+            }
+            return JdbcMetrics.invoke(target, m, args);
+        }
+
+        // Once, at the end of the rows or on close, whichever comes first
+        private void count() {
+            if (!counted) {
+                counted = true;
+                statement.addRowsReturned(rows);
+                method.addRowsReturned(rows);
+                if (event != null) {
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.operation = method.getName();
+                        event.sql = statement.getName();
+                        event.rowsReturned = rows;
+                        event.commit();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.qngenius.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes login audit events in the background.
+ *
+ * Events are offered to a bounded queue and the login path never waits: when the queue is
+ * full the event is dropped and counted. A single writer thread flushes queued events in
+ * batches. One statement inserts the {@code login_logs} rows, adds them to the daily rollups
+ * in {@code login_daily_stats} and advances {@code users.last_login} for successful logins, so
+ * each batch costs one round trip. {@link #shutdown} writes out whatever is still queued.
+ */
+public class LoginAuditWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(LoginAuditWriter.class.getName());
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    // Key of the daily rollup row for attempts with an unknown username
+    public static final UUID UNKNOWN_USER = new UUID(0L, 0L);
+
+    private final ConnectionSource connectionSource;
+    private final BlockingQueue<LoginEvent> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    public LoginAuditWriter(ConnectionSource connectionSource, int queueCapacity) {
+        this.connectionSource = connectionSource;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.thread = new Thread(this::writeLoop, "login-audit-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a login attempt. A successful attempt also advances the user's last login.
+     */
+    public void recordLogin(UUID userId, String ipAddress, boolean success) {
+        offer(new LoginEvent(userId, ipAddress, success, true, Instant.now()));
+    }
+
+    /**
+     * Queues a last-login update without an audit row
+     */
+    public void recordLastLogin(UUID userId) {
+        offer(new LoginEvent(userId, null, true, false, Instant.now()));
+    }
+
+    public long getDroppedEvents() { return droppedEvents.get(); }
+    public long getWrittenEvents() { return writtenEvents.get(); }
+    public long getFailedEvents() { return failedEvents.get(); }
+    public int getQueuedEvents() { return queue.size(); }
+
+    /**
+     * Stops accepting events and waits up to the timeout for queued ones to be written
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive() || !queue.isEmpty()) {
+            LOGGER.warning("Login audit writer did not drain in time; " + queue.size() + " events not written");
+        }
+        LOGGER.info(String.format("Login audit writer stopped: %d written, %d dropped, %d failed",
+                writtenEvents.get(), droppedEvents.get(), failedEvents.get()));
+    }
+
+    private void offer(LoginEvent event) {
+        if (!running || !queue.offer(event)) {
+            long dropped = droppedEvents.incrementAndGet();
+            // Log the first drop and then every thousandth, not every one
+            if (dropped == 1 || dropped % 1000 == 0) {
+                LOGGER.warning("Login audit queue full, " + dropped + " events dropped so far");
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<LoginEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                LoginEvent first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<LoginEvent> batch) {
+        try (Connection conn = connectionSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(buildFlushSql(batch.size()))) {
+            int parameter = 1;
+            for (LoginEvent event : batch) {
+                pstmt.setObject(parameter++, event.userId);
+                pstmt.setString(parameter++, event.ipAddress);
+                pstmt.setBoolean(parameter++, event.success);
+                pstmt.setBoolean(parameter++, event.audited);
+                pstmt.setTimestamp(parameter++, Timestamp.from(event.time));
+            }
+            pstmt.executeUpdate();
+            writtenEvents.addAndGet(batch.size());
+        } catch (SQLException e) {
+            failedEvents.addAndGet(batch.size());
+            LOGGER.log(Level.WARNING, "Failed to write " + batch.size() + " login audit events", e);
+        }
+    }
+
+    static String buildFlushSql(int rows) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                values.append(", ");
+            }
+            values.append("(?::uuid, ?::varchar, ?::boolean, ?::boolean, ?::timestamptz)");
+        }
+        return "WITH events (user_id, ip_address, success, audited, login_time) AS (VALUES " + values + "), "
+                + "logged AS (INSERT INTO login_logs (user_id, ip_address, success, login_time) "
+                + "SELECT user_id, ip_address, success, login_time FROM events WHERE audited), "
+                + "rolled_up AS (INSERT INTO login_daily_stats (day, user_id, successes, failures) "
+                + "SELECT (login_time AT TIME ZONE 'UTC')::date, COALESCE(user_id, '" + UNKNOWN_USER + "'::uuid), "
+                + "COUNT(*) FILTER (WHERE success), COUNT(*) FILTER (WHERE NOT success) "
+                + "FROM events WHERE audited GROUP BY 1, 2 "
+                + "ON CONFLICT (day, user_id) DO UPDATE SET successes = login_daily_stats.successes + EXCLUDED.successes, "
+                + "failures = login_daily_stats.failures + EXCLUDED.failures) "
+                + "UPDATE users u SET last_login = e.last_login "
+                + "FROM (SELECT user_id, MAX(login_time) AS last_login FROM events "
+                + "WHERE success AND user_id IS NOT NULL GROUP BY user_id) e "
+                + "WHERE u.id = e.user_id AND (u.last_login IS NULL OR u.last_login < e.last_login)";
+    }
+
+    private static class LoginEvent {
+        private final UUID userId;
+        private final String ipAddress;
+        private final boolean success;
+        private final boolean audited;
+        private final Instant time;
+
+        LoginEvent(UUID userId, String ipAddress, boolean success, boolean audited, Instant time) {
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+            this.success = success;
+            this.audited = audited;
+            this.time = time;
+        }
+    }
+}
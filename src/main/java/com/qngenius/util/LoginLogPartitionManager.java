@@ -0,0 +1,232 @@
+package com.qngenius.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly partitions of {@code login_logs} in shape.
+ *
+ * Once a day it creates the partitions for the current month and the next few, so new rows
+ * never land in the default partition, and drops whole partitions that have aged past the
+ * retention period. Rows the default partition already holds, from an upgraded database or
+ * from logins before the first run, are moved into partitions for their months, and those
+ * older than the retention period are deleted. Dropping a partition is a catalog change, not a DELETE, so it costs the
+ * same however many rows it held. The daily rollups in {@code login_daily_stats} are kept.
+ * Only partitions named {@code login_logs_yYYYYmMM} are managed.
+ */
+public class LoginLogPartitionManager {
+
+    private static final Logger LOGGER = Logger.getLogger(LoginLogPartitionManager.class.getName());
+    private static final String PARENT_TABLE = "login_logs";
+    private static final String DEFAULT_PARTITION = "login_logs_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile("login_logs_y(\\d{4})m(\\d{2})");
+
+    private final ConnectionSource connectionSource;
+    private final int retentionMonths;
+    private final int monthsAhead;
+    private ScheduledExecutorService scheduler;
+
+    public LoginLogPartitionManager(ConnectionSource connectionSource, int retentionMonths, int monthsAhead) {
+        this.connectionSource = connectionSource;
+        this.retentionMonths = Math.max(1, retentionMonths);
+        this.monthsAhead = Math.max(0, monthsAhead);
+    }
+
+    /**
+     * Runs maintenance now in the background and then once a day
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-log-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, 0, 1, TimeUnit.DAYS);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Creates missing partitions, moving any of their rows out of the default partition, and
+     * drops expired ones. Each month is handled on its own, so one that fails is retried on the
+     * next run without holding up the others or the retention.
+     */
+    public void maintain() throws SQLException {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth oldestKept = current.minusMonths(retentionMonths - 1);
+
+        try (Connection conn = connectionSource.getConnection()) {
+            conn.setAutoCommit(true);
+            Set<String> existing = new HashSet<>(listPartitions(conn));
+            // Months the default partition caught before their partition existed: every row of an
+            // upgraded database, and logins written before the first maintenance run
+            SortedSet<YearMonth> months = new TreeSet<>();
+            if (existing.contains(DEFAULT_PARTITION)) {
+                months.addAll(defaultPartitionMonths(conn));
+            }
+            months.removeIf(month -> month.isBefore(oldestKept));
+            for (int i = 0; i <= monthsAhead; i++) {
+                months.add(current.plusMonths(i));
+            }
+
+            int created = 0;
+            int failed = 0;
+            for (YearMonth month : months) {
+                if (existing.contains(partitionName(month))) {
+                    continue;
+                }
+                try {
+                    createPartition(conn, month);
+                    created++;
+                } catch (SQLException e) {
+                    failed++;
+                    LOGGER.log(Level.WARNING, "Could not create login log partition " + partitionName(month), e);
+                }
+            }
+
+            int dropped = 0;
+            for (String partition : existing) {
+                Matcher matcher = PARTITION_NAME.matcher(partition);
+                if (!matcher.matches()) {
+                    continue;
+                }
+                YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                if (month.isBefore(oldestKept)) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+                        stmt.execute("DROP TABLE " + partition);
+                        dropped++;
+                        LOGGER.info("Dropped expired login log partition " + partition);
+                    } catch (SQLException e) {
+                        failed++;
+                        LOGGER.log(Level.WARNING, "Could not drop expired login log partition " + partition, e);
+                    }
+                }
+            }
+
+            int expired = 0;
+            if (existing.contains(DEFAULT_PARTITION)) {
+                try (PreparedStatement pstmt = conn.prepareStatement(
+                        "DELETE FROM " + DEFAULT_PARTITION + " WHERE login_time < ?::timestamptz")) {
+                    pstmt.setString(1, boundary(oldestKept));
+                    expired = pstmt.executeUpdate();
+                } catch (SQLException e) {
+                    failed++;
+                    LOGGER.log(Level.WARNING, "Could not delete expired rows from " + DEFAULT_PARTITION, e);
+                }
+            }
+
+            LOGGER.info(String.format("Login log partitions maintained: through %s, keeping from %s, "
+                    + "%d created, %d dropped, %d expired rows deleted from the default partition",
+                    current.plusMonths(monthsAhead), oldestKept, created, dropped, expired));
+            if (failed > 0) {
+                throw new SQLException(failed + " login log partition step(s) failed; see the earlier warnings");
+            }
+        }
+    }
+
+    /**
+     * CREATE TABLE ... PARTITION OF fails while the default partition holds rows in the new
+     * range, so the partition is built as a standalone table, the month's rows are moved into
+     * it and it is attached, all in one transaction
+     */
+    private static void createPartition(Connection conn, YearMonth month) throws SQLException {
+        String partition = partitionName(month);
+        String from = boundary(month);
+        String to = boundary(month.plusMonths(1));
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE " + partition + " (LIKE " + PARENT_TABLE + " INCLUDING DEFAULTS)");
+            int moved = stmt.executeUpdate(String.format(
+                    "WITH moved AS (DELETE FROM %s WHERE login_time >= '%s' AND login_time < '%s' RETURNING *) "
+                            + "INSERT INTO %s SELECT * FROM moved",
+                    DEFAULT_PARTITION, from, to, partition));
+            stmt.execute(String.format("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                    PARENT_TABLE, partition, from, to));
+            conn.commit();
+            LOGGER.info(moved == 0 ? "Created login log partition " + partition
+                    : "Created login log partition " + partition + " with " + moved + " rows from " + DEFAULT_PARTITION);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static List<YearMonth> defaultPartitionMonths(Connection conn) throws SQLException {
+        String sql = "SELECT DISTINCT to_char(login_time AT TIME ZONE 'UTC', 'YYYY-MM') FROM " + DEFAULT_PARTITION;
+        List<YearMonth> months = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                months.add(YearMonth.parse(rs.getString(1)));
+            }
+        }
+        return months;
+    }
+
+    static String partitionName(YearMonth month) {
+        return String.format("%s_y%04dm%02d", PARENT_TABLE, month.getYear(), month.getMonthValue());
+    }
+
+    private static String boundary(YearMonth month) {
+        LocalDate first = month.atDay(1);
+        return first + " 00:00:00+00";
+    }
+
+    private static List<String> listPartitions(Connection conn) throws SQLException {
+        String sql = "SELECT c.relname FROM pg_inherits i "
+                + "JOIN pg_class c ON c.oid = i.inhrelid "
+                + "JOIN pg_class p ON p.oid = i.inhparent "
+                + "WHERE p.relname = ? ORDER BY c.relname";
+        List<String> partitions = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, PARENT_TABLE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(rs.getString(1));
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private void runSafely() {
+        try {
+            maintain();
+        } catch (SQLException e) {
+            // Retried on the next run; the default partition catches rows meanwhile
+            LOGGER.log(Level.WARNING, "Login log partition maintenance failed", e);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Login log partition maintenance failed", e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.qngenius.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Holds the latency statistics of DAO methods, SQL statements and service calls.
+ *
+ * Every {@link OperationStats} is registered as an MXBean under the {@code com.qngenius}
+ * domain, so p50/p99/max can be watched in JConsole or VisualVM, and the connection pool
+ * state is exposed next to them. Once a minute by default one log line summarizes the
+ * slowest operations of the interval.
+ */
+public class MetricsRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsRegistry.class.getName());
+    private static final String DOMAIN = "com.qngenius";
+    // SQL text is part of the MXBean name; very long statements are cut
+    private static final int MAX_NAME_LENGTH = 200;
+    private static final int MAX_STATEMENTS = 256;
+    private static final int SUMMARY_TOP = 8;
+    private static MetricsRegistry instance;
+
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final Map<String, OperationStats> statements = new ConcurrentHashMap<>();
+    // Raw SQL text to its normalized statement, so repeat lookups skip normalizing
+    private final Map<String, OperationStats> statementsBySql = new ConcurrentHashMap<>();
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final ScheduledExecutorService scheduler;
+    private volatile Supplier<EnhancedDatabaseUtil.DatabaseHealth> poolStatus;
+
+    private MetricsRegistry() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-summary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int interval = ConfigManager.getInstance().getMetricsSummaryIntervalSeconds();
+        if (interval > 0) {
+            scheduler.scheduleAtFixedRate(this::logSummary, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Stats of a named operation such as {@code "QuestionService.saveQuestions"}
+     */
+    public OperationStats operation(String name) {
+        OperationStats stats = operations.get(name);
+        return stats != null ? stats : operations.computeIfAbsent(name, key -> register("Operation", key));
+    }
+
+    /**
+     * Stats of one SQL statement. Multi-row VALUES lists are folded so that the same statement
+     * with different row counts is tracked once.
+     */
+    public OperationStats statement(String sql) {
+        OperationStats stats = statementsBySql.get(sql);
+        if (stats != null) {
+            return stats;
+        }
+        String normalized = normalizeSql(sql);
+        if (statements.size() >= MAX_STATEMENTS && !statements.containsKey(normalized)) {
+            normalized = "(other statements)";
+        }
+        stats = statements.computeIfAbsent(normalized, key -> register("Statement", key));
+        if (statementsBySql.size() < MAX_STATEMENTS * 4) {
+            statementsBySql.putIfAbsent(sql, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Exposes the pool state as the {@code com.qngenius:type=ConnectionPool} MXBean
+     */
+    public void registerConnectionPool(Supplier<EnhancedDatabaseUtil.DatabaseHealth> status) {
+        poolStatus = status;
+        try {
+            ObjectName name = new ObjectName(DOMAIN + ":type=ConnectionPool");
+            if (!mbeanServer.isRegistered(name)) {
+                mbeanServer.registerMBean(new ConnectionPoolStats(), name);
+            }
+        } catch (JMException e) {
+            LOGGER.log(Level.WARNING, "Failed to register connection pool MXBean", e);
+        }
+    }
+
+    public void logSummary() {
+        List<Map.Entry<String, Histogram.Snapshot>> active = new ArrayList<>();
+        for (OperationStats stats : operations.values()) {
+            Histogram.Snapshot interval = stats.takeIntervalSnapshot();
+            if (interval.getCount() > 0) {
+                active.add(new AbstractMap.SimpleEntry<>(stats.getName(), interval));
+            }
+        }
+
+        StringBuilder line = new StringBuilder("Metrics");
+        Supplier<EnhancedDatabaseUtil.DatabaseHealth> status = poolStatus;
+        if (status != null) {
+            EnhancedDatabaseUtil.DatabaseHealth health = status.get();
+            line.append(String.format(" | pool active=%d idle=%d total=%d",
+                    health.getActiveConnections(), health.getIdleConnections(), health.getTotalConnections()));
+        }
+        if (active.isEmpty()) {
+            line.append(" | no calls");
+        }
+        // Slowest first; statements show up through the DAO methods that run them
+        active.sort((a, b) -> Long.compare(b.getValue().getPercentile(99), a.getValue().getPercentile(99)));
+        for (Map.Entry<String, Histogram.Snapshot> entry : active.subList(0, Math.min(SUMMARY_TOP, active.size()))) {
+            Histogram.Snapshot interval = entry.getValue();
+            line.append(String.format(" | %s n=%d p50=%.1fms p99=%.1fms max=%.1fms", entry.getKey(), interval.getCount(),
+                    interval.getPercentile(50) / 1_000_000.0, interval.getPercentile(99) / 1_000_000.0,
+                    interval.getPercentile(100) / 1_000_000.0));
+        }
+        if (active.size() > SUMMARY_TOP) {
+            line.append(" | ").append(active.size() - SUMMARY_TOP).append(" more");
+        }
+        LOGGER.info(line.toString());
+    }
+
+    static String normalizeSql(String sql) {
+        String collapsed = sql.replaceAll("\\s+", " ").trim();
+        // "(?, ?), (?, ?), (?, ?)" becomes "(?, ?), ..."
+        return collapsed.replaceAll("(\\([^()]*\\?[^()]*\\))(?:\\s*,\\s*\\([^()]*\\?[^()]*\\))+", "$1, ...");
+    }
+
+    private OperationStats register(String type, String name) {
+        OperationStats stats = new OperationStats(name);
+        String shown = name.length() > MAX_NAME_LENGTH ? name.substring(0, MAX_NAME_LENGTH) + "..." : name;
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(shown));
+            if (!mbeanServer.isRegistered(objectName)) {
+                mbeanServer.registerMBean(stats, objectName);
+            }
+        } catch (JMException e) {
+            // Still tracked and logged, just not visible over JMX
+            LOGGER.log(Level.FINE, "Failed to register MXBean for " + shown, e);
+        }
+        return stats;
+    }
+
+    public interface ConnectionPoolStatsMXBean {
+        boolean isHealthy();
+        String getStatus();
+        int getActiveConnections();
+        int getIdleConnections();
+        int getTotalConnections();
+    }
+
+    private class ConnectionPoolStats implements ConnectionPoolStatsMXBean {
+        private EnhancedDatabaseUtil.DatabaseHealth health() { return poolStatus.get(); }
+
+        @Override public boolean isHealthy() { return health().isHealthy(); }
+        @Override public String getStatus() { return health().getStatus(); }
+        @Override public int getActiveConnections() { return health().getActiveConnections(); }
+        @Override public int getIdleConnections() { return health().getIdleConnections(); }
+        @Override public int getTotalConnections() { return health().getTotalConnections(); }
+    }
+}
@@ -0,0 +1,94 @@
+package com.qngenius.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and volume of one operation: a DAO method, a SQL statement or a service call.
+ * Registered with JMX by {@link MetricsRegistry}.
+ */
+public class OperationStats implements OperationStatsMXBean {
+
+    private final String name;
+    private final Histogram latency = new Histogram();
+    private final Histogram batchSizes = new Histogram();
+    private final LongAdder rowsReturned = new LongAdder();
+    private final LongAdder rowsAffected = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private Histogram.Snapshot lastSummary = latency.snapshot();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordSince(long startNanos) {
+        latency.record(System.nanoTime() - startNanos);
+    }
+
+    public void recordError() {
+        errors.increment();
+    }
+
+    public void addRowsReturned(long rows) {
+        rowsReturned.add(rows);
+    }
+
+    public void addRowsAffected(long rows) {
+        rowsAffected.add(rows);
+    }
+
+    public void recordBatchSize(int size) {
+        batchSizes.record(size);
+    }
+
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * The calls since the previous call of this method, for the periodic summary
+     */
+    synchronized Histogram.Snapshot takeIntervalSnapshot() {
+        Histogram.Snapshot now = latency.snapshot();
+        Histogram.Snapshot interval = now.minus(lastSummary);
+        lastSummary = now;
+        return interval;
+    }
+
+    @Override public long getCount() { return latency.getCount(); }
+    @Override public long getErrors() { return errors.sum(); }
+    @Override public long getRowsReturned() { return rowsReturned.sum(); }
+    @Override public long getRowsAffected() { return rowsAffected.sum(); }
+    @Override public double getMeanMillis() { return latency.snapshot().getMean() / 1_000_000.0; }
+    @Override public double getP50Millis() { return percentileMillis(50); }
+    @Override public double getP99Millis() { return percentileMillis(99); }
+    @Override public double getP999Millis() { return percentileMillis(99.9); }
+    @Override public double getMaxMillis() { return latency.getMax() / 1_000_000.0; }
+    @Override public long getBatches() { return batchSizes.getCount(); }
+    @Override public double getMeanBatchSize() { return batchSizes.snapshot().getMean(); }
+    @Override public long getMaxBatchSize() { return batchSizes.getMax(); }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        batchSizes.reset();
+        rowsReturned.reset();
+        rowsAffected.reset();
+        errors.reset();
+    }
+
+    @Override
+    public String toString() {
+        Histogram.Snapshot snapshot = latency.snapshot();
+        return String.format("%s: n=%d p50=%.1fms p99=%.1fms max=%.1fms", name, snapshot.getCount(),
+                snapshot.getPercentile(50) / 1_000_000.0, snapshot.getPercentile(99) / 1_000_000.0,
+                latency.getMax() / 1_000_000.0);
+    }
+
+    private double percentileMillis(double percentile) {
+        return latency.snapshot().getPercentile(percentile) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.qngenius.util;
+
+/**
+ * JMX view of an {@link OperationStats}. Latencies are cumulative since start or the last reset.
+ */
+public interface OperationStatsMXBean {
+    long getCount();
+    long getErrors();
+    long getRowsReturned();
+    long getRowsAffected();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getP999Millis();
+    double getMaxMillis();
+    long getBatches();
+    double getMeanBatchSize();
+    long getMaxBatchSize();
+    void reset();
+}
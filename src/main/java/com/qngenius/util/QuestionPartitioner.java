@@ -0,0 +1,147 @@
+package com.qngenius.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Converts {@code questions} into a table hash-partitioned on {@code subject_id}, for banks
+ * large enough that every per-subject query should touch one partition only. The DAO filters
+ * questions on {@code subject_id = ?} wherever the subject is known, so PostgreSQL prunes the
+ * other partitions, at execution time for server-side prepared statements.
+ *
+ * The conversion copies every row in one transaction that holds an exclusive lock on
+ * {@code questions}, so it belongs in a maintenance window; it is not a startup migration.
+ * Rows without a subject, from questions saved without a unit, go to the partition for NULL.
+ * On the partitioned table {@code question_id} is unique together with {@code subject_id}
+ * only, as PostgreSQL requires of unique indexes on partitioned tables. Needs PostgreSQL 13
+ * or later, for the row trigger that keeps {@code subject_id} in step.
+ */
+public class QuestionPartitioner {
+
+    private static final Logger LOGGER = Logger.getLogger(QuestionPartitioner.class.getName());
+    private static final int MIN_SERVER_VERSION = 130000;
+    private static final String OLD_TABLE = "questions_unpartitioned";
+
+    private final ConnectionSource connectionSource;
+
+    public QuestionPartitioner(ConnectionSource connectionSource) {
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * @return the partitions {@code questions} is split into, 0 if it is not partitioned
+     */
+    public int getPartitionCount() throws SQLException {
+        try (Connection conn = connectionSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM pg_inherits WHERE inhparent = 'questions'::regclass")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Splits {@code questions} into the given number of hash partitions on {@code subject_id},
+     * unless it is partitioned already. Expects the schema migrations to have run.
+     *
+     * @return whether the table was converted
+     */
+    public boolean partitionBySubject(int partitions) throws SQLException {
+        if (partitions < 2) {
+            throw new IllegalArgumentException("Partitioning into " + partitions + " partitions makes no sense");
+        }
+        try (Connection conn = connectionSource.getConnection();
+             Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SHOW server_version_num")) {
+                rs.next();
+                if (Integer.parseInt(rs.getString(1)) < MIN_SERVER_VERSION) {
+                    throw new SQLException("Partitioning questions needs PostgreSQL 13 or later");
+                }
+            }
+
+            conn.setAutoCommit(false);
+            try {
+                stmt.execute("LOCK TABLE questions IN ACCESS EXCLUSIVE MODE");
+                try (ResultSet rs = stmt.executeQuery("SELECT relkind FROM pg_class WHERE oid = 'questions'::regclass")) {
+                    rs.next();
+                    if ("p".equals(rs.getString(1))) {
+                        conn.rollback();
+                        return false;
+                    }
+                }
+                long start = System.currentTimeMillis();
+                LOGGER.info("Partitioning questions by subject into " + partitions + " partitions");
+
+                // Frees the index names for the new table; the old table goes at the end
+                for (String index : secondaryIndexes(stmt)) {
+                    stmt.execute("DROP INDEX " + index);
+                }
+                List<String> foreignKeys = foreignKeys(stmt);
+                stmt.execute("ALTER TABLE questions RENAME TO " + OLD_TABLE);
+                stmt.execute("CREATE TABLE questions (LIKE " + OLD_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS) "
+                        + "PARTITION BY HASH (subject_id)");
+                for (int i = 0; i < partitions; i++) {
+                    stmt.execute(String.format("CREATE TABLE questions_p%d PARTITION OF questions "
+                            + "FOR VALUES WITH (MODULUS %d, REMAINDER %d)", i, partitions, i));
+                }
+                int rows = stmt.executeUpdate("INSERT INTO questions SELECT * FROM " + OLD_TABLE);
+                stmt.execute("DROP TABLE " + OLD_TABLE);
+
+                // Indexes after the copy, each built once per partition
+                for (String foreignKey : foreignKeys) {
+                    stmt.execute("ALTER TABLE questions ADD " + foreignKey);
+                }
+                stmt.execute("CREATE UNIQUE INDEX uq_questions_id ON questions (question_id, subject_id)");
+                stmt.execute("CREATE UNIQUE INDEX uq_questions_import_row ON questions (import_id, import_row, subject_id)");
+                stmt.execute("CREATE INDEX idx_questions_selection "
+                        + "ON questions (subject_id, marks, difficulty_level, bloom_taxonomy_level)");
+                stmt.execute("CREATE INDEX idx_questions_unit ON questions (unit_id)");
+                stmt.execute("CREATE INDEX idx_questions_browse ON questions (created_at, question_id)");
+                stmt.execute("CREATE INDEX idx_questions_subject_browse ON questions (subject_id, created_at, question_id)");
+                stmt.execute("CREATE TRIGGER trg_questions_subject_id BEFORE INSERT OR UPDATE OF unit_id ON questions "
+                        + "FOR EACH ROW EXECUTE FUNCTION questions_set_subject_id()");
+                conn.commit();
+                LOGGER.info(String.format("Partitioned %,d questions in %,d ms", rows, System.currentTimeMillis() - start));
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            // Partitioned tables get no statistics from autovacuum, only their partitions do
+            stmt.execute("ANALYZE questions");
+            return true;
+        }
+    }
+
+    private static List<String> secondaryIndexes(Statement stmt) throws SQLException {
+        List<String> indexes = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery("SELECT i.indexrelid::regclass FROM pg_index i "
+                + "WHERE i.indrelid = 'questions'::regclass "
+                + "AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)")) {
+            while (rs.next()) {
+                indexes.add(rs.getString(1));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * @return "CONSTRAINT name FOREIGN KEY ..." for each foreign key of {@code questions}
+     */
+    private static List<String> foreignKeys(Statement stmt) throws SQLException {
+        List<String> foreignKeys = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery("SELECT quote_ident(conname), pg_get_constraintdef(oid) FROM pg_constraint "
+                + "WHERE conrelid = 'questions'::regclass AND contype = 'f' ORDER BY conname")) {
+            while (rs.next()) {
+                foreignKeys.add("CONSTRAINT " + rs.getString(1) + " " + rs.getString(2));
+            }
+        }
+        return foreignKeys;
+    }
+}
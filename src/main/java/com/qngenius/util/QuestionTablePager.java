@@ -0,0 +1,242 @@
+package com.qngenius.util;
+
+import com.qngenius.model.Question;
+import com.qngenius.model.QuestionFilter;
+import com.qngenius.model.QuestionPage;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Shows the question bank in a {@link TableView} a page at a time, however large the bank.
+ *
+ * Pages come from {@link DatabaseUtil#getQuestionsAfter} on a background thread. As soon as a
+ * page is shown the one after it is fetched, so scrolling to the end of the table normally
+ * finds the next page already waiting. The table holds at most {@code maxPages} pages: pages
+ * scrolled far past are let go and fetched again with {@link DatabaseUtil#getQuestionsBefore}
+ * when scrolled back to, so memory stays flat too. Columns must not be sortable, since the rows
+ * are kept in browsing order. All methods are for the FX application thread.
+ */
+public class QuestionTablePager {
+
+    private static final Logger LOGGER = Logger.getLogger(QuestionTablePager.class.getName());
+    // One thread for every browser, so no page fetch competes with another for a connection
+    private static final ExecutorService FETCHER = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "question-browser");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final TableView<Question> table;
+    private final Label statusLabel;
+    private final int pageSize;
+    private final int maxPages;
+
+    private final ArrayDeque<QuestionPage> pages = new ArrayDeque<>();
+    private QuestionFilter filter = QuestionFilter.all();
+    private VirtualFlow<?> flow;
+    private CompletableFuture<QuestionPage> prefetched;
+    private boolean moreBefore;
+    private boolean moreAfter;
+    private boolean loading;
+    // After an error nothing more loads until the next show(), rather than retrying every layout
+    private boolean failed;
+    // Results of a fetch started before the last show() are dropped
+    private int generation;
+
+    /**
+     * @param statusLabel where the number of questions loaded and any error go; may be null
+     */
+    public QuestionTablePager(TableView<Question> table, Label statusLabel, int pageSize, int maxPages) {
+        if (pageSize < 1 || maxPages < 2) {
+            throw new IllegalArgumentException("Need a positive page size and at least 2 pages");
+        }
+        this.table = table;
+        this.statusLabel = statusLabel;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+
+        table.skinProperty().addListener((obs, oldSkin, newSkin) -> attach());
+        table.needsLayoutProperty().addListener((obs, wasNeeded, needed) -> {
+            if (!needed) {
+                checkPosition();
+            }
+        });
+        attach();
+    }
+
+    /**
+     * Replaces the table contents with the first page of the questions that match.
+     */
+    public void show(QuestionFilter filter) {
+        this.filter = filter;
+        generation++;
+        pages.clear();
+        table.getItems().clear();
+        prefetched = null;
+        moreBefore = false;
+        moreAfter = true;
+        loading = false;
+        failed = false;
+        setStatus("Loading questions...");
+        loadNext();
+    }
+
+    private void attach() {
+        if (flow != null || table.getSkin() == null) {
+            return;
+        }
+        flow = (VirtualFlow<?>) table.lookup(".virtual-flow");
+        if (flow != null) {
+            flow.positionProperty().addListener((obs, oldPosition, newPosition) -> checkPosition());
+        }
+    }
+
+    private void checkPosition() {
+        if (loading || failed || flow == null || pages.isEmpty()) {
+            return;
+        }
+        IndexedCell<?> first = flow.getFirstVisibleCell();
+        IndexedCell<?> last = flow.getLastVisibleCell();
+        if (first == null || last == null) {
+            return;
+        }
+        int threshold = pageSize / 2;
+        if (moreAfter && last.getIndex() >= table.getItems().size() - threshold) {
+            loadNext();
+        } else if (moreBefore && first.getIndex() < threshold) {
+            loadPrevious();
+        }
+    }
+
+    private void loadNext() {
+        if (loading || failed || !moreAfter) {
+            return;
+        }
+        loading = true;
+        CompletableFuture<QuestionPage> next = prefetched != null ? prefetched : fetchAfter();
+        prefetched = null;
+        int expected = generation;
+        next.whenComplete((page, error) -> Platform.runLater(() -> {
+            if (expected != generation) {
+                return;
+            }
+            loading = false;
+            if (error != null) {
+                failed(error);
+                return;
+            }
+            ObservableList<Question> items = table.getItems();
+            int firstVisible = firstVisibleIndex();
+            items.addAll(page.getQuestions());
+            pages.addLast(page);
+            moreAfter = page.hasMore();
+            if (pages.size() > maxPages) {
+                int dropped = pages.removeFirst().getQuestions().size();
+                items.remove(0, dropped);
+                moreBefore = true;
+                // Keeps the rows in view where they were
+                table.scrollTo(Math.max(0, firstVisible - dropped));
+            }
+            if (moreAfter) {
+                prefetched = fetchAfter();
+            }
+            showCount();
+        }));
+    }
+
+    private void loadPrevious() {
+        loading = true;
+        int expected = generation;
+        QuestionPage.Cursor before = pages.getFirst().getFirst();
+        QuestionFilter current = filter;
+        fetch(() -> DatabaseUtil.getQuestionsBefore(current, before, pageSize))
+                .whenComplete((page, error) -> Platform.runLater(() -> {
+                    if (expected != generation) {
+                        return;
+                    }
+                    loading = false;
+                    if (error != null) {
+                        failed(error);
+                        return;
+                    }
+                    ObservableList<Question> items = table.getItems();
+                    int firstVisible = firstVisibleIndex();
+                    items.addAll(0, page.getQuestions());
+                    pages.addFirst(page);
+                    moreBefore = page.hasMore();
+                    if (pages.size() > maxPages) {
+                        int dropped = pages.removeLast().getQuestions().size();
+                        items.remove(items.size() - dropped, items.size());
+                        moreAfter = true;
+                        // Its successor follows a page that is gone now
+                        prefetched = null;
+                    }
+                    table.scrollTo(firstVisible + page.getQuestions().size());
+                    showCount();
+                }));
+    }
+
+    private CompletableFuture<QuestionPage> fetchAfter() {
+        QuestionPage.Cursor after = pages.isEmpty() ? null : pages.getLast().getLast();
+        QuestionFilter current = filter;
+        return fetch(() -> DatabaseUtil.getQuestionsAfter(current, after, pageSize));
+    }
+
+    private static CompletableFuture<QuestionPage> fetch(PageQuery query) {
+        Supplier<QuestionPage> supplier = () -> {
+            try {
+                return query.get();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        };
+        return CompletableFuture.supplyAsync(supplier, FETCHER);
+    }
+
+    private int firstVisibleIndex() {
+        IndexedCell<?> first = flow != null ? flow.getFirstVisibleCell() : null;
+        return first != null ? first.getIndex() : 0;
+    }
+
+    private void failed(Throwable error) {
+        failed = true;
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        LOGGER.log(Level.WARNING, "Could not load questions", cause);
+        setStatus("Could not load questions: " + cause.getMessage());
+    }
+
+    private void showCount() {
+        int loaded = table.getItems().size();
+        if (loaded == 0) {
+            setStatus("No questions found for the given criteria.");
+        } else {
+            setStatus(String.format("Showing %,d questions%s", loaded, moreAfter ? ", scroll for more" : ""));
+        }
+    }
+
+    private void setStatus(String status) {
+        if (statusLabel != null) {
+            statusLabel.setText(status);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PageQuery {
+        QuestionPage get() throws SQLException;
+    }
+}
@@ -0,0 +1,375 @@
+package com.qngenius.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Applies the versioned schema changes under {@code /db/migration} that a database does not
+ * have yet, in order, recording each in {@code schema_migrations}.
+ *
+ * {@code QnGenius_fx_db_scripts.sql} creates the baseline schema; everything after it is a
+ * migration. A migration runs in one transaction unless its first line is
+ * {@code -- no-transaction}, in which case each statement commits on its own, as
+ * {@code CREATE INDEX CONCURRENTLY} requires. Such migrations must be safe to rerun after a
+ * partial failure. Concurrent starts are serialised with an advisory lock.
+ */
+public class SchemaMigrator {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrator.class.getName());
+    private static final String LOCATION = "/db/migration/";
+    // Listed rather than scanned, since a jar cannot be listed portably
+    private static final String[] MIGRATIONS = {
+        "V1__bring_existing_databases_up_to_date.sql",
+        "V2__add_subject_id_to_questions.sql",
+        "V3__add_indexes_for_hot_queries.sql",
+        "V4__prune_unit_moves_by_subject.sql",
+        "V5__require_question_created_at.sql",
+        "V6__add_question_browse_indexes.sql",
+    };
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String NO_TRANSACTION = "-- no-transaction";
+    private static final Pattern CONCURRENT_INDEX = Pattern.compile(
+            "CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+(CONCURRENTLY\\s+)(?:IF\\s+NOT\\s+EXISTS\\s+)?(\\w+)\\s+ON\\s+(\\w+)",
+            Pattern.CASE_INSENSITIVE);
+    private static final long LOCK_KEY = 0x516e47656e697573L; // "QnGenius"
+    private static final long LOCK_POLL_MILLIS = 1000;
+    private static final long LOCK_LOG_INTERVAL_MILLIS = 30000;
+
+    private final ConnectionSource connectionSource;
+
+    public SchemaMigrator(ConnectionSource connectionSource) {
+        this.connectionSource = connectionSource;
+    }
+
+    /**
+     * @return the number of migrations applied
+     * @throws SQLException if the baseline schema is missing or a migration fails; the
+     *         migrations before it stay applied
+     */
+    public int migrate() throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        try (Connection conn = connectionSource.getConnection()) {
+            conn.setAutoCommit(true);
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT to_regclass('questions') IS NOT NULL")) {
+                rs.next();
+                if (!rs.getBoolean(1)) {
+                    throw new SQLException("The database has no QnGenius schema; run QnGenius_fx_db_scripts.sql first");
+                }
+            }
+            acquireLock(conn);
+            try {
+                createHistoryTable(conn);
+                int applied = 0;
+                for (Migration migration : migrations) {
+                    Long checksum = appliedChecksum(conn, migration.version);
+                    if (checksum == null) {
+                        apply(conn, migration);
+                        applied++;
+                    } else if (checksum != migration.checksum) {
+                        LOGGER.warning("Migration V" + migration.version + " has changed since it was applied; "
+                                + "the change is not applied to this database");
+                    }
+                }
+                if (applied > 0) {
+                    LOGGER.info("Applied " + applied + " schema migration(s)");
+                }
+                return applied;
+            } finally {
+                releaseLock(conn);
+            }
+        }
+    }
+
+    /**
+     * A blocking pg_advisory_lock would hold a snapshot while it waits, and CREATE INDEX
+     * CONCURRENTLY in the instance holding the lock waits for every such snapshot to end
+     */
+    private static void acquireLock(Connection conn) throws SQLException {
+        long start = System.currentTimeMillis();
+        long lastLogged = start;
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            stmt.setLong(1, LOCK_KEY);
+            while (true) {
+                try (ResultSet rs = stmt.executeQuery()) {
+                    rs.next();
+                    if (rs.getBoolean(1)) {
+                        return;
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastLogged >= LOCK_LOG_INTERVAL_MILLIS) {
+                    LOGGER.info("Waiting for another instance to finish migrating the schema ("
+                            + (now - start) / 1000 + " s so far)");
+                    lastLogged = now;
+                }
+                try {
+                    Thread.sleep(LOCK_POLL_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for the schema migration lock", e);
+                }
+            }
+        }
+    }
+
+    private static void releaseLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            stmt.setLong(1, LOCK_KEY);
+            stmt.execute();
+        } catch (SQLException e) {
+            // Released anyway when the connection closes
+            LOGGER.log(Level.WARNING, "Failed to release the schema migration lock", e);
+        }
+    }
+
+    private static void createHistoryTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                    + "version INTEGER PRIMARY KEY, "
+                    + "description VARCHAR(255) NOT NULL, "
+                    + "checksum BIGINT NOT NULL, "
+                    + "applied_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                    + "execution_millis BIGINT NOT NULL)");
+        }
+    }
+
+    private static Long appliedChecksum(Connection conn, int version) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT checksum FROM schema_migrations WHERE version = ?")) {
+            stmt.setInt(1, version);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+        LOGGER.info("Applying schema migration V" + migration.version + ": " + migration.description);
+        long start = System.currentTimeMillis();
+        try {
+            if (migration.transactional) {
+                conn.setAutoCommit(false);
+                try {
+                    execute(conn, migration.statements);
+                    record(conn, migration, System.currentTimeMillis() - start);
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } else {
+                dropInvalidIndexes(conn, migration.statements);
+                execute(conn, withoutConcurrentlyOnPartitionedTables(conn, migration.statements));
+                record(conn, migration, System.currentTimeMillis() - start);
+            }
+        } catch (SQLException e) {
+            throw new SQLException("Schema migration V" + migration.version + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void execute(Connection conn, List<String> statements) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * A concurrent index build that failed leaves an invalid index behind, which IF NOT EXISTS
+     * would then take as done
+     */
+    private static void dropInvalidIndexes(Connection conn, List<String> statements) throws SQLException {
+        String sql = "SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid "
+                + "WHERE c.relname = ? AND c.relnamespace = current_schema()::regnamespace AND NOT i.indisvalid";
+        try (PreparedStatement check = conn.prepareStatement(sql);
+             Statement drop = conn.createStatement()) {
+            for (String statement : statements) {
+                Matcher matcher = CONCURRENT_INDEX.matcher(statement);
+                if (!matcher.lookingAt()) {
+                    continue;
+                }
+                String index = matcher.group(2);
+                check.setString(1, index);
+                try (ResultSet rs = check.executeQuery()) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                }
+                LOGGER.warning("Dropping invalid index " + index + " left by an earlier failed build");
+                drop.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            }
+        }
+    }
+
+    /**
+     * PostgreSQL builds no index on a partitioned table concurrently; on such a table, as
+     * {@link QuestionPartitioner} makes of {@code questions}, the build takes the lock instead
+     */
+    private static List<String> withoutConcurrentlyOnPartitionedTables(Connection conn, List<String> statements)
+            throws SQLException {
+        String sql = "SELECT 1 FROM pg_class WHERE relname = ? AND relnamespace = current_schema()::regnamespace "
+                + "AND relkind = 'p'";
+        List<String> result = new ArrayList<>();
+        try (PreparedStatement check = conn.prepareStatement(sql)) {
+            for (String statement : statements) {
+                Matcher matcher = CONCURRENT_INDEX.matcher(statement);
+                if (matcher.lookingAt()) {
+                    check.setString(1, matcher.group(3));
+                    try (ResultSet rs = check.executeQuery()) {
+                        if (rs.next()) {
+                            statement = statement.substring(0, matcher.start(1)) + statement.substring(matcher.end(1));
+                        }
+                    }
+                }
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    private static void record(Connection conn, Migration migration, long elapsedMillis) throws SQLException {
+        String sql = "INSERT INTO schema_migrations (version, description, checksum, execution_millis) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setLong(3, migration.checksum);
+            stmt.setLong(4, elapsedMillis);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static List<Migration> loadMigrations() throws SQLException {
+        List<Migration> migrations = new ArrayList<>(MIGRATIONS.length);
+        for (String fileName : MIGRATIONS) {
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Badly named migration " + fileName);
+            }
+            String script;
+            try (InputStream input = SchemaMigrator.class.getResourceAsStream(LOCATION + fileName)) {
+                if (input == null) {
+                    throw new SQLException("Migration " + fileName + " is missing from the class path");
+                }
+                script = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new SQLException("Failed to read migration " + fileName, e);
+            }
+            migrations.add(new Migration(Integer.parseInt(matcher.group(1)),
+                    matcher.group(2).replace('_', ' '), script));
+        }
+        return migrations;
+    }
+
+    /**
+     * Splits a script at the semicolons that end statements, leaving those inside quotes,
+     * dollar-quoted bodies and comments alone. Comments are dropped.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int i = 0;
+        int length = script.length();
+        while (i < length) {
+            char c = script.charAt(i);
+            if (c == '-' && i + 1 < length && script.charAt(i + 1) == '-') {
+                int end = script.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && i + 1 < length && script.charAt(i + 1) == '*') {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                current.append(' ');
+            } else if (c == '\'' || c == '"') {
+                int end = i + 1;
+                while (end < length) {
+                    if (script.charAt(end) == c) {
+                        // A doubled quote is an escaped one
+                        if (end + 1 < length && script.charAt(end + 1) == c) {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+                current.append(script, i, end);
+                i = end;
+            } else if (c == '$' && dollarTag(script, i) != null) {
+                String tag = dollarTag(script, i);
+                int end = script.indexOf(tag, i + tag.length());
+                end = end < 0 ? length : end + tag.length();
+                current.append(script, i, end);
+                i = end;
+            } else if (c == ';') {
+                addStatement(statements, current);
+                i++;
+            } else {
+                current.append(c);
+                i++;
+            }
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    /**
+     * @return the {@code $tag$} opening a dollar-quoted string at the index, or null
+     */
+    private static String dollarTag(String script, int start) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '$') {
+                return script.substring(start, i + 1);
+            }
+            boolean tagChar = Character.isLetter(c) || c == '_' || (i > start + 1 && Character.isDigit(c));
+            if (!tagChar) {
+                return null;
+            }
+            i++;
+        }
+        return null;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().trim();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+
+    private static class Migration {
+        final int version;
+        final String description;
+        final long checksum;
+        final boolean transactional;
+        final List<String> statements;
+
+        Migration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            CRC32 crc = new CRC32();
+            crc.update(script.getBytes(StandardCharsets.UTF_8));
+            this.checksum = crc.getValue();
+            this.transactional = !script.startsWith(NO_TRANSACTION);
+            this.statements = splitStatements(script);
+        }
+    }
+}
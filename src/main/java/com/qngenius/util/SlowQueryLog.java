@@ -0,0 +1,250 @@
+package com.qngenius.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Writes statements slower than {@code app.db.slowQueryMillis} to a rolling file, with their
+ * bound parameters and, if {@code app.db.slowQueryExplain} is on, the query plan.
+ *
+ * {@link JdbcMetrics} reports the slow statements; everything else happens on one background
+ * thread, so a slow query is not made slower by logging it. When the backlog is full entries
+ * are dropped and counted. The plan is taken on a separate, uninstrumented pool connection
+ * with {@code EXPLAIN (ANALYZE, BUFFERS)} for reads, and with plain {@code EXPLAIN} for
+ * statements that modify data, since ANALYZE would run them a second time. Each statement is
+ * explained at most once per {@link #EXPLAIN_INTERVAL_MILLIS}.
+ */
+public class SlowQueryLog {
+
+    private static final Logger LOGGER = Logger.getLogger(SlowQueryLog.class.getName());
+    private static final long EXPLAIN_INTERVAL_MILLIS = 60_000;
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 30;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final int MAX_TRACKED_STATEMENTS = 1000;
+    private static final int FILE_LIMIT_BYTES = 10 * 1024 * 1024;
+    private static final int FILE_COUNT = 5;
+    private static final Pattern MODIFIES_DATA = Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern EXPLAINABLE = Pattern.compile("^\\s*(SELECT|WITH|INSERT|UPDATE|DELETE)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static SlowQueryLog instance;
+
+    private final Logger fileLogger = Logger.getLogger("com.qngenius.slowquery");
+    private final ThreadPoolExecutor executor;
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile ConnectionSource explainSource;
+    private boolean fileOpened;
+
+    private SlowQueryLog() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "slow-query-log");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        fileLogger.setUseParentHandlers(false);
+    }
+
+    public static synchronized SlowQueryLog getInstance() {
+        if (instance == null) {
+            instance = new SlowQueryLog();
+        }
+        return instance;
+    }
+
+    /**
+     * @param source raw connections for EXPLAIN, which must not go through {@link JdbcMetrics}
+     */
+    public void setExplainSource(ConnectionSource source) {
+        this.explainSource = source;
+    }
+
+    public long getDroppedEntries() {
+        return dropped.get();
+    }
+
+    /**
+     * @param parameters bound values, parameter 1 first; may be null
+     * @param parameterCount how many of them are bound
+     */
+    void record(String operation, String sql, Object[] parameters, int parameterCount, long elapsedNanos, int batchSize) {
+        Object[] values = copyParameters(parameters, parameterCount);
+        try {
+            executor.execute(() -> write(operation, sql, values, elapsedNanos, batchSize));
+        } catch (RejectedExecutionException e) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private void write(String operation, String sql, Object[] parameters, long elapsedNanos, int batchSize) {
+        AppConfig config = ConfigManager.getInstance().getConfig();
+        openFile(config.getSlowQueryLogFile());
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(Instant.now()).append(String.format("  %.1f ms  %s", elapsedNanos / 1_000_000.0, operation));
+        if (batchSize > 0) {
+            entry.append("  batch of ").append(batchSize);
+        }
+        entry.append('\n').append("  SQL: ").append(sql.replaceAll("\\s+", " ").trim()).append('\n');
+        if (parameters != null && parameters.length > 0) {
+            entry.append("  Parameters: ").append(formatParameters(parameters)).append('\n');
+        }
+        if (config.isSlowQueryExplain() && shouldExplain(sql)) {
+            entry.append(explain(sql, parameters));
+        }
+        fileLogger.info(entry.toString());
+    }
+
+    private boolean shouldExplain(String sql) {
+        if (explainSource == null || !EXPLAINABLE.matcher(sql).find()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Long last = lastExplained.get(sql);
+        if (last != null && now - last < EXPLAIN_INTERVAL_MILLIS) {
+            return false;
+        }
+        if (lastExplained.size() > MAX_TRACKED_STATEMENTS) {
+            lastExplained.clear();
+        }
+        lastExplained.put(sql, now);
+        return true;
+    }
+
+    private String explain(String sql, Object[] parameters) {
+        boolean analyze = !MODIFIES_DATA.matcher(sql).find();
+        String explainSql = (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql;
+        StringBuilder plan = new StringBuilder(analyze ? "  Plan (analyzed):\n" : "  Plan (not executed, statement modifies data):\n");
+
+        try (Connection conn = explainSource.getConnection()) {
+            // Never let the plan run change anything, whatever the statement turns out to do
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(explainSql)) {
+                pstmt.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+                bind(conn, pstmt, parameters);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append("    ").append(rs.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            plan.append("    (EXPLAIN failed: ").append(e.getMessage()).append(")\n");
+        }
+        return plan.toString();
+    }
+
+    private static void bind(Connection conn, PreparedStatement pstmt, Object[] parameters) throws SQLException {
+        if (parameters == null) {
+            return;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            Object value = parameters[i];
+            if (value instanceof ArrayValue) {
+                ArrayValue array = (ArrayValue) value;
+                pstmt.setArray(i + 1, conn.createArrayOf(array.baseType, array.elements));
+            } else {
+                pstmt.setObject(i + 1, value);
+            }
+        }
+    }
+
+    // Taken on the query thread: a java.sql.Array is only readable while its connection is open
+    private static Object[] copyParameters(Object[] parameters, int count) {
+        if (parameters == null) {
+            return null;
+        }
+        Object[] copy = Arrays.copyOf(parameters, count);
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof Array) {
+                try {
+                    Array array = (Array) copy[i];
+                    copy[i] = new ArrayValue(array.getBaseTypeName(), (Object[]) array.getArray());
+                } catch (SQLException | ClassCastException e) {
+                    copy[i] = "(array)";
+                }
+            }
+        }
+        return copy;
+    }
+
+    private static String formatParameters(Object[] parameters) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            String value = String.valueOf(parameters[i]);
+            // Long values such as question text are cut; the shape of the query is what matters
+            sb.append('$').append(i + 1).append('=').append(value.length() > 100 ? value.substring(0, 100) + "..." : value);
+        }
+        return sb.toString();
+    }
+
+    private synchronized void openFile(String pattern) {
+        if (fileOpened) {
+            return;
+        }
+        fileOpened = true;
+        try {
+            File parent = new File(pattern).getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            FileHandler handler = new FileHandler(pattern, FILE_LIMIT_BYTES, FILE_COUNT, true);
+            handler.setFormatter(new Formatter() {
+                @Override
+                public String format(LogRecord record) {
+                    return record.getMessage() + "\n";
+                }
+            });
+            fileLogger.addHandler(handler);
+            LOGGER.info("Slow queries are logged to " + pattern);
+        } catch (IOException e) {
+            // Entries still go to the application log
+            fileLogger.setUseParentHandlers(true);
+            LOGGER.log(Level.WARNING, "Cannot open slow query log " + pattern, e);
+        }
+    }
+
+    private static class ArrayValue {
+        private final String baseType;
+        private final Object[] elements;
+
+        ArrayValue(String baseType, Object[] elements) {
+            this.baseType = baseType;
+            this.elements = elements;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(elements);
+        }
+    }
+}
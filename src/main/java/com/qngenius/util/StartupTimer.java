@@ -0,0 +1,50 @@
+package com.qngenius.util;
+
+import java.time.Instant;
+
+/**
+ * Milliseconds from JVM start to the milestones of GUI startup, for the startup log line and
+ * the startup benchmark.
+ *
+ * With {@code -Dqngenius.startup.exitAfterFirstFrame=true} the GUI prints
+ * {@code first-frame-ms=<n>} on standard output once the login screen is laid out, then exits.
+ * The startup benchmark and the AppCDS training run use that.
+ */
+public final class StartupTimer {
+
+    public static final String EXIT_AFTER_FIRST_FRAME_PROPERTY = "qngenius.startup.exitAfterFirstFrame";
+    public static final String FIRST_FRAME_PREFIX = "first-frame-ms=";
+
+    private static final long JVM_START_MILLIS = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+    private static final StringBuilder phases = new StringBuilder();
+
+    private StartupTimer() {
+    }
+
+    /**
+     * Records that a phase has finished
+     *
+     * @return milliseconds since the JVM started
+     */
+    public static synchronized long mark(String phase) {
+        long elapsed = System.currentTimeMillis() - JVM_START_MILLIS;
+        if (phases.length() > 0) {
+            phases.append(", ");
+        }
+        phases.append(phase).append(' ').append(elapsed).append(" ms");
+        return elapsed;
+    }
+
+    /**
+     * @return the phases so far, e.g. "main 180 ms, toolkit 420 ms, scene 650 ms, first frame 790 ms"
+     */
+    public static synchronized String summary() {
+        return phases.toString();
+    }
+
+    public static boolean isExitAfterFirstFrame() {
+        return Boolean.getBoolean(EXIT_AFTER_FIRST_FRAME_PROPERTY);
+    }
+}
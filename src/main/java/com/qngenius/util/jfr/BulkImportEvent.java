@@ -0,0 +1,32 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A user-level bulk import action: loading the preview of a file or importing it
+ */
+@Name("com.qngenius.BulkImport")
+@Label("Bulk Import")
+@Category({ "QnGenius", "Bulk Import" })
+@StackTrace(false)
+public class BulkImportEvent extends Event {
+
+    public static final String PREVIEW = "preview";
+    public static final String IMPORT = "import";
+
+    @Label("Action")
+    public String action;
+
+    @Label("File")
+    public String file;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,40 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One JDBC execute call. For queries the event spans reading the result set as well, since
+ * rows are fetched lazily, and ends when the rows run out or the result set is closed.
+ */
+@Name("com.qngenius.DbQuery")
+@Label("Database Query")
+@Category({ "QnGenius", "Database" })
+@Description("A SQL statement executed through the DAO connection proxy")
+@StackTrace(false)
+public class DbQueryEvent extends Event {
+
+    @Label("Operation")
+    @Description("DAO method that took the connection")
+    public String operation;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows Returned")
+    public long rowsReturned;
+
+    @Label("Rows Affected")
+    public long rowsAffected;
+
+    @Label("Batch Size")
+    @Description("Statements in the JDBC batch, 0 if not batched")
+    public int batchSize;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,29 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A stage of the bulk import pipeline from its start to its last row, or one database
+ * commit of the import writer
+ */
+@Name("com.qngenius.ImportStage")
+@Label("Import Stage")
+@Category({ "QnGenius", "Bulk Import" })
+@StackTrace(false)
+public class ImportStageEvent extends Event {
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Rows")
+    public long rows;
+
+    @Label("Workers")
+    @Description("Threads working on the stage")
+    public int workers;
+}
@@ -0,0 +1,85 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Starts a flight recording with the JDK default settings plus the application events from
+ * {@code /jfr/qngenius.jfc}, when the app is run with {@code -Dqngenius.jfr.file=<file>}.
+ * The recording is written to that file when the app stops.
+ *
+ * The events are emitted only after an {@code isEnabled()} check, which the JIT folds to a
+ * constant while no recording has them enabled, so the instrumentation is free otherwise.
+ */
+public final class JfrRecording {
+
+    private static final Logger LOGGER = Logger.getLogger(JfrRecording.class.getName());
+    private static final String PROFILE = "/jfr/qngenius.jfc";
+    private static Recording recording;
+
+    private JfrRecording() {
+    }
+
+    public static synchronized void startIfRequested() {
+        String file = System.getProperty("qngenius.jfr.file");
+        if (file == null || file.trim().isEmpty() || recording != null) {
+            return;
+        }
+        try {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(loadProfile().getSettings());
+
+            Path destination = Paths.get(file.trim()).toAbsolutePath();
+            recording = new Recording(settings);
+            recording.setName("QnGenius");
+            recording.setToDisk(true);
+            recording.setDestination(destination);
+            recording.start();
+            LOGGER.info("Flight recording started, will be written to " + destination);
+        } catch (IOException | ParseException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to start flight recording", e);
+        }
+    }
+
+    /**
+     * Stops the recording, which writes it to its destination
+     */
+    public static synchronized void stop() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            LOGGER.info("Flight recording written to " + recording.getDestination());
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to write flight recording", e);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    static Configuration loadProfile() throws IOException, ParseException {
+        try (InputStream input = JfrRecording.class.getResourceAsStream(PROFILE)) {
+            if (input == null) {
+                throw new IOException("Recording profile not found on the classpath: " + PROFILE);
+            }
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                return Configuration.create(reader);
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A login from submission to verdict, including the user lookup, the BCrypt check and any
+ * time queued for either
+ */
+@Name("com.qngenius.Login")
+@Label("Login")
+@Category({ "QnGenius", "Authentication" })
+@StackTrace(false)
+public class LoginAttemptEvent extends Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+
+    @Label("Error")
+    public String error;
+}
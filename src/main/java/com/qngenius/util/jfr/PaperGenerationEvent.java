@@ -0,0 +1,35 @@
+package com.qngenius.util.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One phase of generating a question paper: fetching candidate questions for the blueprint
+ * criteria, assembling the selected questions into the paper, or rendering it to PDF. A
+ * "generate" event spans the whole selection of one paper set.
+ */
+@Name("com.qngenius.PaperGeneration")
+@Label("Paper Generation")
+@Category({ "QnGenius", "Paper Generation" })
+@StackTrace(false)
+public class PaperGenerationEvent extends Event {
+
+    public static final String CANDIDATE_FETCH = "candidate fetch";
+    public static final String SELECTION = "selection";
+    public static final String RENDER = "render";
+    public static final String GENERATE = "generate";
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Blueprint")
+    public String blueprintId;
+
+    @Label("Questions")
+    @Description("Questions fetched or placed on the paper in this phase")
+    public int questions;
+}
@@ -0,0 +1,93 @@
+-- Brings a database created from an earlier QnGenius_fx_db_scripts.sql up to the current script.
+-- Every statement is a no-op where the object is already in its current shape.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS last_login TIMESTAMP WITH TIME ZONE;
+
+CREATE TABLE IF NOT EXISTS login_daily_stats (
+    day DATE NOT NULL,
+    user_id UUID NOT NULL,
+    successes INTEGER NOT NULL DEFAULT 0,
+    failures INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_login_daily_stats_user ON login_daily_stats (user_id, day);
+
+-- login_logs was a plain table before it was partitioned by month. Its rows move into monthly
+-- partitions, created here for every month they span, since the partition manager cannot attach a
+-- partition over rows left in the default one. They are counted into the rollups and last_login
+-- as the audit writer would have.
+DO $$
+DECLARE
+    month DATE;
+    last_month DATE;
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class
+               WHERE oid = to_regclass('login_logs') AND relkind = 'r') THEN
+        ALTER TABLE login_logs RENAME TO login_logs_unpartitioned;
+        ALTER TABLE login_logs_unpartitioned RENAME CONSTRAINT login_logs_pkey TO login_logs_unpartitioned_pkey;
+
+        CREATE TABLE login_logs (
+            id UUID NOT NULL DEFAULT gen_random_uuid(),
+            user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+            login_time TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            ip_address VARCHAR(45),
+            success BOOLEAN NOT NULL,
+            PRIMARY KEY (id, login_time)
+        ) PARTITION BY RANGE (login_time);
+        CREATE TABLE login_logs_default PARTITION OF login_logs DEFAULT;
+
+        SELECT date_trunc('month', MIN(COALESCE(login_time, CURRENT_TIMESTAMP)) AT TIME ZONE 'UTC')::date,
+               date_trunc('month', MAX(COALESCE(login_time, CURRENT_TIMESTAMP)) AT TIME ZONE 'UTC')::date
+        INTO month, last_month
+        FROM login_logs_unpartitioned;
+        WHILE month <= last_month LOOP
+            EXECUTE format('CREATE TABLE %I PARTITION OF login_logs FOR VALUES FROM (%L) TO (%L)',
+                           'login_logs_y' || to_char(month, 'YYYY') || 'm' || to_char(month, 'MM'),
+                           month || ' 00:00:00+00', (month + INTERVAL '1 month')::date || ' 00:00:00+00');
+            month := (month + INTERVAL '1 month')::date;
+        END LOOP;
+
+        INSERT INTO login_logs (id, user_id, login_time, ip_address, success)
+        SELECT id, user_id, COALESCE(login_time, CURRENT_TIMESTAMP), ip_address, success
+        FROM login_logs_unpartitioned;
+
+        INSERT INTO login_daily_stats (day, user_id, successes, failures)
+        SELECT (login_time AT TIME ZONE 'UTC')::date, COALESCE(user_id, '00000000-0000-0000-0000-000000000000'::uuid),
+               COUNT(*) FILTER (WHERE success), COUNT(*) FILTER (WHERE NOT success)
+        FROM login_logs GROUP BY 1, 2
+        ON CONFLICT (day, user_id) DO UPDATE SET successes = login_daily_stats.successes + EXCLUDED.successes,
+            failures = login_daily_stats.failures + EXCLUDED.failures;
+
+        UPDATE users u SET last_login = l.last_login
+        FROM (SELECT user_id, MAX(login_time) AS last_login FROM login_logs
+              WHERE success AND user_id IS NOT NULL GROUP BY user_id) l
+        WHERE u.id = l.user_id AND (u.last_login IS NULL OR u.last_login < l.last_login);
+
+        DROP TABLE login_logs_unpartitioned;
+    END IF;
+END $$;
+
+CREATE INDEX IF NOT EXISTS idx_login_logs_user_time ON login_logs (user_id, login_time);
+
+CREATE TABLE IF NOT EXISTS import_jobs (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    file_name VARCHAR(255) NOT NULL,
+    file_hash VARCHAR(64) NOT NULL,
+    subject_id UUID REFERENCES subjects(id),
+    unit_id UUID REFERENCES units(id),
+    created_by UUID REFERENCES users(id) ON DELETE SET NULL,
+    total_rows INTEGER NOT NULL,
+    committed_rows INTEGER NOT NULL DEFAULT 0,
+    last_committed_row INTEGER NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    error_message TEXT,
+    started_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_import_jobs_resume ON import_jobs (file_hash, subject_id, unit_id);
+
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS import_id UUID REFERENCES import_jobs(id) ON DELETE SET NULL;
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS import_row INTEGER;
+CREATE UNIQUE INDEX IF NOT EXISTS uq_questions_import_row ON questions (import_id, import_row);
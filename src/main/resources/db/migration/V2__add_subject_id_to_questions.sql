@@ -0,0 +1,38 @@
+-- Paper generation selects candidates by subject. The subject is the question's unit's, copied
+-- onto the question so that the selection needs no join; a trigger keeps it in step.
+
+ALTER TABLE questions ADD COLUMN IF NOT EXISTS subject_id UUID REFERENCES subjects(id);
+
+CREATE OR REPLACE FUNCTION questions_set_subject_id() RETURNS trigger AS $$
+BEGIN
+    IF NEW.unit_id IS NULL THEN
+        NEW.subject_id := NULL;
+    ELSE
+        SELECT subject_id INTO NEW.subject_id FROM units WHERE id = NEW.unit_id;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_questions_subject_id ON questions;
+CREATE TRIGGER trg_questions_subject_id
+    BEFORE INSERT OR UPDATE OF unit_id ON questions
+    FOR EACH ROW EXECUTE FUNCTION questions_set_subject_id();
+
+-- Moving a unit to another subject moves its questions with it
+CREATE OR REPLACE FUNCTION units_propagate_subject_id() RETURNS trigger AS $$
+BEGIN
+    UPDATE questions SET subject_id = NEW.subject_id WHERE unit_id = NEW.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_units_subject_id ON units;
+CREATE TRIGGER trg_units_subject_id
+    AFTER UPDATE OF subject_id ON units
+    FOR EACH ROW WHEN (OLD.subject_id IS DISTINCT FROM NEW.subject_id)
+    EXECUTE FUNCTION units_propagate_subject_id();
+
+UPDATE questions q SET subject_id = u.subject_id
+FROM units u
+WHERE q.unit_id = u.id AND q.subject_id IS DISTINCT FROM u.subject_id;
@@ -0,0 +1,18 @@
+-- no-transaction
+-- Built concurrently, so the application keeps reading and writing these tables meanwhile.
+
+-- Paper generation: one subject's questions of a given marks, difficulty and Bloom level
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_questions_selection
+    ON questions (subject_id, marks, difficulty_level, bloom_taxonomy_level);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_questions_unit ON questions (unit_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_subjects_course ON subjects (course_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_units_subject ON units (subject_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_blueprints_subject_exam_type ON blueprints (subject_id, exam_type_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_blueprint_sections_blueprint ON blueprint_sections (blueprint_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_blueprint_criteria_section ON blueprint_criteria (blueprint_section_id);
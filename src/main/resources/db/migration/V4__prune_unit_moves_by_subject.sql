@@ -0,0 +1,15 @@
+-- Moving a unit updates only its questions in the old subject, which when questions is
+-- partitioned by subject is the one partition that can hold them.
+
+CREATE OR REPLACE FUNCTION units_propagate_subject_id() RETURNS trigger AS $$
+BEGIN
+    IF OLD.subject_id IS NULL THEN
+        UPDATE questions SET subject_id = NEW.subject_id
+        WHERE subject_id IS NULL AND unit_id = NEW.id;
+    ELSE
+        UPDATE questions SET subject_id = NEW.subject_id
+        WHERE subject_id = OLD.subject_id AND unit_id = NEW.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
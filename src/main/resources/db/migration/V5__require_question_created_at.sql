@@ -0,0 +1,5 @@
+-- The question browser pages through questions in (created_at, question_id) order, which
+-- a row without created_at would drop out of.
+
+UPDATE questions SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE questions ALTER COLUMN created_at SET NOT NULL;
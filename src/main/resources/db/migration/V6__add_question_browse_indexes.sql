@@ -0,0 +1,6 @@
+-- no-transaction
+-- Keyset pagination for the question browser: each page starts where the last ended, by index
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_questions_browse ON questions (created_at, question_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_questions_subject_browse ON questions (subject_id, created_at, question_id);